@@ -0,0 +1,10 @@
+-- pgbench script: first page of the public listing and a seek 30 days back (ShortUrlListingRepository)
+\set days random(0, 30)
+SELECT su.id, su.short_key, su.original_url, su.is_private, su.expires_at, su.click_count,
+       su.created_at, su.redirect_type, su.unique_visitors, u.id AS user_id, u.name AS user_name
+FROM short_urls su
+LEFT JOIN users u ON u.id = su.created_by
+WHERE su.is_private = false AND (su.expires_at IS NULL OR su.expires_at > now())
+  AND (su.created_at, su.id) < (now() - make_interval(days => :days), 9223372036854775807)
+ORDER BY su.created_at DESC, su.id DESC
+LIMIT 11;
@@ -0,0 +1,6 @@
+-- pgbench script: redirect lookup by short key (ShortUrlRepository.findByShortKey)
+\set n random(1, :keys)
+SELECT su.id, su.short_key, su.original_url, su.expires_at, u.id, u.name
+FROM short_urls su
+LEFT JOIN users u ON u.id = su.created_by
+WHERE su.short_key = (SELECT short_key FROM benchmark_keys WHERE n = :n);
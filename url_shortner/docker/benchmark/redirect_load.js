@@ -0,0 +1,28 @@
+// k6 script: open-model load on GET /s/{key}, redirects not followed.
+// keys.txt holds one short key per line (see README).
+import http from 'k6/http';
+import { check } from 'k6';
+import { SharedArray } from 'k6/data';
+
+const keys = new SharedArray('keys', () => open('./keys.txt').split('\n').filter(k => k.length > 0));
+const baseUrl = __ENV.BASE_URL || 'http://localhost:8080';
+
+export const options = {
+    scenarios: {
+        redirects: {
+            executor: 'constant-arrival-rate',
+            rate: Number(__ENV.RATE || 2000),
+            timeUnit: '1s',
+            duration: __ENV.DURATION || '60s',
+            preAllocatedVUs: 500,
+            maxVUs: 5000,
+        },
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+};
+
+export default function () {
+    const key = keys[Math.floor(Math.random() * keys.length)];
+    const res = http.get(`${baseUrl}/s/${key}`, { redirects: 0 });
+    check(res, { 'redirected': r => r.status === 301 || r.status === 302 });
+}
@@ -0,0 +1,16 @@
+-- Seeds :rows short urls spread over the last 24 months, for the partitioning benchmark.
+-- psql -v rows=1000000 -f seed.sql
+INSERT INTO short_urls (short_key, original_url, is_private, expires_at, created_by, created_at)
+SELECT 'b' || to_hex(g),
+       'https://example.com/' || g,
+       g % 10 = 0,
+       CASE WHEN g % 3 = 0 THEN NULL ELSE now() + INTERVAL '30 days' END,
+       NULL,
+       now() - (random() * INTERVAL '730 days')
+FROM generate_series(1, :rows) g;
+ANALYZE short_urls;
+
+-- keys to look up, so the lookup script does not pay for picking one
+DROP TABLE IF EXISTS benchmark_keys;
+CREATE TABLE benchmark_keys AS
+SELECT row_number() OVER () AS n, short_key FROM short_urls TABLESAMPLE SYSTEM (1);
@@ -0,0 +1,3 @@
+#!/bin/bash
+# pg_hba "all" does not match replication connections; let the replica stream WAL
+echo "host replication all all scram-sha-256" >> "$PGDATA/pg_hba.conf"
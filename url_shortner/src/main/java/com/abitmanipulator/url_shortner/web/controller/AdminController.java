@@ -1,36 +0,0 @@
-package com.abitmanipulator.url_shortner.web.controller;
-
-import com.abitmanipulator.url_shortner.AppConfigProperties;
-import com.abitmanipulator.url_shortner.domain.models.PagedResult;
-import com.abitmanipulator.url_shortner.domain.models.ShortUrlDto;
-import com.abitmanipulator.url_shortner.services.ShortUrlService;
-import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.stereotype.Controller;
-import org.springframework.ui.Model;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RequestParam;
-
-@Controller
-@RequestMapping("/admin")
-@PreAuthorize("hasRole('ADMIN')")
-public class AdminController {
-    private final ShortUrlService shortUrlService;
-    private final AppConfigProperties properties;
-
-    public AdminController(ShortUrlService shortUrlService, AppConfigProperties properties) {
-        this.shortUrlService = shortUrlService;
-        this.properties = properties;
-    }
-
-    @GetMapping("/dashboard")
-    public String dashboard(
-            @RequestParam(defaultValue = "1") int page,
-            Model model) {
-        PagedResult<ShortUrlDto> allUrls = shortUrlService.findAllShortUrls(page, properties.pageSize());
-        model.addAttribute("shortUrls", allUrls);
-        model.addAttribute("baseUrl", properties.baseUrl());
-        model.addAttribute("paginationUrl", "/admin/dashboard");
-        return "admin-dashboard";
-    }
-}
\ No newline at end of file
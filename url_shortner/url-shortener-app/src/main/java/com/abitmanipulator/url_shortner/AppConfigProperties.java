@@ -0,0 +1,504 @@
+package com.abitmanipulator.url_shortner;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import com.abitmanipulator.url_shortner.domain.models.RedirectType;
+import com.abitmanipulator.url_shortner.services.ExpiredShortUrlReaper;
+import com.abitmanipulator.url_shortner.services.ShortKeyGenerator;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.util.List;
+
+@ConfigurationProperties(prefix = "app")
+@Validated
+public record AppConfigProperties(
+        @NotBlank
+        @DefaultValue("http:://localhost:8080")
+        String baseUrl ,
+
+        @DefaultValue("30")
+        @Min(1)
+        @Max(365)
+        int defaultExpiryDays,
+
+        @DefaultValue("true")
+        boolean validateOriginalUrl,
+
+        @DefaultValue("10")
+        int pageSize,
+
+        @DefaultValue
+        @Valid
+        RedirectCache redirectCache,
+
+        @DefaultValue
+        @Valid
+        ClickCounting clickCounting,
+
+        @DefaultValue
+        @Valid
+        ShortKey shortKey,
+
+        @DefaultValue
+        @Valid
+        UrlValidation urlValidation,
+
+        @DefaultValue
+        @Valid
+        KeyFilter keyFilter,
+
+        @DefaultValue
+        @Valid
+        Redirect redirect,
+
+        @DefaultValue
+        @Valid
+        ClickEvents clickEvents,
+
+        @DefaultValue
+        @Valid
+        ClickRollups clickRollups,
+
+        @DefaultValue
+        @Valid
+        Trending trending,
+
+        @DefaultValue
+        @Valid
+        UniqueVisitors uniqueVisitors,
+
+        @DefaultValue
+        @Valid
+        Reaper reaper,
+
+        @DefaultValue
+        @Valid
+        Partitioning partitioning,
+
+        @DefaultValue
+        @Valid
+        Bulk bulk,
+
+        @DefaultValue
+        @Valid
+        CsvImport csvImport,
+
+        @DefaultValue
+        @Valid
+        ConnectionLimit connectionLimit,
+
+        @DefaultValue
+        @Valid
+        ReadReplicas readReplicas,
+
+        @DefaultValue
+        @Valid
+        Sharding sharding,
+
+        @DefaultValue
+        @Valid
+        Snapshot snapshot
+
+        ) {
+
+    /**
+     * In-memory cache of resolved short keys used by the redirect path.
+     * Entries are also dropped when the link itself expires.
+     */
+    public record RedirectCache(
+            @DefaultValue("100000")
+            @Min(1)
+            long maximumSize,
+
+            @DefaultValue("10m")
+            Duration ttl
+    ) {
+    }
+
+    /**
+     * Write-behind click counting: clicks are buffered in memory and flushed to short_urls.click_count
+     * using at most {@code batchSize} rows per JDBC batch. The flush schedule itself is
+     * {@code app.click-counting.flush-interval}, bound by ClickCounter's {@code @Scheduled}.
+     */
+    public record ClickCounting(
+            @DefaultValue("500")
+            @Min(1)
+            int batchSize
+    ) {
+    }
+
+    /**
+     * Short key allocation, see {@link ShortKeyGenerator.Strategy}.
+     * {@code secret} keys the id permutation of the BLOCK strategy and must never change once keys were issued.
+     */
+    public record ShortKey(
+            @DefaultValue("RANDOM")
+            ShortKeyGenerator.Strategy strategy,
+
+            @DefaultValue("1000")
+            @Min(1)
+            @Max(65536)
+            int blockSize,
+
+            @DefaultValue("change-me")
+            @NotBlank
+            String secret
+    ) {
+    }
+
+    /**
+     * Tuning of the original url check enabled by {@code validateOriginalUrl}.
+     * With {@code deferred} the link is accepted right away as PENDING and checked in the background;
+     * every {@code sweepInterval} links still PENDING (their check lost, e.g. on restart) are submitted again.
+     */
+    public record UrlValidation(
+            @DefaultValue("false")
+            boolean deferred,
+
+            @DefaultValue("PT1M")
+            Duration sweepInterval,
+
+            @DefaultValue("5s")
+            Duration connectTimeout,
+
+            @DefaultValue("5s")
+            Duration requestTimeout,
+
+            @DefaultValue("4")
+            @Min(1)
+            int maxConcurrentPerHost,
+
+            @DefaultValue("10000")
+            @Min(1)
+            long maximumSize,
+
+            @DefaultValue("6h")
+            Duration positiveTtl,
+
+            @DefaultValue("5m")
+            Duration negativeTtl
+    ) {
+    }
+
+    /**
+     * Bloom filter of live short keys used to reject unknown keys on the redirect path.
+     * Keys created on other nodes are announced over LISTEN/NOTIFY; {@code refreshInterval} scans catch up on missed ones.
+     */
+    public record KeyFilter(
+            @DefaultValue("true")
+            boolean enabled,
+
+            @DefaultValue("1000000")
+            @Min(1)
+            long expectedKeys,
+
+            @DefaultValue("0.01")
+            double falsePositiveProbability,
+
+            @DefaultValue("PT5S")
+            Duration refreshInterval,
+
+            @DefaultValue("PT6H")
+            Duration rebuildInterval
+    ) {
+    }
+
+    /**
+     * Redirect responses; {@code defaultType} applies to links created without an explicit redirect type.
+     * Public links may be cached by browsers and CDNs for up to {@code publicMaxAge}, see RedirectPolicy.
+     */
+    public record Redirect(
+            @DefaultValue("FOUND")
+            RedirectType defaultType,
+
+            @DefaultValue("true")
+            boolean permanentForPublicLinks,
+
+            @DefaultValue("1d")
+            Duration publicMaxAge
+    ) {
+    }
+
+    /**
+     * Per-click analytics written to click_events. {@code bufferCapacity} bounds the events held in memory
+     * (rounded up to a power of two); {@code countryHeader} is the header set by the CDN / proxy with the client's country.
+     */
+    public record ClickEvents(
+            @DefaultValue("true")
+            boolean enabled,
+
+            @DefaultValue("65536")
+            @Min(2)
+            int bufferCapacity,
+
+            @DefaultValue("1000")
+            @Min(1)
+            int batchSize,
+
+            @DefaultValue("PT1S")
+            Duration drainInterval,
+
+            @DefaultValue("CF-IPCountry")
+            String countryHeader
+    ) {
+    }
+
+    /**
+     * Minute / hour / day click rollups. Minute and hour buckets are compacted away after their retention,
+     * day buckets are kept. Dashboard figures read from the rollups are cached for {@code statsTtl}.
+     */
+    public record ClickRollups(
+            @DefaultValue("PT48H")
+            Duration minuteRetention,
+
+            @DefaultValue("P90D")
+            Duration hourRetention,
+
+            @DefaultValue("PT1H")
+            Duration compactionInterval,
+
+            @DefaultValue("10")
+            @Min(1)
+            int topLinks,
+
+            @DefaultValue("PT30S")
+            Duration statsTtl
+    ) {
+    }
+
+    /**
+     * Heavy-hitter tracking of hot short keys. {@code capacity} counters are kept (the memory bound),
+     * the {@code topK} best are reported and the first {@code pinned} of those are pinned in the redirect cache.
+     * Counts halve every {@code halfLife}, which sets the width of the sliding window.
+     */
+    public record Trending(
+            @DefaultValue("1000")
+            @Min(1)
+            int capacity,
+
+            @DefaultValue("50")
+            @Min(1)
+            int topK,
+
+            @DefaultValue("20")
+            @Min(0)
+            int pinned,
+
+            @DefaultValue("PT5M")
+            Duration halfLife,
+
+            @DefaultValue("PT1S")
+            Duration updateInterval,
+
+            @DefaultValue("65536")
+            @Min(2)
+            int bufferCapacity
+    ) {
+    }
+
+    /**
+     * HyperLogLog unique visitor counting. {@code precision} p gives 2^p registers per sketch
+     * (standard error ~1.04 / sqrt(2^p)). Lowering it folds the persisted sketches down; raising it only applies
+     * to links without a persisted sketch, the others keep their precision.
+     */
+    public record UniqueVisitors(
+            @DefaultValue("12")
+            @Min(4)
+            @Max(16)
+            int precision,
+
+            @DefaultValue("PT30S")
+            Duration flushInterval,
+
+            @DefaultValue("500")
+            @Min(1)
+            int batchSize
+    ) {
+    }
+
+    /**
+     * Purge of expired short urls: every {@code interval}, rows expired for longer than {@code gracePeriod}
+     * are deleted (or moved to short_urls_archive) {@code batchSize} at a time, with {@code pause} between
+     * batches, for at most {@code maxRunTime} per run.
+     */
+    public record Reaper(
+            @DefaultValue("true")
+            boolean enabled,
+
+            @DefaultValue("DELETE")
+            ExpiredShortUrlReaper.Mode mode,
+
+            @DefaultValue("500")
+            @Min(1)
+            @Max(10000)
+            int batchSize,
+
+            @DefaultValue("PT0.2S")
+            Duration pause,
+
+            @DefaultValue("PT1M")
+            Duration maxRunTime,
+
+            @DefaultValue("PT5M")
+            Duration interval,
+
+            @DefaultValue("PT0S")
+            Duration gracePeriod
+    ) {
+    }
+
+    /**
+     * Monthly partitions of short_urls (profile "partitioned"): {@code monthsAhead} future months are created in advance,
+     * months that ended more than {@code retention} ago are dropped once all their links have expired.
+     */
+    public record Partitioning(
+            @DefaultValue("false")
+            boolean enabled,
+
+            @DefaultValue("3")
+            @Min(1)
+            int monthsAhead,
+
+            @DefaultValue("P400D")
+            Duration retention,
+
+            @DefaultValue("PT12H")
+            Duration maintenanceInterval
+    ) {
+    }
+
+    /**
+     * Bulk creation API: at most {@code maxLinks} links per request, inserted {@code chunkSize} rows per statement.
+     */
+    public record Bulk(
+            @DefaultValue("10000")
+            @Min(1)
+            int maxLinks,
+
+            @DefaultValue("1000")
+            @Min(1)
+            int chunkSize
+    ) {
+    }
+
+    /**
+     * CSV import of existing links: rows are streamed through COPY {@code batchSize} at a time, one transaction per batch.
+     */
+    public record CsvImport(
+            @DefaultValue("50000")
+            @Min(1)
+            int batchSize
+    ) {
+    }
+
+    /**
+     * Caps concurrent database work, mainly for request handling on virtual threads (profile "virtual-threads"):
+     * callers wait up to {@code acquireTimeout} for a permit instead of piling onto the connection pool.
+     * A {@code maxConcurrent} of 0 uses the pool's maximum size.
+     */
+    public record ConnectionLimit(
+            @DefaultValue("false")
+            boolean enabled,
+
+            @DefaultValue("0")
+            @Min(0)
+            int maxConcurrent,
+
+            @DefaultValue("PT2S")
+            Duration acquireTimeout
+    ) {
+    }
+
+    /**
+     * Read replicas for {@code readOnly} transactions, chosen round-robin among those at most {@code maxLag} behind
+     * the primary; reads go to the primary when none qualifies. Replicas use the primary's credentials.
+     * For {@code readYourWritesWindow} after creating or deleting links, that user's reads stay on the primary (0 disables).
+     */
+    public record ReadReplicas(
+            @DefaultValue("false")
+            boolean enabled,
+
+            @DefaultValue
+            List<String> urls,
+
+            @DefaultValue("10")
+            @Min(1)
+            int maximumPoolSize,
+
+            @DefaultValue("PT10S")
+            Duration maxLag,
+
+            @DefaultValue("PT5S")
+            Duration healthCheckInterval,
+
+            @DefaultValue("PT5S")
+            Duration readYourWritesWindow
+    ) {
+    }
+
+    /**
+     * short_urls hash-sharded over {@code urls} (profile "sharded"); users and everything else stay in the main database.
+     * Shards are only ever appended: after adding some, set {@code previousShardCount} to the old count until the
+     * rebalancer has moved their keys over, so lookups still find keys on their old shard.
+     */
+    public record Sharding(
+            @DefaultValue("false")
+            boolean enabled,
+
+            @DefaultValue
+            List<String> urls,
+
+            @DefaultValue("128")
+            @Min(1)
+            int virtualNodes,
+
+            @DefaultValue("0")
+            @Min(0)
+            int previousShardCount,
+
+            @DefaultValue("10")
+            @Min(1)
+            int maximumPoolSize,
+
+            @DefaultValue("1000")
+            @Min(1)
+            int rebalanceBatchSize,
+
+            @DefaultValue("PT0.1S")
+            Duration rebalancePause
+    ) {
+    }
+
+    /**
+     * Memory-mapped file of all redirect targets that is mapped again after a restart, see ShortUrlSnapshot.
+     * {@code expectedLinks} sizes a new file's slot table; when it fills up the next rebuild doubles it.
+     * Removals are logged for {@code removalRetention}: a file last refreshed longer ago than that is rebuilt, not mapped.
+     */
+    public record Snapshot(
+            @DefaultValue("false")
+            boolean enabled,
+
+            @DefaultValue("data/short-urls.snapshot")
+            @NotBlank
+            String path,
+
+            @DefaultValue("1000000")
+            @Min(1)
+            long expectedLinks,
+
+            @DefaultValue("PT5S")
+            Duration refreshInterval,
+
+            @DefaultValue("PT1H")
+            Duration rebuildInterval,
+
+            @DefaultValue("P1D")
+            Duration removalRetention
+    ) {
+    }
+}
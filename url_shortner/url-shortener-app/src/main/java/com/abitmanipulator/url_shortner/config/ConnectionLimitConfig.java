@@ -0,0 +1,53 @@
+package com.abitmanipulator.url_shortner.config;
+
+import com.abitmanipulator.url_shortner.AppConfigProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Puts a {@link BoundedDataSource} in front of the pool when {@code app.connection-limit.enabled} is set.
+ * With request handling on virtual threads there is no worker pool capping concurrency any more,
+ * so this is what keeps thousands of parked requests from queueing inside Hikari or hitting Postgres at once.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.connection-limit", name = "enabled", havingValue = "true")
+public class ConnectionLimitConfig {
+
+    @Bean
+    static BeanPostProcessor boundedDataSourcePostProcessor(ObjectProvider<AppConfigProperties> properties) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // only pools; routing or proxy DataSources in front of them are left alone
+                if (!(bean instanceof HikariDataSource dataSource)) {
+                    return bean;
+                }
+                AppConfigProperties.ConnectionLimit config = properties.getObject().connectionLimit();
+                int maxConcurrent = config.maxConcurrent() > 0 ? config.maxConcurrent() : dataSource.getMaximumPoolSize();
+                return new BoundedDataSource(dataSource, maxConcurrent, config.acquireTimeout());
+            }
+        };
+    }
+
+    @Bean
+    MeterBinder connectionLimitMetrics(ObjectProvider<DataSource> dataSources) {
+        return registry -> dataSources.orderedStream().forEach(dataSource -> {
+            if (dataSource instanceof BoundedDataSource bounded) {
+                Gauge.builder("shorturl.datasource.permits.available", bounded, BoundedDataSource::getAvailablePermits)
+                        .description("Database permits not currently checked out")
+                        .register(registry);
+                Gauge.builder("shorturl.datasource.permits.waiting", bounded, BoundedDataSource::getWaiting)
+                        .description("Threads waiting for a database permit")
+                        .register(registry);
+            }
+        });
+    }
+}
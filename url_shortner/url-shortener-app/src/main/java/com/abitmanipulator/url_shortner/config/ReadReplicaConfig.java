@@ -0,0 +1,76 @@
+package com.abitmanipulator.url_shortner.config;
+
+import com.abitmanipulator.url_shortner.AppConfigProperties;
+import com.abitmanipulator.url_shortner.services.ReadYourWrites;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces the auto-configured DataSource with primary + replica pools behind a {@link ReadReplicaRoutingDataSource}
+ * when {@code app.read-replicas.enabled} is set. The primary pool keeps all {@code spring.datasource.*} settings.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.read-replicas", name = "enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReadReplicaRoutingDataSource readReplicaRoutingDataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                                                     DataSourceProperties dataSourceProperties,
+                                                                     AppConfigProperties properties,
+                                                                     ReadYourWrites readYourWrites) {
+        AppConfigProperties.ReadReplicas config = properties.readReplicas();
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        List<String> urls = config.urls();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = dataSourceProperties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(urls.get(i))
+                    .build();
+            String name = "replica-" + (i + 1);
+            replica.setPoolName(name);
+            replica.setMaximumPoolSize(config.maximumPoolSize());
+            replica.setReadOnly(true);
+            replicas.put(name, replica);
+        }
+        return new ReadReplicaRoutingDataSource(primaryDataSource, replicas, readYourWrites, config.maxLag());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadReplicaRoutingDataSource readReplicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(readReplicaRoutingDataSource);
+    }
+
+    @Bean
+    MeterBinder readReplicaMetrics(ReadReplicaRoutingDataSource readReplicaRoutingDataSource) {
+        return registry -> {
+            for (ReadReplicaRoutingDataSource.Replica replica : readReplicaRoutingDataSource.getReplicas()) {
+                Gauge.builder("shorturl.datasource.replica.lag", replica, ReadReplicaRoutingDataSource.Replica::getLagMillis)
+                        .description("Replay lag of a read replica in ms, -1 when unreachable")
+                        .baseUnit("milliseconds")
+                        .tag("replica", replica.getName())
+                        .register(registry);
+            }
+        };
+    }
+}
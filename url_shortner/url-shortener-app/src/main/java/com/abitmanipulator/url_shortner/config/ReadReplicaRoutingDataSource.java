@@ -0,0 +1,135 @@
+package com.abitmanipulator.url_shortner.config;
+
+import com.abitmanipulator.url_shortner.services.ReadYourWrites;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends connections of read-only transactions to a replica, everything else to the primary.
+ * Replicas are used round-robin, skipping those that are down or lag more than {@code maxLag}; with none left,
+ * reads fall back to the primary. Must sit behind a LazyConnectionDataSourceProxy, so the connection is
+ * picked once the transaction's read-only flag is known rather than when the transaction begins.
+ */
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(ReadReplicaRoutingDataSource.class);
+
+    static final String PRIMARY = "primary";
+
+    // seconds behind the primary; 0 when caught up (an idle primary would otherwise look like growing lag),
+    // or when the instance is not a standby at all, e.g. a second standalone database used for local testing
+    private static final String LAG_SQL = """
+            SELECT CASE
+                       WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                       ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0)
+                   END
+            """;
+
+    private final List<Replica> replicas;
+    private final ReadYourWrites readYourWrites;
+    private final Duration maxLag;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReadReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas,
+                                        ReadYourWrites readYourWrites, Duration maxLag) {
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        this.replicas = replicas.entrySet().stream()
+                .map(entry -> new Replica(entry.getKey(), entry.getValue()))
+                .toList();
+        this.readYourWrites = readYourWrites;
+        this.maxLag = maxLag;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || readYourWrites.isCurrentUserPinned()) {
+            return PRIMARY;
+        }
+        int size = replicas.size();
+        if (size == 0) {
+            return PRIMARY;
+        }
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                return replica.name;
+            }
+        }
+        return PRIMARY;
+    }
+
+    @Scheduled(fixedDelayString = "${app.read-replicas.health-check-interval:PT5S}")
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            try {
+                Double lagSeconds = replica.jdbcTemplate.queryForObject(LAG_SQL, Double.class);
+                replica.lagMillis = lagSeconds == null ? 0 : (long) (lagSeconds * 1000);
+                healthy = replica.lagMillis <= maxLag.toMillis();
+            } catch (Exception e) {
+                replica.lagMillis = -1;
+                healthy = false;
+                log.debug("Replica {} health check failed", replica.name, e);
+            }
+            if (healthy != replica.healthy) {
+                log.info("Replica {} is now {} (lag {} ms)", replica.name, healthy ? "in use" : "skipped", replica.lagMillis);
+            }
+            replica.healthy = healthy;
+        }
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    public static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private final JdbcTemplate jdbcTemplate;
+        // not used until the first health check has passed
+        private volatile boolean healthy;
+        private volatile long lagMillis = -1;
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.jdbcTemplate = new JdbcTemplate(dataSource);
+            this.jdbcTemplate.setQueryTimeout(2);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return replay lag in ms as of the last check, or -1 if the replica could not be reached
+         */
+        public long getLagMillis() {
+            return lagMillis;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.abitmanipulator.url_shortner.config;
+
+import com.abitmanipulator.url_shortner.AppConfigProperties;
+import com.abitmanipulator.url_shortner.repository.ShardedShortUrlRepository;
+import com.abitmanipulator.url_shortner.services.ShardRing;
+import com.abitmanipulator.url_shortner.services.ShortKeyGenerator;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.simple.JdbcClient;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One pool per shard url (primary's credentials), each migrated with db/shards before use.
+ * Refuses to start together with the features that still only see short_urls in the main database,
+ * which stays empty when sharded.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.sharding", name = "enabled", havingValue = "true")
+public class ShardingConfig {
+
+    @Bean
+    public ShardedShortUrlRepository shardedShortUrlRepository(AppConfigProperties properties,
+                                                               DataSourceProperties dataSourceProperties,
+                                                               JdbcClient jdbcClient) {
+        AppConfigProperties.Sharding config = properties.sharding();
+        List<String> urls = config.urls();
+        if (urls.isEmpty()) {
+            throw new IllegalStateException("app.sharding.enabled is set but app.sharding.urls is empty");
+        }
+        if (config.previousShardCount() >= urls.size()) {
+            throw new IllegalStateException("app.sharding.previous-shard-count must be less than the number of shards");
+        }
+        List<String> unsupported = new ArrayList<>();
+        if (properties.shortKey().strategy() == ShortKeyGenerator.Strategy.RANDOM) {
+            unsupported.add("app.short-key.strategy=RANDOM"); // checks its keys are unused in the main database
+        }
+        if (properties.keyFilter().enabled()) {
+            unsupported.add("app.key-filter.enabled");
+        }
+        if (properties.reaper().enabled()) {
+            unsupported.add("app.reaper.enabled");
+        }
+        if (properties.validateOriginalUrl() && properties.urlValidation().deferred()) {
+            unsupported.add("app.url-validation.deferred");
+        }
+        if (!unsupported.isEmpty()) {
+            throw new IllegalStateException("app.sharding.enabled can't be combined with " + String.join(", ", unsupported));
+        }
+        List<DataSource> shards = new ArrayList<>(urls.size());
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource shard = dataSourceProperties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(urls.get(i))
+                    .build();
+            shard.setPoolName("shard-" + i);
+            shard.setMaximumPoolSize(config.maximumPoolSize());
+            Flyway.configure()
+                    .dataSource(shard)
+                    .locations("classpath:db/shards")
+                    .load()
+                    .migrate();
+            shards.add(shard);
+        }
+        ShardRing ring = new ShardRing(urls.size(), config.virtualNodes());
+        ShardRing previousRing = config.previousShardCount() > 0
+                ? new ShardRing(config.previousShardCount(), config.virtualNodes())
+                : null;
+        return new ShardedShortUrlRepository(shards, jdbcClient, ring, previousRing);
+    }
+}
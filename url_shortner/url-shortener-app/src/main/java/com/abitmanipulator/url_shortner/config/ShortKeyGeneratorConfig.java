@@ -0,0 +1,26 @@
+package com.abitmanipulator.url_shortner.config;
+
+import com.abitmanipulator.url_shortner.AppConfigProperties;
+import com.abitmanipulator.url_shortner.repository.ShortKeyBlockRepository;
+import com.abitmanipulator.url_shortner.repository.ShortUrlRepository;
+import com.abitmanipulator.url_shortner.services.BlockShortKeyGenerator;
+import com.abitmanipulator.url_shortner.services.RandomShortKeyGenerator;
+import com.abitmanipulator.url_shortner.services.ShortKeyEncoder;
+import com.abitmanipulator.url_shortner.services.ShortKeyGenerator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ShortKeyGeneratorConfig {
+
+    @Bean
+    public ShortKeyGenerator shortKeyGenerator(AppConfigProperties properties,
+                                               ShortUrlRepository shortUrlRepository,
+                                               ShortKeyBlockRepository blockRepository) {
+        AppConfigProperties.ShortKey config = properties.shortKey();
+        return switch (config.strategy()) {
+            case RANDOM -> new RandomShortKeyGenerator(shortUrlRepository);
+            case BLOCK -> new BlockShortKeyGenerator(blockRepository, new ShortKeyEncoder(config.secret()), config.blockSize());
+        };
+    }
+}
@@ -1,5 +1,7 @@
 package com.abitmanipulator.url_shortner.domain.entities;
 
+import com.abitmanipulator.url_shortner.domain.models.RedirectType;
+import com.abitmanipulator.url_shortner.domain.models.ValidationStatus;
 import jakarta.persistence.*;
 import org.hibernate.annotations.ColumnDefault;
 
@@ -38,6 +40,21 @@ public class ShortUrl {
     @Column(name = "created_at", nullable = false)
     private Instant createdAt;
 
+    @ColumnDefault("'VALID'")
+    @Column(name = "validation_status", nullable = false, length = 10)
+    @Enumerated(EnumType.STRING)
+    private ValidationStatus validationStatus = ValidationStatus.VALID;
+
+    // null: use the application default
+    @Column(name = "redirect_type", length = 20)
+    @Enumerated(EnumType.STRING)
+    private RedirectType redirectType;
+
+    // estimate from the visitor sketch, maintained by UniqueVisitorCounter
+    @ColumnDefault("0")
+    @Column(name = "unique_visitors", nullable = false)
+    private Long uniqueVisitors;
+
     public Long getId() {
         return id;
     }
@@ -101,4 +118,28 @@ public class ShortUrl {
     public void setCreatedAt(Instant createdAt) {
         this.createdAt = createdAt;
     }
+
+    public ValidationStatus getValidationStatus() {
+        return validationStatus;
+    }
+
+    public void setValidationStatus(ValidationStatus validationStatus) {
+        this.validationStatus = validationStatus;
+    }
+
+    public RedirectType getRedirectType() {
+        return redirectType;
+    }
+
+    public void setRedirectType(RedirectType redirectType) {
+        this.redirectType = redirectType;
+    }
+
+    public Long getUniqueVisitors() {
+        return uniqueVisitors;
+    }
+
+    public void setUniqueVisitors(Long uniqueVisitors) {
+        this.uniqueVisitors = uniqueVisitors;
+    }
 }
\ No newline at end of file
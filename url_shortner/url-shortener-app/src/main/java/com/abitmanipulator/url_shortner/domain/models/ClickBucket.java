@@ -0,0 +1,6 @@
+package com.abitmanipulator.url_shortner.domain.models;
+
+import java.time.Instant;
+
+public record ClickBucket(Instant bucketStart, long clicks) {
+}
@@ -0,0 +1,16 @@
+package com.abitmanipulator.url_shortner.domain.models;
+
+import java.time.Instant;
+
+/**
+ * A single redirect, as recorded into click_events.
+ */
+public record ClickEvent(
+        Long shortUrlId,
+        String shortKey,
+        Long ownerId,
+        Instant clickedAt,
+        String referrer,
+        String userAgent,
+        String country) {
+}
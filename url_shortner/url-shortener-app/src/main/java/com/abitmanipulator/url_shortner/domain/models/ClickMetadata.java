@@ -0,0 +1,8 @@
+package com.abitmanipulator.url_shortner.domain.models;
+
+/**
+ * What is known about the client behind a redirect, taken from the request.
+ * {@code visitorHash} identifies the visitor for unique visitor counting, 0 when unknown.
+ */
+public record ClickMetadata(String referrer, String userAgent, String country, long visitorHash) {
+}
@@ -0,0 +1,14 @@
+package com.abitmanipulator.url_shortner.domain.models;
+
+import java.time.Instant;
+
+/**
+ * Clicks to add to one rollup bucket. {@code shortUrlId} and {@code ownerId} are null for global buckets.
+ */
+public record ClickRollupDelta(
+        Long shortUrlId,
+        Long ownerId,
+        RollupGranularity granularity,
+        Instant bucketStart,
+        long clicks) {
+}
@@ -0,0 +1,34 @@
+package com.abitmanipulator.url_shortner.domain.models;
+
+import java.util.List;
+
+/**
+ * Recent click activity, oldest bucket first and with empty buckets filled in:
+ * the last hour by minute, the last day by hour and the last 30 days by day.
+ */
+public record ClickTrend(
+        List<ClickBucket> minutely,
+        List<ClickBucket> hourly,
+        List<ClickBucket> daily) {
+
+    public long lastHour() {
+        return sum(minutely);
+    }
+
+    public long lastDay() {
+        return sum(hourly);
+    }
+
+    public long last30Days() {
+        return sum(daily);
+    }
+
+    /** Largest hourly bucket, used to scale the chart. */
+    public long hourlyPeak() {
+        return hourly.stream().mapToLong(ClickBucket::clicks).max().orElse(0);
+    }
+
+    private static long sum(List<ClickBucket> buckets) {
+        return buckets.stream().mapToLong(ClickBucket::clicks).sum();
+    }
+}
@@ -1,4 +1,4 @@
 package com.abitmanipulator.url_shortner.domain.models;
 
-public record CreateShortUrlCmd(String originalUrl, Integer expirationInDays, boolean isPrivate, Long userId) {
+public record CreateShortUrlCmd(String originalUrl, Integer expirationInDays, boolean isPrivate, Long userId, RedirectType redirectType) {
 }
@@ -0,0 +1,14 @@
+package com.abitmanipulator.url_shortner.domain.models;
+
+/**
+ * A heavy hitter reported by the trending tracker.
+ * @param score decayed click count, an overestimate by at most {@code error}
+ * @param error how much of the score may belong to keys that were evicted before this one
+ */
+public record HotKey(String shortKey, long score, long error) {
+
+    /** Lower bound of the decayed click count. */
+    public long guaranteedScore() {
+        return score - error;
+    }
+}
@@ -0,0 +1,20 @@
+package com.abitmanipulator.url_shortner.domain.models;
+
+import java.util.List;
+
+/**
+ * Outcome of a CSV import. Only the first few conflicting keys and rejected lines are listed.
+ */
+public record ImportReport(
+        long rowsRead,
+        long imported,
+        long conflicts,
+        long rejected,
+        long elapsedMillis,
+        List<String> sampleConflicts,
+        List<String> sampleRejections) {
+
+    public long rowsPerSecond() {
+        return elapsedMillis == 0 ? rowsRead : rowsRead * 1000 / elapsedMillis;
+    }
+}
@@ -0,0 +1,61 @@
+package com.abitmanipulator.url_shortner.domain.models;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Position in a listing ordered by (createdAt, id) descending, used for keyset (seek) pagination.
+ * NEXT pages hold rows strictly after the position (older), PREVIOUS pages rows strictly before it (newer).
+ * Exposed to clients only as an opaque token.
+ */
+public record PageCursor(Direction direction, Instant createdAt, Long id) {
+
+    public static final String LAST_PAGE_TOKEN = "last";
+
+    public enum Direction { NEXT, PREVIOUS }
+
+    /** Position before the newest row, i.e. the first page. */
+    public static PageCursor first() {
+        return new PageCursor(Direction.NEXT, Instant.parse("9999-12-31T00:00:00Z"), Long.MAX_VALUE);
+    }
+
+    /** Position after the oldest row, i.e. the last page. */
+    public static PageCursor last() {
+        return new PageCursor(Direction.PREVIOUS, Instant.EPOCH, Long.MIN_VALUE);
+    }
+
+    public static PageCursor next(Instant createdAt, Long id) {
+        return new PageCursor(Direction.NEXT, createdAt, id);
+    }
+
+    public static PageCursor previous(Instant createdAt, Long id) {
+        return new PageCursor(Direction.PREVIOUS, createdAt, id);
+    }
+
+    public String encode() {
+        String raw = direction.name().charAt(0) + ":" + createdAt.getEpochSecond() + ":" + createdAt.getNano() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the decoded cursor, or the first page for a missing or malformed token
+     */
+    public static PageCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return first();
+        }
+        if (LAST_PAGE_TOKEN.equals(token)) {
+            return last();
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":");
+            Direction direction = parts[0].equals("P") ? Direction.PREVIOUS : Direction.NEXT;
+            Instant createdAt = Instant.ofEpochSecond(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+            return new PageCursor(direction, createdAt, Long.parseLong(parts[3]));
+        } catch (RuntimeException e) {
+            return first();
+        }
+    }
+}
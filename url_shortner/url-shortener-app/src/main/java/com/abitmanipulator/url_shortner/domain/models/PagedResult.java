@@ -0,0 +1,36 @@
+package com.abitmanipulator.url_shortner.domain.models;
+
+import java.util.List;
+
+public record PagedResult<T>(
+        List<T> data,
+        int pageNumber,
+        int totalPages,
+        long totalElements,
+        boolean isFirst,
+        boolean isLast,
+        boolean hasNext,
+        boolean hasPrevious,
+        String nextCursor,
+        String previousCursor) {
+
+    /**
+     * Keyset page: {@code totalElements} is an estimate and {@code pageNumber} is only carried along for display.
+     */
+    public static <T> PagedResult<T> fromKeyset(List<T> data, int pageNumber, int pageSize, long totalElements,
+                                                boolean hasNext, boolean hasPrevious,
+                                                String nextCursor, String previousCursor) {
+        int totalPages = (int) Math.max(pageNumber, (totalElements + pageSize - 1) / pageSize);
+        return new PagedResult<>(
+                data,
+                pageNumber,
+                totalPages,
+                totalElements,
+                !hasPrevious,
+                !hasNext,
+                hasNext,
+                hasPrevious,
+                hasNext ? nextCursor : null,
+                hasPrevious ? previousCursor : null);
+    }
+}
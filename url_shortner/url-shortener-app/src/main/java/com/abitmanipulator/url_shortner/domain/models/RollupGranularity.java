@@ -0,0 +1,28 @@
+package com.abitmanipulator.url_shortner.domain.models;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Bucket sizes of the click rollups; every click is added to one bucket of each granularity.
+ */
+public enum RollupGranularity {
+    MINUTE(ChronoUnit.MINUTES),
+    HOUR(ChronoUnit.HOURS),
+    DAY(ChronoUnit.DAYS);
+
+    private final ChronoUnit unit;
+
+    RollupGranularity(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    public ChronoUnit unit() {
+        return unit;
+    }
+
+    /** Start of the (UTC) bucket containing {@code instant}. */
+    public Instant bucketStart(Instant instant) {
+        return instant.truncatedTo(unit);
+    }
+}
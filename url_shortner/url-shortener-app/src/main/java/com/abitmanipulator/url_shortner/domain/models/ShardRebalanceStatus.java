@@ -0,0 +1,19 @@
+package com.abitmanipulator.url_shortner.domain.models;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Progress of the last (or current) shard rebalancing run, as shown by /actuator/shards.
+ * {@code rebalancing} tells whether lookups still fall back to the previous ring.
+ */
+public record ShardRebalanceStatus(
+        boolean running,
+        boolean rebalancing,
+        List<Long> rowsPerShard,
+        long scanned,
+        long moved,
+        Instant startedAt,
+        Instant finishedAt,
+        String error) {
+}
@@ -0,0 +1,4 @@
+package com.abitmanipulator.url_shortner.domain.models;
+
+public record TopLink(Long shortUrlId, String shortKey, String originalUrl, long clicks) {
+}
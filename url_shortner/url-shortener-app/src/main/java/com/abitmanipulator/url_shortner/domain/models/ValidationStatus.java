@@ -0,0 +1,9 @@
+package com.abitmanipulator.url_shortner.domain.models;
+
+/**
+ * Result of checking that the original url of a short url is reachable.
+ * PENDING links are served while the check runs in the background, INVALID links are not.
+ */
+public enum ValidationStatus {
+    VALID, PENDING, INVALID
+}
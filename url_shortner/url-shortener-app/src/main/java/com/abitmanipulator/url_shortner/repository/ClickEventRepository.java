@@ -0,0 +1,35 @@
+package com.abitmanipulator.url_shortner.repository;
+
+import com.abitmanipulator.url_shortner.domain.models.ClickEvent;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+@Repository
+public class ClickEventRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ClickEventRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * One JDBC batch; with reWriteBatchedInserts the driver sends it as multi-row INSERTs.
+     */
+    public void insertAll(List<ClickEvent> events) {
+        String sql = """
+                INSERT INTO click_events (short_url_id, clicked_at, referrer, user_agent, country)
+                VALUES (?, ?, ?, ?, ?)
+                """;
+        jdbcTemplate.batchUpdate(sql, events, events.size(), (ps, event) -> {
+            ps.setLong(1, event.shortUrlId());
+            ps.setTimestamp(2, Timestamp.from(event.clickedAt()));
+            ps.setString(3, event.referrer());
+            ps.setString(4, event.userAgent());
+            ps.setString(5, event.country());
+        });
+    }
+}
@@ -0,0 +1,181 @@
+package com.abitmanipulator.url_shortner.repository;
+
+import com.abitmanipulator.url_shortner.domain.models.ClickBucket;
+import com.abitmanipulator.url_shortner.domain.models.ClickRollupDelta;
+import com.abitmanipulator.url_shortner.domain.models.RollupGranularity;
+import com.abitmanipulator.url_shortner.domain.models.TopLink;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+public class ClickRollupRepository {
+
+    // the most clicked links of the day buckets matching the condition
+    private static final String TOP_LINK_CLICKS = """
+            SELECT short_url_id, sum(clicks) AS clicks FROM link_click_rollups
+            WHERE granularity = 'DAY' AND bucket_start >= :from %s
+            GROUP BY short_url_id
+            ORDER BY clicks DESC
+            LIMIT :limit
+            """;
+    // joined to the links still there
+    private static final String TOP_LINKS = """
+            SELECT s.id, s.short_key, s.original_url, t.clicks
+            FROM (%s) t
+            JOIN short_urls s ON s.id = t.short_url_id
+            ORDER BY t.clicks DESC
+            """.formatted(TOP_LINK_CLICKS);
+
+    private static final RowMapper<TopLink> TOP_LINK_ROW_MAPPER = (rs, rowNum) -> new TopLink(
+            rs.getLong("id"), rs.getString("short_key"), rs.getString("original_url"), rs.getLong("clicks"));
+
+    private static final ResultSetExtractor<Map<Long, Long>> TOP_LINK_CLICKS_EXTRACTOR = rs -> {
+        Map<Long, Long> clicks = new LinkedHashMap<>();
+        while (rs.next()) {
+            clicks.put(rs.getLong("short_url_id"), rs.getLong("clicks"));
+        }
+        return clicks;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcClient jdbcClient;
+
+    public ClickRollupRepository(JdbcTemplate jdbcTemplate, JdbcClient jdbcClient) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jdbcClient = jdbcClient;
+    }
+
+    /**
+     * Adds the deltas to the per-link buckets, creating missing ones.
+     * Callers pass the deltas sorted by primary key so concurrent batches lock rows in the same order.
+     */
+    public void addLinkClicks(List<ClickRollupDelta> deltas) {
+        String sql = """
+                INSERT INTO link_click_rollups (short_url_id, granularity, bucket_start, owner_id, clicks)
+                VALUES (?, ?, ?, ?, ?)
+                ON CONFLICT (short_url_id, granularity, bucket_start)
+                DO UPDATE SET clicks = link_click_rollups.clicks + EXCLUDED.clicks
+                """;
+        jdbcTemplate.batchUpdate(sql, deltas, deltas.size(), (ps, delta) -> {
+            ps.setLong(1, delta.shortUrlId());
+            ps.setString(2, delta.granularity().name());
+            ps.setTimestamp(3, Timestamp.from(delta.bucketStart()));
+            if (delta.ownerId() != null) {
+                ps.setLong(4, delta.ownerId());
+            } else {
+                ps.setNull(4, Types.BIGINT);
+            }
+            ps.setLong(5, delta.clicks());
+        });
+    }
+
+    public void addGlobalClicks(List<ClickRollupDelta> deltas) {
+        String sql = """
+                INSERT INTO global_click_rollups (granularity, bucket_start, clicks)
+                VALUES (?, ?, ?)
+                ON CONFLICT (granularity, bucket_start)
+                DO UPDATE SET clicks = global_click_rollups.clicks + EXCLUDED.clicks
+                """;
+        jdbcTemplate.batchUpdate(sql, deltas, deltas.size(), (ps, delta) -> {
+            ps.setString(1, delta.granularity().name());
+            ps.setTimestamp(2, Timestamp.from(delta.bucketStart()));
+            ps.setLong(3, delta.clicks());
+        });
+    }
+
+    public List<ClickBucket> findGlobalBuckets(RollupGranularity granularity, Instant from) {
+        String sql = """
+                SELECT bucket_start, clicks FROM global_click_rollups
+                WHERE granularity = :granularity AND bucket_start >= :from
+                ORDER BY bucket_start
+                """;
+        return jdbcClient.sql(sql)
+                .param("granularity", granularity.name())
+                .param("from", Timestamp.from(from))
+                .query((rs, rowNum) -> new ClickBucket(rs.getTimestamp("bucket_start").toInstant(), rs.getLong("clicks")))
+                .list();
+    }
+
+    public List<ClickBucket> findOwnerBuckets(Long ownerId, RollupGranularity granularity, Instant from) {
+        String sql = """
+                SELECT bucket_start, sum(clicks) AS clicks FROM link_click_rollups
+                WHERE owner_id = :ownerId AND granularity = :granularity AND bucket_start >= :from
+                GROUP BY bucket_start
+                ORDER BY bucket_start
+                """;
+        return jdbcClient.sql(sql)
+                .param("ownerId", ownerId)
+                .param("granularity", granularity.name())
+                .param("from", Timestamp.from(from))
+                .query((rs, rowNum) -> new ClickBucket(rs.getTimestamp("bucket_start").toInstant(), rs.getLong("clicks")))
+                .list();
+    }
+
+    /**
+     * Most clicked links since {@code from}, summed over the daily buckets; links deleted since drop out.
+     */
+    public List<TopLink> findTopLinks(Instant from, int limit) {
+        return jdbcClient.sql(TOP_LINKS.formatted(""))
+                .param("from", Timestamp.from(from))
+                .param("limit", limit)
+                .query(TOP_LINK_ROW_MAPPER)
+                .list();
+    }
+
+    /**
+     * Same as {@link #findTopLinks}, restricted to one user's links.
+     */
+    public List<TopLink> findOwnerTopLinks(Long ownerId, Instant from, int limit) {
+        return jdbcClient.sql(TOP_LINKS.formatted("AND owner_id = :ownerId"))
+                .param("from", Timestamp.from(from))
+                .param("ownerId", ownerId)
+                .param("limit", limit)
+                .query(TOP_LINK_ROW_MAPPER)
+                .list();
+    }
+
+    /**
+     * The clicks part of {@link #findTopLinks} without the join, for when short_urls is sharded and the links have to be
+     * looked up on the shards: short url id to clicks, most clicked first.
+     */
+    public Map<Long, Long> findTopLinkClicks(Instant from, int limit) {
+        return jdbcClient.sql(TOP_LINK_CLICKS.formatted(""))
+                .param("from", Timestamp.from(from))
+                .param("limit", limit)
+                .query(TOP_LINK_CLICKS_EXTRACTOR);
+    }
+
+    public Map<Long, Long> findOwnerTopLinkClicks(Long ownerId, Instant from, int limit) {
+        return jdbcClient.sql(TOP_LINK_CLICKS.formatted("AND owner_id = :ownerId"))
+                .param("from", Timestamp.from(from))
+                .param("ownerId", ownerId)
+                .param("limit", limit)
+                .query(TOP_LINK_CLICKS_EXTRACTOR);
+    }
+
+    /**
+     * Deletes up to {@code batchSize} buckets of the granularity older than {@code before}, from both tables.
+     * @return the number of rows deleted
+     */
+    public int deleteBucketsBefore(RollupGranularity granularity, Instant before, int batchSize) {
+        int deleted = 0;
+        for (String table : List.of("link_click_rollups", "global_click_rollups")) {
+            String sql = """
+                    DELETE FROM %s WHERE ctid = ANY(ARRAY(
+                        SELECT ctid FROM %s WHERE granularity = ? AND bucket_start < ? LIMIT ?))
+                    """.formatted(table, table);
+            deleted += jdbcTemplate.update(sql, granularity.name(), Timestamp.from(before), batchSize);
+        }
+        return deleted;
+    }
+}
@@ -0,0 +1,92 @@
+package com.abitmanipulator.url_shortner.repository;
+
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public class ExpiredShortUrlRepository {
+
+    // the next batch of expired rows after the keyset position; rows locked by someone else are left for the next run
+    private static final String NEXT_BATCH = """
+            SELECT id FROM short_urls
+            WHERE expires_at < :cutoff
+              AND (expires_at, id) > (:afterExpiresAt, :afterId)
+            ORDER BY expires_at, id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """;
+
+    private final JdbcClient jdbcClient;
+
+    public ExpiredShortUrlRepository(JdbcClient jdbcClient) {
+        this.jdbcClient = jdbcClient;
+    }
+
+    /**
+     * Deletes one batch of expired rows in a single statement (its own short transaction).
+     * @return the purged rows, in keyset order
+     */
+    public List<PurgedShortUrl> deleteBatch(Instant cutoff, Instant afterExpiresAt, long afterId, int limit) {
+        String sql = """
+                DELETE FROM short_urls WHERE id IN (%s)
+                RETURNING id, short_key, expires_at
+                """.formatted(NEXT_BATCH);
+        return purge(sql, cutoff, afterExpiresAt, afterId, limit);
+    }
+
+    /**
+     * Same as {@link #deleteBatch}, copying the rows into short_urls_archive in the same statement.
+     */
+    public List<PurgedShortUrl> archiveBatch(Instant cutoff, Instant afterExpiresAt, long afterId, int limit) {
+        String sql = """
+                WITH purged AS (
+                    DELETE FROM short_urls WHERE id IN (%s)
+                    RETURNING *
+                ), archived AS (
+                    INSERT INTO short_urls_archive (id, short_key, original_url, is_private, expires_at, created_by,
+                                                    click_count, unique_visitors, validation_status, redirect_type, created_at)
+                    SELECT id, short_key, original_url, is_private, expires_at, created_by,
+                           click_count, unique_visitors, validation_status, redirect_type, created_at
+                    FROM purged
+                    ON CONFLICT (id) DO NOTHING
+                )
+                SELECT id, short_key, expires_at FROM purged
+                """.formatted(NEXT_BATCH);
+        return purge(sql, cutoff, afterExpiresAt, afterId, limit);
+    }
+
+    /**
+     * Expiry of the oldest row still waiting to be purged, if any.
+     */
+    public Optional<Instant> findOldestExpiredBefore(Instant cutoff) {
+        return jdbcClient.sql("SELECT expires_at FROM short_urls WHERE expires_at < :cutoff ORDER BY expires_at LIMIT 1")
+                .param("cutoff", Timestamp.from(cutoff))
+                .query(Timestamp.class)
+                .optional()
+                .map(Timestamp::toInstant);
+    }
+
+    private List<PurgedShortUrl> purge(String sql, Instant cutoff, Instant afterExpiresAt, long afterId, int limit) {
+        List<PurgedShortUrl> purged = jdbcClient.sql(sql)
+                .param("cutoff", Timestamp.from(cutoff))
+                .param("afterExpiresAt", Timestamp.from(afterExpiresAt))
+                .param("afterId", afterId)
+                .param("limit", limit)
+                .query((rs, rowNum) -> new PurgedShortUrl(
+                        rs.getLong("id"), rs.getString("short_key"), rs.getTimestamp("expires_at").toInstant()))
+                .list();
+        // RETURNING gives no order guarantee
+        return purged.stream()
+                .sorted(Comparator.comparing(PurgedShortUrl::expiresAt).thenComparingLong(PurgedShortUrl::id))
+                .toList();
+    }
+
+    public record PurgedShortUrl(long id, String shortKey, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,681 @@
+package com.abitmanipulator.url_shortner.repository;
+
+import com.abitmanipulator.url_shortner.domain.entities.ShortUrl;
+import com.abitmanipulator.url_shortner.domain.models.PageCursor;
+import com.abitmanipulator.url_shortner.domain.models.ShortUrlDto;
+import com.abitmanipulator.url_shortner.domain.models.UserDto;
+import com.abitmanipulator.url_shortner.services.HyperLogLog;
+import com.abitmanipulator.url_shortner.services.ShardRing;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * short_urls spread over several databases by a consistent hash of short_key ({@link ShardRing}).
+ * Lookups and creates touch exactly the owning shard (bulk creates and imports: each row's owning shard);
+ * listings and counts are scattered to all shards in parallel and merged on (created_at, id), with the same
+ * keyset semantics as {@link ShortUrlListingRepository}; exports and the snapshot scan walk the shards too.
+ * Users stay in the main database, creator names are filled in from there.
+ *
+ * While shards are being added ({@code previousRing} set) a key may still live on its old shard:
+ * lookups fall back to it, and rows that {@link #moveBatch} has copied but not yet deleted are listed once.
+ */
+public class ShardedShortUrlRepository implements DisposableBean {
+
+    private static final String SELECT = """
+            SELECT su.id, su.short_key, su.original_url, su.is_private, su.expires_at, su.click_count,
+                   su.created_at, su.redirect_type, su.unique_visitors, su.created_by AS user_id, NULL AS user_name
+            FROM short_urls su
+            """;
+    // what the redirect path needs; disabled (INVALID) links are left out, as in ShortKeyScanRepository
+    private static final String REDIRECT_TARGETS = SELECT + "WHERE su.validation_status <> 'INVALID'\n";
+    private static final String COLUMNS = """
+            id, short_key, original_url, is_private, expires_at, created_by, click_count,
+            created_at, validation_status, redirect_type, visitor_sketch, unique_visitors
+            """;
+
+    private static final Comparator<ShortUrlDto> NEWEST_FIRST =
+            Comparator.comparing(ShortUrlDto::createdAt).thenComparing(ShortUrlDto::id).reversed();
+    private static final Comparator<ShortUrlDto> OLDEST_FIRST =
+            Comparator.comparing(ShortUrlDto::createdAt).thenComparing(ShortUrlDto::id);
+    private static final int FETCH_SIZE = 10_000;
+    private static final Limit EXPORT_PAGE = Limit.of(1_000);
+
+    private final List<Shard> shards;
+    private final JdbcClient mainJdbcClient;
+    private final ShardRing ring;
+    private final ShardRing previousRing;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * @param previousRing the ring before the last shards were added, while their keys are being moved; otherwise null
+     */
+    public ShardedShortUrlRepository(List<DataSource> shardDataSources, JdbcClient mainJdbcClient,
+                                     ShardRing ring, ShardRing previousRing) {
+        List<Shard> shards = new ArrayList<>(shardDataSources.size());
+        for (DataSource dataSource : shardDataSources) {
+            shards.add(new Shard(shards.size(), dataSource));
+        }
+        this.shards = List.copyOf(shards);
+        this.mainJdbcClient = mainJdbcClient;
+        this.ring = ring;
+        this.previousRing = previousRing;
+    }
+
+    public int shardCount() {
+        return shards.size();
+    }
+
+    public boolean isRebalancing() {
+        return previousRing != null;
+    }
+
+    public Optional<ShortUrlDto> findByShortKey(String shortKey) {
+        int owner = ring.shardFor(shortKey);
+        Optional<ShortUrlDto> shortUrl = findOn(owner, shortKey);
+        if (shortUrl.isEmpty() && previousRing != null && previousRing.shardFor(shortKey) != owner) {
+            shortUrl = findOn(previousRing.shardFor(shortKey), shortKey);
+        }
+        return shortUrl.map(found -> withCreatorNames(List.of(found)).getFirst());
+    }
+
+    private Optional<ShortUrlDto> findOn(int shard, String shortKey) {
+        return shards.get(shard).jdbcClient
+                .sql(SELECT + "WHERE su.short_key = :shortKey AND su.validation_status <> 'INVALID'")
+                .param("shortKey", shortKey)
+                .query(new ShortUrlListingRepository.ShortUrlDtoRowMapper())
+                .optional();
+    }
+
+    /**
+     * Inserts the (new, unmanaged) short url into the shard owning its key and sets its id.
+     * Ids come from the main database's sequence, so they stay unique across shards and across moves.
+     */
+    public void insert(ShortUrl shortUrl) {
+        Long id = mainJdbcClient.sql("SELECT nextval('short_urls_id_seq')").query(Long.class).single();
+        shards.get(ring.shardFor(shortUrl.getShortKey())).jdbcClient.sql("""
+                        INSERT INTO short_urls (id, short_key, original_url, is_private, expires_at, created_by, click_count,
+                                                created_at, validation_status, redirect_type, unique_visitors)
+                        VALUES (:id, :shortKey, :originalUrl, :isPrivate, :expiresAt, :createdBy, 0,
+                                :createdAt, :validationStatus, :redirectType, 0)
+                        """)
+                .param("id", id)
+                .param("shortKey", shortUrl.getShortKey())
+                .param("originalUrl", shortUrl.getOriginalUrl())
+                .param("isPrivate", shortUrl.getIsPrivate())
+                .param("expiresAt", shortUrl.getExpiresAt() != null ? Timestamp.from(shortUrl.getExpiresAt()) : null)
+                .param("createdBy", shortUrl.getCreatedBy() != null ? shortUrl.getCreatedBy().getId() : null)
+                .param("createdAt", Timestamp.from(shortUrl.getCreatedAt()))
+                .param("validationStatus", shortUrl.getValidationStatus().name())
+                .param("redirectType", shortUrl.getRedirectType() != null ? shortUrl.getRedirectType().name() : null)
+                .update();
+        shortUrl.setId(id);
+        shortUrl.setClickCount(0L);
+        shortUrl.setUniqueVisitors(0L);
+    }
+
+    /**
+     * Inserts the (new, unmanaged) short urls, each into the shard owning its key, with one
+     * INSERT ... SELECT FROM unnest(...) per shard and chunk, and sets their ids.
+     * The shards can't share a transaction: when an insert fails, the rows already written are deleted again,
+     * so either all links are created or none.
+     */
+    public void insertAll(List<ShortUrl> shortUrls, int chunkSize) {
+        List<Long> ids = nextIds(shortUrls.size());
+        Map<Integer, List<ShortUrl>> byShard = new HashMap<>();
+        for (int i = 0; i < shortUrls.size(); i++) {
+            ShortUrl shortUrl = shortUrls.get(i);
+            shortUrl.setId(ids.get(i));
+            shortUrl.setClickCount(0L);
+            shortUrl.setUniqueVisitors(0L);
+            byShard.computeIfAbsent(ring.shardFor(shortUrl.getShortKey()), shard -> new ArrayList<>()).add(shortUrl);
+        }
+        try {
+            scatter(shard -> {
+                List<ShortUrl> rows = byShard.getOrDefault(shard.index, List.of());
+                for (int from = 0; from < rows.size(); from += chunkSize) {
+                    insertChunk(shard, rows.subList(from, Math.min(from + chunkSize, rows.size())));
+                }
+                return rows.size();
+            });
+        } catch (RuntimeException e) {
+            // the ids were just taken from the sequence, nobody else has rows with them
+            try {
+                scatter(shard -> shard.jdbcClient.sql("DELETE FROM short_urls WHERE id IN (:ids)").param("ids", ids).update());
+            } catch (RuntimeException cleanup) {
+                e.addSuppressed(cleanup);
+            }
+            throw e;
+        }
+    }
+
+    private void insertChunk(Shard shard, List<ShortUrl> chunk) {
+        int size = chunk.size();
+        Long[] ids = new Long[size];
+        String[] shortKeys = new String[size];
+        String[] originalUrls = new String[size];
+        Boolean[] isPrivate = new Boolean[size];
+        Timestamp[] expiresAt = new Timestamp[size];
+        Long[] createdBy = new Long[size];
+        Timestamp[] createdAt = new Timestamp[size];
+        String[] validationStatus = new String[size];
+        String[] redirectType = new String[size];
+        for (int i = 0; i < size; i++) {
+            ShortUrl shortUrl = chunk.get(i);
+            ids[i] = shortUrl.getId();
+            shortKeys[i] = shortUrl.getShortKey();
+            originalUrls[i] = shortUrl.getOriginalUrl();
+            isPrivate[i] = shortUrl.getIsPrivate();
+            expiresAt[i] = shortUrl.getExpiresAt() != null ? Timestamp.from(shortUrl.getExpiresAt()) : null;
+            createdBy[i] = shortUrl.getCreatedBy() != null ? shortUrl.getCreatedBy().getId() : null;
+            createdAt[i] = Timestamp.from(shortUrl.getCreatedAt());
+            validationStatus[i] = shortUrl.getValidationStatus().name();
+            redirectType[i] = shortUrl.getRedirectType() != null ? shortUrl.getRedirectType().name() : null;
+        }
+        shard.jdbcTemplate.update((Connection con) -> {
+            PreparedStatement ps = con.prepareStatement("""
+                    INSERT INTO short_urls (id, short_key, original_url, is_private, expires_at, created_by, click_count,
+                                            created_at, validation_status, redirect_type, unique_visitors)
+                    SELECT id, short_key, original_url, is_private, expires_at, created_by, 0,
+                           created_at, validation_status, redirect_type, 0
+                    FROM unnest(?::bigint[], ?::varchar[], ?::text[], ?::boolean[], ?::timestamp[], ?::bigint[],
+                                ?::timestamp[], ?::varchar[], ?::varchar[])
+                         AS t (id, short_key, original_url, is_private, expires_at, created_by,
+                               created_at, validation_status, redirect_type)
+                    """);
+            ps.setArray(1, con.createArrayOf("bigint", ids));
+            ps.setArray(2, con.createArrayOf("varchar", shortKeys));
+            ps.setArray(3, con.createArrayOf("text", originalUrls));
+            ps.setArray(4, con.createArrayOf("boolean", isPrivate));
+            ps.setArray(5, con.createArrayOf("timestamp", expiresAt));
+            ps.setArray(6, con.createArrayOf("bigint", createdBy));
+            ps.setArray(7, con.createArrayOf("timestamp", createdAt));
+            ps.setArray(8, con.createArrayOf("varchar", validationStatus));
+            ps.setArray(9, con.createArrayOf("varchar", redirectType));
+            return ps;
+        });
+    }
+
+    /**
+     * Imports links keeping their short keys: owners are resolved and ids taken in the main database, then every shard
+     * gets its rows in one INSERT ... SELECT FROM unnest(...). Keys already taken, in the table or earlier in the batch,
+     * are skipped (ON CONFLICT on the shard's unique short_key), and so are keys still on their previous shard while
+     * rebalancing. Shards commit independently: a failing shard doesn't undo the others, like a failed COPY batch
+     * doesn't undo the batches before it.
+     * @return the keys actually inserted
+     */
+    public List<String> importRows(List<ImportRow> rows) {
+        Map<String, ImportRow> byKey = new LinkedHashMap<>();
+        for (ImportRow row : rows) {
+            byKey.putIfAbsent(row.shortKey(), row);
+        }
+        if (previousRing != null) {
+            Map<Integer, List<String>> notMovedYet = new HashMap<>();
+            for (String shortKey : byKey.keySet()) {
+                int previous = previousRing.shardFor(shortKey);
+                if (previous != ring.shardFor(shortKey)) {
+                    notMovedYet.computeIfAbsent(previous, shard -> new ArrayList<>()).add(shortKey);
+                }
+            }
+            notMovedYet.forEach((shard, shortKeys) -> shards.get(shard).jdbcClient
+                    .sql("SELECT short_key FROM short_urls WHERE short_key IN (:shortKeys)")
+                    .param("shortKeys", shortKeys)
+                    .query(String.class)
+                    .list()
+                    .forEach(byKey::remove));
+        }
+        if (byKey.isEmpty()) {
+            return List.of();
+        }
+        List<String> emails = byKey.values().stream()
+                .map(ImportRow::owner)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        Map<String, Long> owners = emails.isEmpty() ? Map.of() : mainJdbcClient
+                .sql("SELECT id, email FROM users WHERE email IN (:emails)")
+                .param("emails", emails)
+                .query((rs, rowNum) -> Map.entry(rs.getString("email"), rs.getLong("id")))
+                .list()
+                .stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+
+        List<ImportRow> unique = List.copyOf(byKey.values());
+        List<Long> ids = nextIds(unique.size());
+        Map<Integer, List<Integer>> byShard = new HashMap<>();
+        for (int i = 0; i < unique.size(); i++) {
+            byShard.computeIfAbsent(ring.shardFor(unique.get(i).shortKey()), shard -> new ArrayList<>()).add(i);
+        }
+        List<String> inserted = new ArrayList<>(unique.size());
+        for (List<String> keys : scatter(shard -> {
+            List<Integer> indexes = byShard.getOrDefault(shard.index, List.of());
+            if (indexes.isEmpty()) {
+                return List.<String>of();
+            }
+            int size = indexes.size();
+            Long[] shardIds = new Long[size];
+            String[] shortKeys = new String[size];
+            String[] originalUrls = new String[size];
+            Timestamp[] expiresAt = new Timestamp[size];
+            Long[] createdBy = new Long[size];
+            for (int i = 0; i < size; i++) {
+                ImportRow row = unique.get(indexes.get(i));
+                shardIds[i] = ids.get(indexes.get(i));
+                shortKeys[i] = row.shortKey();
+                originalUrls[i] = row.originalUrl();
+                expiresAt[i] = row.expiresAt() != null ? Timestamp.from(row.expiresAt()) : null;
+                createdBy[i] = row.owner() != null ? owners.get(row.owner()) : null;
+            }
+            return shard.jdbcTemplate.query((Connection con) -> {
+                PreparedStatement ps = con.prepareStatement("""
+                        INSERT INTO short_urls (id, short_key, original_url, is_private, expires_at, created_by,
+                                                click_count, created_at)
+                        SELECT id, short_key, original_url, false, expires_at, created_by, 0, now()
+                        FROM unnest(?::bigint[], ?::varchar[], ?::text[], ?::timestamp[], ?::bigint[])
+                             AS t (id, short_key, original_url, expires_at, created_by)
+                        ON CONFLICT (short_key) DO NOTHING
+                        RETURNING short_key
+                        """);
+                ps.setArray(1, con.createArrayOf("bigint", shardIds));
+                ps.setArray(2, con.createArrayOf("varchar", shortKeys));
+                ps.setArray(3, con.createArrayOf("text", originalUrls));
+                ps.setArray(4, con.createArrayOf("timestamp", expiresAt));
+                ps.setArray(5, con.createArrayOf("bigint", createdBy));
+                return ps;
+            }, (rs, rowNum) -> rs.getString(1));
+        })) {
+            inserted.addAll(keys);
+        }
+        return inserted;
+    }
+
+    // ids of rows on any shard come from the main database's sequence
+    private List<Long> nextIds(int count) {
+        return mainJdbcClient.sql("SELECT nextval('short_urls_id_seq') FROM generate_series(1, :count)")
+                .param("count", count)
+                .query(Long.class)
+                .list();
+    }
+
+    public List<ShortUrlDto> findPublicShortUrlsAfter(Instant createdAt, Long id, Limit limit) {
+        return gather(ShortUrlListingRepository.PUBLIC + ShortUrlListingRepository.AFTER, null, createdAt, id, limit, NEWEST_FIRST);
+    }
+
+    public List<ShortUrlDto> findPublicShortUrlsBefore(Instant createdAt, Long id, Limit limit) {
+        return gather(ShortUrlListingRepository.PUBLIC + ShortUrlListingRepository.BEFORE, null, createdAt, id, limit, OLDEST_FIRST);
+    }
+
+    public List<ShortUrlDto> findByCreatedByIdAfter(Long userId, Instant createdAt, Long id, Limit limit) {
+        return gather(ShortUrlListingRepository.BY_CREATOR + ShortUrlListingRepository.AFTER, userId, createdAt, id, limit, NEWEST_FIRST);
+    }
+
+    public List<ShortUrlDto> findByCreatedByIdBefore(Long userId, Instant createdAt, Long id, Limit limit) {
+        return gather(ShortUrlListingRepository.BY_CREATOR + ShortUrlListingRepository.BEFORE, userId, createdAt, id, limit, OLDEST_FIRST);
+    }
+
+    public List<ShortUrlDto> findAllShortUrlsAfter(Instant createdAt, Long id, Limit limit) {
+        return gather(ShortUrlListingRepository.ALL + ShortUrlListingRepository.AFTER, null, createdAt, id, limit, NEWEST_FIRST);
+    }
+
+    public List<ShortUrlDto> findAllShortUrlsBefore(Instant createdAt, Long id, Limit limit) {
+        return gather(ShortUrlListingRepository.ALL + ShortUrlListingRepository.BEFORE, null, createdAt, id, limit, OLDEST_FIRST);
+    }
+
+    /**
+     * The export counterpart of {@link ShortUrlExportRepository#forEachShortUrl}: the user's short urls (all short urls
+     * when {@code userId} is null), newest first, walked with the keyset listings a page at a time,
+     * so at most one page per shard is held in memory.
+     */
+    public void forEachShortUrl(Long userId, Consumer<ShortUrlDto> consumer) {
+        PageCursor position = PageCursor.first();
+        Instant createdAt = position.createdAt();
+        Long id = position.id();
+        List<ShortUrlDto> page;
+        do {
+            page = userId == null
+                    ? findAllShortUrlsAfter(createdAt, id, EXPORT_PAGE)
+                    : findByCreatedByIdAfter(userId, createdAt, id, EXPORT_PAGE);
+            page.forEach(consumer);
+            if (!page.isEmpty()) {
+                createdAt = page.getLast().createdAt();
+                id = page.getLast().id();
+            }
+            // a short page means every shard ran out (each one's own rows are distinct)
+        } while (page.size() == EXPORT_PAGE.max());
+    }
+
+    /**
+     * Streams every redirect target, shard after shard, without materializing them (see ShortUrlSnapshot).
+     * A row caught mid-move is passed twice.
+     */
+    public void forEachRedirectTarget(Consumer<ShortUrlDto> consumer) {
+        stream(REDIRECT_TARGETS, consumer);
+    }
+
+    public void forEachRedirectTargetCreatedSince(Instant createdSince, Consumer<ShortUrlDto> consumer) {
+        stream(REDIRECT_TARGETS + "AND su.created_at >= ?", consumer, Timestamp.from(createdSince));
+    }
+
+    // a read-only transaction per shard, because the Postgres driver only honours the fetch size with auto-commit off
+    private void stream(String sql, Consumer<ShortUrlDto> consumer, Object... args) {
+        var rowMapper = new ShortUrlListingRepository.ShortUrlDtoRowMapper();
+        RowCallbackHandler handler = rs -> consumer.accept(rowMapper.mapRow(rs, 0));
+        for (Shard shard : shards) {
+            shard.readOnlyTransaction.executeWithoutResult(status -> shard.streamingJdbcTemplate.query(sql, handler, args));
+        }
+    }
+
+    // every shard returns its own first `limit` rows in page order; the first `limit` of their merge is the page
+    private List<ShortUrlDto> gather(String condition, Long userId, Instant createdAt, Long id, Limit limit,
+                                     Comparator<ShortUrlDto> order) {
+        List<ShortUrlDto> merged = new ArrayList<>();
+        for (List<ShortUrlDto> rows : scatter(shard -> {
+            var statement = shard.jdbcClient.sql(SELECT + condition)
+                    .param("createdAt", Timestamp.from(createdAt))
+                    .param("id", id)
+                    .param("limit", limit.max());
+            if (userId != null) {
+                statement = statement.param("userId", userId);
+            }
+            return statement.query(new ShortUrlListingRepository.ShortUrlDtoRowMapper()).list();
+        })) {
+            merged.addAll(rows);
+        }
+        merged.sort(order);
+        Map<Long, ShortUrlDto> page = new LinkedHashMap<>();
+        for (ShortUrlDto shortUrl : merged) {
+            if (page.size() == limit.max()) {
+                break;
+            }
+            page.putIfAbsent(shortUrl.id(), shortUrl); // a row caught mid-move is on two shards
+        }
+        return withCreatorNames(List.copyOf(page.values()));
+    }
+
+    /**
+     * The links with these ids, from whichever shard holds them, in no particular order; ids no shard holds are left out.
+     */
+    public List<ShortUrlDto> findByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, ShortUrlDto> found = new LinkedHashMap<>();
+        for (List<ShortUrlDto> shortUrls : scatter(shard -> shard.jdbcClient.sql(SELECT + "WHERE su.id IN (:ids)")
+                .param("ids", ids)
+                .query(new ShortUrlListingRepository.ShortUrlDtoRowMapper())
+                .list())) {
+            // a row being moved is on two shards
+            shortUrls.forEach(shortUrl -> found.putIfAbsent(shortUrl.id(), shortUrl));
+        }
+        return withCreatorNames(List.copyOf(found.values()));
+    }
+
+    public long countByCreatedById(Long userId) {
+        return sum("SELECT count(*) FROM short_urls WHERE created_by = :userId", Map.of("userId", userId));
+    }
+
+    public long countActivePublicShortUrls(Instant now) {
+        return sum("SELECT count(*) FROM short_urls WHERE is_private = false AND (expires_at IS NULL OR expires_at > :now)",
+                Map.of("now", Timestamp.from(now)));
+    }
+
+    public long count() {
+        return sum("SELECT count(*) FROM short_urls", Map.of());
+    }
+
+    /**
+     * Row count per shard, in shard order.
+     */
+    public List<Long> countPerShard() {
+        return scatter(shard -> shard.jdbcClient.sql("SELECT count(*) FROM short_urls").query(Long.class).single());
+    }
+
+    private long sum(String sql, Map<String, ?> params) {
+        return scatter(shard -> shard.jdbcClient.sql(sql).params(params).query(Long.class).single())
+                .stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * @return the short keys of the deleted links
+     */
+    public List<String> deleteByIdInAndCreatedById(List<Long> ids, Long userId) {
+        List<String> shortKeys = new ArrayList<>();
+        for (List<String> deleted : scatter(shard -> shard.jdbcClient
+                .sql("DELETE FROM short_urls WHERE id IN (:ids) AND created_by = :userId RETURNING short_key")
+                .param("ids", ids)
+                .param("userId", userId)
+                .query(String.class)
+                .list())) {
+            shortKeys.addAll(deleted);
+        }
+        return shortKeys;
+    }
+
+    /**
+     * Click counts are keyed by id, which doesn't tell the shard: every shard gets the batch and only the owner
+     * (both copies, while a row is being moved) matches.
+     * @param clicks pairs of {clicks, shortUrlId}
+     */
+    public void addClickCounts(List<Object[]> clicks) {
+        scatter(shard -> shard.jdbcTemplate.batchUpdate("UPDATE short_urls SET click_count = click_count + ? WHERE id = ?", clicks));
+    }
+
+    /**
+     * Visitor sketches are keyed by id too: every shard locks whichever of the rows it holds, in a transaction of its
+     * own, and writes back what {@code merge} makes of their sketches. Ids no shard holds were deleted meanwhile.
+     * A row being moved is merged on both copies; sketch unions are idempotent, so a retry after a partial failure
+     * doesn't count anyone twice either.
+     * @param merge persisted sketches by id (null where there is none yet) to triples of {sketch bytes, estimate, shortUrlId}
+     */
+    public void mergeVisitorSketches(List<Long> ids, Function<Map<Long, byte[]>, List<Object[]>> merge) {
+        scatter(shard -> {
+            mergeVisitorSketches(shard, ids, merge);
+            return null;
+        });
+    }
+
+    private void mergeVisitorSketches(Shard shard, List<Long> ids, Function<Map<Long, byte[]>, List<Object[]>> merge) {
+        shard.transaction.executeWithoutResult(status -> {
+            Map<Long, byte[]> persisted = new HashMap<>();
+            shard.jdbcTemplate.query("SELECT id, visitor_sketch FROM short_urls WHERE id = ANY(?) ORDER BY id FOR UPDATE",
+                    ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids.toArray())),
+                    (RowCallbackHandler) rs -> persisted.put(rs.getLong(1), rs.getBytes(2)));
+            if (!persisted.isEmpty()) {
+                shard.jdbcTemplate.batchUpdate("UPDATE short_urls SET visitor_sketch = ?, unique_visitors = ? WHERE id = ?",
+                        merge.apply(persisted));
+            }
+        });
+    }
+
+    /**
+     * One step of rebalancing: scans up to {@code batchSize} rows of {@code source} after {@code afterId} and moves
+     * those the current ring assigns elsewhere. A row is copied before it is deleted, so it can always be found;
+     * clicks counted and visitor sketches merged on the old copy in between are carried over when it is deleted.
+     */
+    public MoveResult moveBatch(int source, long afterId, int batchSize) {
+        Shard from = shards.get(source);
+        List<Map<String, Object>> rows = from.jdbcClient
+                .sql("SELECT " + COLUMNS + " FROM short_urls WHERE id > :afterId ORDER BY id LIMIT :limit")
+                .param("afterId", afterId)
+                .param("limit", batchSize)
+                .query()
+                .listOfRows();
+        if (rows.isEmpty()) {
+            return new MoveResult(afterId, 0, 0);
+        }
+        Map<Integer, List<Map<String, Object>>> byTarget = new HashMap<>();
+        for (Map<String, Object> row : rows) {
+            int target = ring.shardFor((String) row.get("short_key"));
+            if (target != source) {
+                byTarget.computeIfAbsent(target, shard -> new ArrayList<>()).add(row);
+            }
+        }
+        int moved = 0;
+        for (Map.Entry<Integer, List<Map<String, Object>>> entry : byTarget.entrySet()) {
+            moved += move(from, shards.get(entry.getKey()), entry.getValue());
+        }
+        long lastId = ((Number) rows.getLast().get("id")).longValue();
+        return new MoveResult(lastId, rows.size(), moved);
+    }
+
+    private int move(Shard from, Shard to, List<Map<String, Object>> rows) {
+        List<Object[]> copies = rows.stream().map(row -> new Object[]{
+                row.get("id"), row.get("short_key"), row.get("original_url"), row.get("is_private"), row.get("expires_at"),
+                row.get("created_by"), row.get("click_count"), row.get("created_at"), row.get("validation_status"),
+                row.get("redirect_type"), row.get("visitor_sketch"), row.get("unique_visitors")}).toList();
+        to.jdbcTemplate.batchUpdate("INSERT INTO short_urls (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)"
+                + " ON CONFLICT (id) DO NOTHING", copies);
+
+        List<Long> ids = rows.stream().map(row -> ((Number) row.get("id")).longValue()).toList();
+        List<Object[]> finalClicks = new ArrayList<>(rows.size());
+        Map<Long, byte[]> finalSketches = new HashMap<>();
+        from.jdbcClient.sql("DELETE FROM short_urls WHERE id IN (:ids) RETURNING id, click_count, visitor_sketch")
+                .param("ids", ids)
+                .query((RowCallbackHandler) rs -> {
+                    finalClicks.add(new Object[]{rs.getLong("click_count"), rs.getLong("id")});
+                    byte[] sketch = rs.getBytes("visitor_sketch");
+                    if (sketch != null) {
+                        finalSketches.put(rs.getLong("id"), sketch);
+                    }
+                });
+        // clicks flushed between the copy and the delete only reached the old row; flushes after the copy reached both
+        to.jdbcTemplate.batchUpdate("UPDATE short_urls SET click_count = GREATEST(click_count, ?) WHERE id = ?", finalClicks);
+        // the same holds for visitor sketches, whose union is what both copies have seen
+        if (!finalSketches.isEmpty()) {
+            mergeVisitorSketches(to, List.copyOf(finalSketches.keySet()), persisted -> unions(persisted, finalSketches));
+        }
+        return rows.size();
+    }
+
+    private static List<Object[]> unions(Map<Long, byte[]> persisted, Map<Long, byte[]> sketches) {
+        List<Object[]> updates = new ArrayList<>(persisted.size());
+        persisted.forEach((id, bytes) -> {
+            HyperLogLog sketch = HyperLogLog.fromBytes(sketches.get(id));
+            if (bytes != null) {
+                sketch = HyperLogLog.union(sketch, HyperLogLog.fromBytes(bytes));
+            }
+            updates.add(new Object[]{sketch.toBytes(), sketch.estimate(), id});
+        });
+        return updates;
+    }
+
+    private List<ShortUrlDto> withCreatorNames(List<ShortUrlDto> shortUrls) {
+        List<Long> userIds = shortUrls.stream()
+                .filter(shortUrl -> shortUrl.createdBy() != null)
+                .map(shortUrl -> shortUrl.createdBy().id())
+                .distinct()
+                .toList();
+        if (userIds.isEmpty()) {
+            return shortUrls;
+        }
+        Map<Long, String> names = mainJdbcClient.sql("SELECT id, name FROM users WHERE id IN (:ids)")
+                .param("ids", userIds)
+                .query((rs, rowNum) -> Map.entry(rs.getLong("id"), rs.getString("name")))
+                .list()
+                .stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        return shortUrls.stream()
+                .map(shortUrl -> shortUrl.createdBy() == null ? shortUrl : new ShortUrlDto(
+                        shortUrl.id(), shortUrl.shortKey(), shortUrl.originalUrl(), shortUrl.isPrivate(), shortUrl.expiresAt(),
+                        new UserDto(shortUrl.createdBy().id(), names.get(shortUrl.createdBy().id())),
+                        shortUrl.clickCount(), shortUrl.createdAt(), shortUrl.redirectType(), shortUrl.uniqueVisitors()))
+                .toList();
+    }
+
+    // runs the query on every shard at once; the slowest shard sets the latency.
+    // Waits for all of them before throwing the first failure, so a caller cleaning up doesn't race the others.
+    private <T> List<T> scatter(Function<Shard, T> query) {
+        List<Future<T>> futures = shards.stream().map(shard -> executor.submit(() -> query.apply(shard))).toList();
+        List<T> results = new ArrayList<>(futures.size());
+        RuntimeException failure = null;
+        for (Future<T> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                RuntimeException cause = e.getCause() instanceof RuntimeException runtimeException
+                        ? runtimeException
+                        : new IllegalStateException(e.getCause());
+                if (failure == null) {
+                    failure = cause;
+                } else {
+                    failure.addSuppressed(cause);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while querying shards", e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return results;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        executor.shutdown();
+        for (Shard shard : shards) {
+            if (shard.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    public record MoveResult(long lastId, int scanned, int moved) {
+    }
+
+    /**
+     * One CSV import row; {@code owner} is a user's email, or null.
+     */
+    public record ImportRow(String shortKey, String originalUrl, Instant expiresAt, String owner) {
+    }
+
+    private static final class Shard {
+        private final int index;
+        private final DataSource dataSource;
+        private final JdbcTemplate jdbcTemplate;
+        private final JdbcClient jdbcClient;
+        private final JdbcTemplate streamingJdbcTemplate;
+        private final TransactionTemplate transaction;
+        private final TransactionTemplate readOnlyTransaction;
+
+        Shard(int index, DataSource dataSource) {
+            this.index = index;
+            this.dataSource = dataSource;
+            this.jdbcTemplate = new JdbcTemplate(dataSource);
+            this.jdbcClient = JdbcClient.create(jdbcTemplate);
+            this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+            this.streamingJdbcTemplate.setFetchSize(FETCH_SIZE);
+            DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+            this.transaction = new TransactionTemplate(transactionManager);
+            this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+            this.readOnlyTransaction.setReadOnly(true);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.abitmanipulator.url_shortner.repository;
+
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class ShortKeyBlockRepository {
+
+    private final JdbcClient jdbcClient;
+
+    public ShortKeyBlockRepository(JdbcClient jdbcClient) {
+        this.jdbcClient = jdbcClient;
+    }
+
+    /**
+     * nextval() is never rolled back, so a block number is handed out at most once across all nodes.
+     */
+    public long nextBlockNumber() {
+        return jdbcClient
+                .sql("SELECT nextval('short_key_block_seq')")
+                .query(Long.class)
+                .single();
+    }
+}
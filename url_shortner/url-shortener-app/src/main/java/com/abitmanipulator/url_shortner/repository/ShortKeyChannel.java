@@ -0,0 +1,97 @@
+package com.abitmanipulator.url_shortner.repository;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Postgres LISTEN/NOTIFY channel on which nodes announce the short keys they created.
+ * Notifications sent inside a transaction are delivered when it commits.
+ */
+@Repository
+public class ShortKeyChannel {
+
+    private static final String CHANNEL = "short_keys";
+    // payloads are limited to 8000 bytes
+    private static final int MAX_PAYLOAD_LENGTH = 7_000;
+    private static final int POLL_TIMEOUT_MILLIS = 1_000;
+
+    private final JdbcClient jdbcClient;
+    private final String url;
+    private final String username;
+    private final String password;
+
+    public ShortKeyChannel(JdbcClient jdbcClient, DataSourceProperties dataSourceProperties,
+                           ObjectProvider<JdbcConnectionDetails> connectionDetails) {
+        this.jdbcClient = jdbcClient;
+        // set by docker compose / testcontainers; absent when the DataSource is our own (replicas) and nothing overrides it
+        JdbcConnectionDetails details = connectionDetails.getIfAvailable();
+        this.url = details != null ? details.getJdbcUrl() : dataSourceProperties.determineUrl();
+        this.username = details != null ? details.getUsername() : dataSourceProperties.determineUsername();
+        this.password = details != null ? details.getPassword() : dataSourceProperties.determinePassword();
+    }
+
+    public void publish(Collection<String> shortKeys) {
+        StringBuilder payload = new StringBuilder();
+        for (String shortKey : shortKeys) {
+            if (!payload.isEmpty() && payload.length() + shortKey.length() >= MAX_PAYLOAD_LENGTH) {
+                notify(payload.toString());
+                payload.setLength(0);
+            }
+            if (!payload.isEmpty()) {
+                payload.append(',');
+            }
+            payload.append(shortKey);
+        }
+        if (!payload.isEmpty()) {
+            notify(payload.toString());
+        }
+    }
+
+    /**
+     * Listens on a connection of its own and passes every announced key to {@code consumer}, calling
+     * {@code onListening} once notifications are being received. The connection is opened outside the pool
+     * (and outside any BoundedDataSource permit), since it is held for as long as this runs.
+     * Returns when the thread is interrupted; throws when the connection fails.
+     */
+    public void listen(Runnable onListening, Consumer<String> consumer) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, username, password)) {
+            connection.setAutoCommit(true);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("LISTEN " + CHANNEL);
+            }
+            onListening.run();
+            PGConnection pgConnection = connection.unwrap(PGConnection.class);
+            while (!Thread.currentThread().isInterrupted()) {
+                PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+                if (notifications == null) {
+                    continue;
+                }
+                for (PGNotification notification : notifications) {
+                    for (String shortKey : notification.getParameter().split(",")) {
+                        consumer.accept(shortKey);
+                    }
+                }
+            }
+        }
+    }
+
+    private void notify(String payload) {
+        jdbcClient.sql("SELECT pg_notify(?, ?)")
+                .params(CHANNEL, payload)
+                .query((RowCallbackHandler) rs -> {
+                });
+    }
+}
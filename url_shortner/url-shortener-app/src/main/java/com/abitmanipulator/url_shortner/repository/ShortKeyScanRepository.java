@@ -0,0 +1,69 @@
+package com.abitmanipulator.url_shortner.repository;
+
+import com.abitmanipulator.url_shortner.domain.models.ShortUrlDto;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.function.Consumer;
+
+/**
+ * Full and incremental scans behind the short key filter and the redirect snapshot. Both rely on a scan seeing
+ * everything committed before it started, so the scans run in read-write transactions, which keep them on the
+ * primary: a lagging read replica would leave keys out while the filter already trusts the scan.
+ */
+@Repository
+public class ShortKeyScanRepository {
+
+    private static final int FETCH_SIZE = 10_000;
+    // what the redirect path needs; disabled (INVALID) links are left out, as in ShortUrlService
+    private static final String REDIRECT_TARGETS = """
+            SELECT id, short_key, original_url, is_private, expires_at, click_count, created_at, redirect_type,
+                   unique_visitors, created_by AS user_id, NULL AS user_name
+            FROM short_urls
+            WHERE validation_status <> 'INVALID'
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ShortKeyScanRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    /**
+     * Streams all short keys through a server-side cursor, without materializing them.
+     * Runs in a transaction because the Postgres driver only honours the fetch size with auto-commit off.
+     */
+    @Transactional
+    public void forEachShortKey(Consumer<String> consumer) {
+        jdbcTemplate.query("SELECT short_key FROM short_urls",
+                (RowCallbackHandler) rs -> consumer.accept(rs.getString(1)));
+    }
+
+    @Transactional
+    public void forEachShortKeyCreatedSince(Instant createdSince, Consumer<String> consumer) {
+        jdbcTemplate.query("SELECT short_key FROM short_urls WHERE created_at >= ?",
+                (RowCallbackHandler) rs -> consumer.accept(rs.getString(1)),
+                Timestamp.from(createdSince));
+    }
+
+    @Transactional
+    public void forEachRedirectTarget(Consumer<ShortUrlDto> consumer) {
+        var rowMapper = new ShortUrlListingRepository.ShortUrlDtoRowMapper();
+        jdbcTemplate.query(REDIRECT_TARGETS,
+                (RowCallbackHandler) rs -> consumer.accept(rowMapper.mapRow(rs, 0)));
+    }
+
+    @Transactional
+    public void forEachRedirectTargetCreatedSince(Instant createdSince, Consumer<ShortUrlDto> consumer) {
+        var rowMapper = new ShortUrlListingRepository.ShortUrlDtoRowMapper();
+        jdbcTemplate.query(REDIRECT_TARGETS + " AND created_at >= ?",
+                (RowCallbackHandler) rs -> consumer.accept(rowMapper.mapRow(rs, 0)),
+                Timestamp.from(createdSince));
+    }
+}
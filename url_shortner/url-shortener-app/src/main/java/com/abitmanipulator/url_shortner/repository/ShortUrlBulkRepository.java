@@ -0,0 +1,81 @@
+package com.abitmanipulator.url_shortner.repository;
+
+import com.abitmanipulator.url_shortner.domain.entities.ShortUrl;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+public class ShortUrlBulkRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ShortUrlBulkRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserts the (new, unmanaged) short urls with one multi-row INSERT ... SELECT FROM unnest(...) per chunk
+     * and sets the generated ids on them. IDENTITY ids rule out Hibernate insert batching, this path sidesteps the entity manager.
+     */
+    public void insertAll(List<ShortUrl> shortUrls, int chunkSize) {
+        for (int from = 0; from < shortUrls.size(); from += chunkSize) {
+            insertChunk(shortUrls.subList(from, Math.min(from + chunkSize, shortUrls.size())));
+        }
+    }
+
+    private void insertChunk(List<ShortUrl> chunk) {
+        String sql = """
+                INSERT INTO short_urls (short_key, original_url, is_private, expires_at, created_by, click_count,
+                                        created_at, validation_status, redirect_type, unique_visitors)
+                SELECT short_key, original_url, is_private, expires_at, created_by, 0, ?, validation_status, redirect_type, 0
+                FROM unnest(?::varchar[], ?::text[], ?::boolean[], ?::timestamp[], ?::bigint[], ?::varchar[], ?::varchar[])
+                     AS t (short_key, original_url, is_private, expires_at, created_by, validation_status, redirect_type)
+                RETURNING id, short_key
+                """;
+        int size = chunk.size();
+        String[] shortKeys = new String[size];
+        String[] originalUrls = new String[size];
+        Boolean[] isPrivate = new Boolean[size];
+        Timestamp[] expiresAt = new Timestamp[size];
+        Long[] createdBy = new Long[size];
+        String[] validationStatus = new String[size];
+        String[] redirectType = new String[size];
+        for (int i = 0; i < size; i++) {
+            ShortUrl shortUrl = chunk.get(i);
+            shortKeys[i] = shortUrl.getShortKey();
+            originalUrls[i] = shortUrl.getOriginalUrl();
+            isPrivate[i] = shortUrl.getIsPrivate();
+            expiresAt[i] = shortUrl.getExpiresAt() != null ? Timestamp.from(shortUrl.getExpiresAt()) : null;
+            createdBy[i] = shortUrl.getCreatedBy() != null ? shortUrl.getCreatedBy().getId() : null;
+            validationStatus[i] = shortUrl.getValidationStatus().name();
+            redirectType[i] = shortUrl.getRedirectType() != null ? shortUrl.getRedirectType().name() : null;
+        }
+        Timestamp createdAt = Timestamp.from(chunk.getFirst().getCreatedAt());
+
+        Map<String, Long> ids = new HashMap<>(size * 2);
+        jdbcTemplate.query((Connection con) -> {
+                    PreparedStatement ps = con.prepareStatement(sql);
+                    ps.setTimestamp(1, createdAt);
+                    ps.setArray(2, con.createArrayOf("varchar", shortKeys));
+                    ps.setArray(3, con.createArrayOf("text", originalUrls));
+                    ps.setArray(4, con.createArrayOf("boolean", isPrivate));
+                    ps.setArray(5, con.createArrayOf("timestamp", expiresAt));
+                    ps.setArray(6, con.createArrayOf("bigint", createdBy));
+                    ps.setArray(7, con.createArrayOf("varchar", validationStatus));
+                    ps.setArray(8, con.createArrayOf("varchar", redirectType));
+                    return ps;
+                },
+                (RowCallbackHandler) rs -> ids.put(rs.getString("short_key"), rs.getLong("id")));
+        for (ShortUrl shortUrl : chunk) {
+            shortUrl.setId(ids.get(shortUrl.getShortKey()));
+        }
+    }
+}
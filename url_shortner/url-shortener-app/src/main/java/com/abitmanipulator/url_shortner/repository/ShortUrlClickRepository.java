@@ -0,0 +1,26 @@
+package com.abitmanipulator.url_shortner.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public class ShortUrlClickRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ShortUrlClickRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Adds the buffered clicks to short_urls.click_count in a single JDBC batch.
+     * Relative increments, so concurrent flushes from several nodes never overwrite each other.
+     * @param clicks pairs of {clicks, shortUrlId}
+     */
+    public void addClickCounts(List<Object[]> clicks) {
+        String sql = "UPDATE short_urls SET click_count = click_count + ? WHERE id = ?";
+        jdbcTemplate.batchUpdate(sql, clicks);
+    }
+}
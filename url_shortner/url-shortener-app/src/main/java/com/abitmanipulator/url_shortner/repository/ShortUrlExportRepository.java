@@ -0,0 +1,46 @@
+package com.abitmanipulator.url_shortner.repository;
+
+import com.abitmanipulator.url_shortner.domain.models.ShortUrlDto;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.util.function.Consumer;
+
+@Repository
+public class ShortUrlExportRepository {
+
+    private static final int FETCH_SIZE = 1_000;
+
+    private static final String SELECT = """
+            SELECT su.id, su.short_key, su.original_url, su.is_private, su.expires_at, su.click_count,
+                   su.created_at, su.redirect_type, su.unique_visitors, u.id AS user_id, u.name AS user_name
+            FROM short_urls su
+            LEFT JOIN users u ON u.id = su.created_by
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ShortUrlExportRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    /**
+     * Streams the user's short urls (all short urls when {@code userId} is null), newest first, through a
+     * forward-only server-side cursor: only {@code FETCH_SIZE} rows are held in memory at a time.
+     * Read-only transaction because the Postgres driver only honours the fetch size with auto-commit off.
+     */
+    @Transactional(readOnly = true)
+    public void forEachShortUrl(Long userId, Consumer<ShortUrlDto> consumer) {
+        var rowMapper = new ShortUrlListingRepository.ShortUrlDtoRowMapper();
+        RowCallbackHandler handler = rs -> consumer.accept(rowMapper.mapRow(rs, 0));
+        if (userId == null) {
+            jdbcTemplate.query(SELECT + "ORDER BY su.created_at DESC, su.id DESC", handler);
+        } else {
+            jdbcTemplate.query(SELECT + "WHERE su.created_by = ? ORDER BY su.created_at DESC, su.id DESC", handler, userId);
+        }
+    }
+}
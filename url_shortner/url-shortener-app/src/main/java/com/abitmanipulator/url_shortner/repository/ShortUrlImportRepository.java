@@ -0,0 +1,72 @@
+package com.abitmanipulator.url_shortner.repository;
+
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+@Repository
+public class ShortUrlImportRepository {
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+
+    public ShortUrlImportRepository(DataSource dataSource, JdbcTemplate jdbcTemplate) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Streams one batch of CSV rows (short_key, original_url, expires_at, owner email) through COPY into a
+     * temporary staging table, then moves the rows whose key is free into short_urls.
+     * Keys already taken, in the table or earlier in the same batch, are skipped rather than failing the batch.
+     * On the partitioned schema a key inserted concurrently by someone else still fails it: uniqueness is enforced
+     * by the trigger on short_url_keys, which ON CONFLICT doesn't see. The caller retries such a batch.
+     * @return the keys actually inserted
+     * @throws org.springframework.dao.DuplicateKeyException when a key was inserted concurrently (partitioned schema)
+     */
+    @Transactional
+    public List<String> importBatch(Reader csv) {
+        jdbcTemplate.execute("""
+                CREATE TEMP TABLE short_url_import
+                (
+                    short_key    VARCHAR(10),
+                    original_url TEXT,
+                    expires_at   TIMESTAMP,
+                    owner        VARCHAR(100)
+                ) ON COMMIT DROP
+                """);
+        copyIn("COPY short_url_import (short_key, original_url, expires_at, owner) FROM STDIN WITH (FORMAT csv)", csv);
+        // NOT EXISTS skips the keys already taken (on the partitioned schema, the only check); ON CONFLICT also skips
+        // keys inserted concurrently since, but only on the plain schema, where short_key has a unique index
+        return jdbcTemplate.queryForList("""
+                INSERT INTO short_urls (short_key, original_url, is_private, expires_at, created_by, click_count, created_at)
+                SELECT DISTINCT ON (i.short_key) i.short_key, i.original_url, false, i.expires_at, u.id, 0, now()
+                FROM short_url_import i
+                LEFT JOIN users u ON u.email = i.owner
+                WHERE NOT EXISTS (SELECT 1 FROM short_urls su WHERE su.short_key = i.short_key)
+                ORDER BY i.short_key
+                ON CONFLICT DO NOTHING
+                RETURNING short_key
+                """, String.class);
+    }
+
+    private void copyIn(String sql, Reader csv) {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql, csv);
+        } catch (SQLException | IOException e) {
+            throw new IllegalStateException("COPY into the import staging table failed", e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+}
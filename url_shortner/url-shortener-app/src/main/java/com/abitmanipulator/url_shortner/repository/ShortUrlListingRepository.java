@@ -0,0 +1,109 @@
+package com.abitmanipulator.url_shortner.repository;
+
+import com.abitmanipulator.url_shortner.domain.models.RedirectType;
+import com.abitmanipulator.url_shortner.domain.models.ShortUrlDto;
+import com.abitmanipulator.url_shortner.domain.models.UserDto;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Read-only listing queries that select straight into {@link ShortUrlDto}: one statement per page,
+ * creator joined in, and no managed entities (no persistence context snapshots, no lazy loading).
+ *
+ * Keyset (seek) pagination on (created_at, id): "After" returns the rows older than the given position,
+ * newest first; "Before" returns the rows newer than it, oldest first. No OFFSET, no COUNT(*).
+ */
+@Repository
+public class ShortUrlListingRepository {
+
+    private static final String SELECT = """
+            SELECT su.id, su.short_key, su.original_url, su.is_private, su.expires_at, su.click_count,
+                   su.created_at, su.redirect_type, su.unique_visitors, u.id AS user_id, u.name AS user_name
+            FROM short_urls su
+            LEFT JOIN users u ON u.id = su.created_by
+            """;
+    static final String AFTER = """
+            AND (su.created_at, su.id) < (:createdAt, :id)
+            ORDER BY su.created_at DESC, su.id DESC
+            LIMIT :limit
+            """;
+    static final String BEFORE = """
+            AND (su.created_at, su.id) > (:createdAt, :id)
+            ORDER BY su.created_at ASC, su.id ASC
+            LIMIT :limit
+            """;
+
+    static final String PUBLIC = "WHERE su.is_private = false AND (su.expires_at IS NULL OR su.expires_at > now())\n";
+    static final String BY_CREATOR = "WHERE su.created_by = :userId\n";
+    static final String ALL = "WHERE true\n";
+
+    private final JdbcClient jdbcClient;
+
+    public ShortUrlListingRepository(JdbcClient jdbcClient) {
+        this.jdbcClient = jdbcClient;
+    }
+
+    public List<ShortUrlDto> findPublicShortUrlsAfter(Instant createdAt, Long id, Limit limit) {
+        return query(PUBLIC + AFTER, null, createdAt, id, limit);
+    }
+
+    public List<ShortUrlDto> findPublicShortUrlsBefore(Instant createdAt, Long id, Limit limit) {
+        return query(PUBLIC + BEFORE, null, createdAt, id, limit);
+    }
+
+    public List<ShortUrlDto> findByCreatedByIdAfter(Long userId, Instant createdAt, Long id, Limit limit) {
+        return query(BY_CREATOR + AFTER, userId, createdAt, id, limit);
+    }
+
+    public List<ShortUrlDto> findByCreatedByIdBefore(Long userId, Instant createdAt, Long id, Limit limit) {
+        return query(BY_CREATOR + BEFORE, userId, createdAt, id, limit);
+    }
+
+    public List<ShortUrlDto> findAllShortUrlsAfter(Instant createdAt, Long id, Limit limit) {
+        return query(ALL + AFTER, null, createdAt, id, limit);
+    }
+
+    public List<ShortUrlDto> findAllShortUrlsBefore(Instant createdAt, Long id, Limit limit) {
+        return query(ALL + BEFORE, null, createdAt, id, limit);
+    }
+
+    private List<ShortUrlDto> query(String condition, Long userId, Instant createdAt, Long id, Limit limit) {
+        var statement = jdbcClient.sql(SELECT + condition)
+                .param("createdAt", Timestamp.from(createdAt))
+                .param("id", id)
+                .param("limit", limit.max());
+        if (userId != null) {
+            statement = statement.param("userId", userId);
+        }
+        return statement.query(new ShortUrlDtoRowMapper()).list();
+    }
+
+    static class ShortUrlDtoRowMapper implements RowMapper<ShortUrlDto> {
+        @Override
+        public ShortUrlDto mapRow(ResultSet rs, int rowNum) throws SQLException {
+            long userId = rs.getLong("user_id");
+            UserDto createdBy = rs.wasNull() ? null : new UserDto(userId, rs.getString("user_name"));
+            Timestamp expiresAt = rs.getTimestamp("expires_at");
+            String redirectType = rs.getString("redirect_type");
+            return new ShortUrlDto(
+                    rs.getLong("id"),
+                    rs.getString("short_key"),
+                    rs.getString("original_url"),
+                    rs.getBoolean("is_private"),
+                    expiresAt != null ? expiresAt.toInstant() : null,
+                    createdBy,
+                    rs.getLong("click_count"),
+                    rs.getTimestamp("created_at").toInstant(),
+                    redirectType != null ? RedirectType.valueOf(redirectType) : null,
+                    rs.getLong("unique_visitors"));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.abitmanipulator.url_shortner.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Maintenance of the monthly short_urls partitions created by db/partitioning/V11.1.
+ * Partition names are fixed by create_short_urls_partition: short_urls_YYYY_MM.
+ */
+@Repository
+public class ShortUrlPartitionRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ShortUrlPartitionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void ensurePartitions(int monthsAhead) {
+        jdbcTemplate.queryForObject("SELECT ensure_short_urls_partitions(?)::TEXT", String.class, monthsAhead);
+    }
+
+    public List<String> findPartitionNames() {
+        return jdbcTemplate.queryForList("""
+                SELECT c.relname FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                JOIN pg_class p ON p.oid = i.inhparent
+                WHERE p.relname = 'short_urls'
+                ORDER BY c.relname
+                """, String.class);
+    }
+
+    /**
+     * True when no link in the partition can still be resolved (all have an expiry in the past).
+     */
+    public boolean isFullyExpired(String partition) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT NOT EXISTS (SELECT 1 FROM " + quote(partition) + " WHERE expires_at IS NULL OR expires_at > now())",
+                Boolean.class));
+    }
+
+    /**
+     * Detaches and drops the partition, releasing its short keys (DROP fires no row triggers).
+     * With {@code archive} the rows are copied into short_urls_archive first.
+     * @return the number of links dropped
+     */
+    @Transactional
+    public int dropPartition(String partition, boolean archive) {
+        String table = quote(partition);
+        if (archive) {
+            jdbcTemplate.update("""
+                    INSERT INTO short_urls_archive (id, short_key, original_url, is_private, expires_at, created_by,
+                                                    click_count, unique_visitors, validation_status, redirect_type, created_at)
+                    SELECT id, short_key, original_url, is_private, expires_at, created_by,
+                           click_count, unique_visitors, validation_status, redirect_type, created_at
+                    FROM %s
+                    ON CONFLICT (id) DO NOTHING
+                    """.formatted(table));
+        }
+        int dropped = jdbcTemplate.update(
+                "DELETE FROM short_url_keys k USING " + table + " p WHERE k.short_key = p.short_key");
+        jdbcTemplate.execute("ALTER TABLE short_urls DETACH PARTITION " + table);
+        jdbcTemplate.execute("DROP TABLE " + table);
+        return dropped;
+    }
+
+    private static String quote(String identifier) {
+        if (!identifier.matches("short_urls_\\d{4}_\\d{2}")) {
+            throw new IllegalArgumentException("Not a short_urls partition: " + identifier);
+        }
+        return '"' + identifier + '"';
+    }
+}
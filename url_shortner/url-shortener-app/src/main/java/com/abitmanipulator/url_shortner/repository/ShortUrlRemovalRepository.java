@@ -0,0 +1,54 @@
+package com.abitmanipulator.url_shortner.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Log of removed short keys (short_url_removals) through which nodes learn about removals made elsewhere.
+ */
+@Repository
+public class ShortUrlRemovalRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ShortUrlRemovalRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Runs in its own transaction: it is called after the removing transaction committed, when that one's
+     * connection may still be bound but will never be committed again.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void record(Collection<String> shortKeys) {
+        String[] keys = shortKeys.toArray(String[]::new);
+        jdbcTemplate.update((Connection con) -> {
+            PreparedStatement ps = con.prepareStatement("INSERT INTO short_url_removals (short_key) SELECT unnest(?::varchar[])");
+            ps.setArray(1, con.createArrayOf("varchar", keys));
+            return ps;
+        });
+    }
+
+    public void forEachRemovedSince(Instant removedSince, Consumer<String> consumer) {
+        jdbcTemplate.query("SELECT short_key FROM short_url_removals WHERE removed_at >= ?",
+                (RowCallbackHandler) rs -> consumer.accept(rs.getString(1)),
+                Timestamp.from(removedSince));
+    }
+
+    /**
+     * @return the number of log rows deleted
+     */
+    public int deleteRemovedBefore(Instant cutoff) {
+        return jdbcTemplate.update("DELETE FROM short_url_removals WHERE removed_at < ?", Timestamp.from(cutoff));
+    }
+}
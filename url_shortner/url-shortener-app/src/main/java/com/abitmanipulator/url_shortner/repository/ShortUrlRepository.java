@@ -3,14 +3,17 @@ package com.abitmanipulator.url_shortner.repository;
 
 import aj.org.objectweb.asm.commons.Remapper;
 import com.abitmanipulator.url_shortner.domain.entities.ShortUrl;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import com.abitmanipulator.url_shortner.domain.models.ValidationStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,23 +31,31 @@ public interface ShortUrlRepository extends JpaRepository<ShortUrl, Long> {
     @EntityGraph(attributePaths = {"createdBy"})
     List<ShortUrl> findPublicShortUrls();
 
-    /**
-     *
-     * @param pageable
-     * @return Page of result without sorting in any order.
-     */
-    @Query("SELECT su FROM ShortUrl su WHERE su.isPrivate = false")
-    Page<ShortUrl> findPublicShortUrls(Pageable  pageable);
+    @Query("select count(su) from ShortUrl su where su.isPrivate = false and (su.expiresAt is null or su.expiresAt > :now)")
+    long countActivePublicShortUrls(Instant now);
 
     boolean existsByShortKey(String shortKey);
 
+    @Query("select su.shortKey from ShortUrl su where su.shortKey in :shortKeys")
+    List<String> findExistingShortKeys(Collection<String> shortKeys);
+
+    @EntityGraph(attributePaths = {"createdBy"})
     Optional<ShortUrl> findByShortKey(String shortKey);
 
-    Page<ShortUrl> findByCreatedById(Long userId, Pageable pageable);
+    @Query("select su from ShortUrl su where su.validationStatus = :status and su.createdAt < :createdBefore order by su.id")
+    List<ShortUrl> findByValidationStatus(ValidationStatus status, Instant createdBefore, Limit limit);
+
+    @Transactional
+    @Modifying
+    @Query("update ShortUrl su set su.validationStatus = :status where su.id = :id")
+    int updateValidationStatus(Long id, ValidationStatus status);
+
+    long countByCreatedById(Long userId);
+
+    @Query("select su.shortKey from ShortUrl su where su.id in :ids and su.createdBy.id = :userId")
+    List<String> findShortKeysByIdInAndCreatedById(List<Long> ids, Long userId);
 
     @Modifying
     void deleteByIdInAndCreatedById(List<Long> ids, Long userId);
 
-    @Query("select u from ShortUrl u left join fetch u.createdBy")
-    Page<ShortUrl> findAllShortUrls(Pageable pageable);
 }
@@ -0,0 +1,40 @@
+package com.abitmanipulator.url_shortner.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+public class ShortUrlVisitorRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ShortUrlVisitorRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Locks the rows (in id order) and returns their persisted visitor sketches; links without a sketch yet map to null.
+     * Must run inside a transaction, so that concurrent merges from several nodes serialize per link.
+     */
+    public Map<Long, byte[]> lockVisitorSketches(List<Long> shortUrlIds) {
+        Map<Long, byte[]> sketches = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT id, visitor_sketch FROM short_urls WHERE id = ANY(?) ORDER BY id FOR UPDATE",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", shortUrlIds.toArray())),
+                (RowCallbackHandler) rs -> sketches.put(rs.getLong(1), rs.getBytes(2)));
+        return sketches;
+    }
+
+    /**
+     * @param sketches triples of {sketch bytes, estimated unique visitors, shortUrlId}
+     */
+    public void updateVisitorSketches(List<Object[]> sketches) {
+        String sql = "UPDATE short_urls SET visitor_sketch = ?, unique_visitors = ? WHERE id = ?";
+        jdbcTemplate.batchUpdate(sql, sketches);
+    }
+}
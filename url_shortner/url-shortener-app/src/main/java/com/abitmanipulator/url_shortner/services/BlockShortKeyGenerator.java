@@ -0,0 +1,68 @@
+package com.abitmanipulator.url_shortner.services;
+
+import com.abitmanipulator.url_shortner.repository.ShortKeyBlockRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hands out keys from a block of ids leased from the short_key_block_seq database sequence.
+ * Every block number is handed to exactly one node, so keys are unique without any existence check;
+ * the database is only hit once per {@code blockSize} keys. Unused ids of a block are lost on restart.
+ * <p>
+ * Id layout: {@code blockNumber << BLOCK_BITS | offset}, so the block size can be changed between
+ * deployments without ranges overlapping.
+ */
+public class BlockShortKeyGenerator implements ShortKeyGenerator {
+    private static final Logger log = LoggerFactory.getLogger(BlockShortKeyGenerator.class);
+
+    public static final int BLOCK_BITS = 16;
+    public static final int MAX_BLOCK_SIZE = 1 << BLOCK_BITS;
+
+    private final ShortKeyBlockRepository blockRepository;
+    private final ShortKeyEncoder encoder;
+    private final int blockSize;
+
+    private long nextId;
+    private long blockEnd;
+
+    public BlockShortKeyGenerator(ShortKeyBlockRepository blockRepository, ShortKeyEncoder encoder, int blockSize) {
+        if (blockSize < 1 || blockSize > MAX_BLOCK_SIZE) {
+            throw new IllegalArgumentException("Block size must be between 1 and " + MAX_BLOCK_SIZE);
+        }
+        this.blockRepository = blockRepository;
+        this.encoder = encoder;
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public synchronized String nextKey() {
+        if (nextId >= blockEnd) {
+            leaseBlock();
+        }
+        return encoder.encode(nextId++);
+    }
+
+    // one lock acquisition for the whole batch; spans as many blocks as needed
+    @Override
+    public synchronized List<String> nextKeys(int count) {
+        List<String> keys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            keys.add(nextKey());
+        }
+        return keys;
+    }
+
+    private void leaseBlock() {
+        long blockNumber = blockRepository.nextBlockNumber();
+        long blockStart = blockNumber << BLOCK_BITS;
+        if (blockStart + blockSize > ShortKeyEncoder.KEY_SPACE) {
+            throw new IllegalStateException("Short key space exhausted at block " + blockNumber);
+        }
+        log.debug("Leased short key block {}", blockNumber);
+        nextId = blockStart;
+        blockEnd = blockStart + blockSize;
+    }
+}
@@ -0,0 +1,140 @@
+package com.abitmanipulator.url_shortner.services;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe, scalable Bloom filter of strings.
+ * When the current segment reaches its capacity a new one, twice as large and with half the false positive
+ * probability, is added; lookups check all segments, so the overall error stays bounded while the filter grows.
+ * Bloom filters cannot forget: removed keys stay "possibly present" until the filter is rebuilt.
+ */
+public class BloomFilter {
+
+    private static final double TIGHTENING_RATIO = 0.5;
+
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+
+    public BloomFilter(long expectedInsertions, double falsePositiveProbability) {
+        segments.add(new Segment(Math.max(expectedInsertions, 1_000), falsePositiveProbability));
+    }
+
+    public void put(CharSequence key) {
+        long hash = hash(key);
+        Segment segment = segments.getLast();
+        if (segment.isFull()) {
+            segment = grow(segment);
+        }
+        segment.put(hash);
+    }
+
+    public boolean mightContain(CharSequence key) {
+        long hash = hash(key);
+        for (Segment segment : segments) {
+            if (segment.mightContain(hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public long approximateSize() {
+        return segments.stream().mapToLong(segment -> segment.insertions.get()).sum();
+    }
+
+    public long bitSize() {
+        return segments.stream().mapToLong(segment -> segment.numBits).sum();
+    }
+
+    /**
+     * Probability that a key that was never added is reported as present, given the current fill.
+     */
+    public double expectedFalsePositiveProbability() {
+        double allNegative = 1.0;
+        for (Segment segment : segments) {
+            allNegative *= 1.0 - segment.expectedFalsePositiveProbability();
+        }
+        return 1.0 - allNegative;
+    }
+
+    private synchronized Segment grow(Segment full) {
+        Segment last = segments.getLast();
+        if (last != full) {
+            return last; // another thread already grew the filter
+        }
+        Segment next = new Segment(full.capacity * 2, full.falsePositiveProbability * TIGHTENING_RATIO);
+        segments.add(next);
+        return next;
+    }
+
+    // 64-bit FNV-1a over the chars, finished with the splitmix64 mixer; allocation free
+    static long hash(CharSequence key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        return h ^ (h >>> 31);
+    }
+
+    private static final class Segment {
+        private final long capacity;
+        private final double falsePositiveProbability;
+        private final long numBits;
+        private final int numHashFunctions;
+        private final AtomicLongArray bits;
+        private final AtomicLong insertions = new AtomicLong();
+
+        Segment(long capacity, double falsePositiveProbability) {
+            this.capacity = capacity;
+            this.falsePositiveProbability = falsePositiveProbability;
+            long optimalBits = (long) (-capacity * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+            int words = (int) Math.min(Integer.MAX_VALUE - 8, (optimalBits + 63) / 64);
+            this.bits = new AtomicLongArray(words);
+            this.numBits = (long) words * 64;
+            this.numHashFunctions = Math.max(1, (int) Math.round((double) numBits / capacity * Math.log(2)));
+        }
+
+        boolean isFull() {
+            return insertions.get() >= capacity;
+        }
+
+        void put(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= numHashFunctions; i++) {
+                long bitIndex = Math.floorMod(h1 + (long) i * h2, numBits);
+                int word = (int) (bitIndex >>> 6);
+                long mask = 1L << bitIndex;
+                long current;
+                do {
+                    current = bits.get(word);
+                    if ((current & mask) != 0) {
+                        break;
+                    }
+                } while (!bits.compareAndSet(word, current, current | mask));
+            }
+            insertions.incrementAndGet();
+        }
+
+        boolean mightContain(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= numHashFunctions; i++) {
+                long bitIndex = Math.floorMod(h1 + (long) i * h2, numBits);
+                if ((bits.get((int) (bitIndex >>> 6)) & (1L << bitIndex)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        double expectedFalsePositiveProbability() {
+            return Math.pow(1 - Math.exp(-numHashFunctions * (double) insertions.get() / numBits), numHashFunctions);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.abitmanipulator.url_shortner.services;
+
+import com.abitmanipulator.url_shortner.AppConfigProperties;
+import com.abitmanipulator.url_shortner.repository.ShardedShortUrlRepository;
+import com.abitmanipulator.url_shortner.repository.ShortUrlClickRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind click counter.
+ * Redirects only bump a striped {@link LongAdder} per short url; the pending counts are flushed
+ * periodically as batched relative UPDATEs, so a popular link no longer serializes on its row lock.
+ */
+@Component
+public class ClickCounter {
+    private static final Logger log = LoggerFactory.getLogger(ClickCounter.class);
+
+    private final ConcurrentHashMap<Long, LongAdder> pendingClicks = new ConcurrentHashMap<>();
+    // idle adders removed by the previous flush; a redirect may still have incremented one after it was removed
+    private Map<Long, LongAdder> retired = Map.of();
+    private final ShortUrlClickRepository clickRepository;
+    private final ShardedShortUrlRepository shardedRepository;
+    private final int batchSize;
+
+    public ClickCounter(ShortUrlClickRepository clickRepository, ObjectProvider<ShardedShortUrlRepository> shardedRepository,
+                        AppConfigProperties properties) {
+        this.clickRepository = clickRepository;
+        this.shardedRepository = shardedRepository.getIfAvailable();
+        this.batchSize = properties.clickCounting().batchSize();
+    }
+
+    public void increment(Long shortUrlId) {
+        LongAdder clicks = pendingClicks.get(shortUrlId);
+        if (clicks == null) {
+            clicks = pendingClicks.computeIfAbsent(shortUrlId, id -> new LongAdder());
+        }
+        clicks.increment();
+    }
+
+    @Scheduled(fixedDelayString = "${app.click-counting.flush-interval:PT5S}")
+    public synchronized void flush() {
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        // a redirect holds an adder only between get and increment, far shorter than a flush interval
+        for (Map.Entry<Long, LongAdder> entry : retired.entrySet()) {
+            batch = add(batch, entry.getKey(), entry.getValue().sumThenReset());
+        }
+        Map<Long, LongAdder> idle = new HashMap<>();
+        for (Map.Entry<Long, LongAdder> entry : pendingClicks.entrySet()) {
+            long clicks = entry.getValue().sumThenReset();
+            if (clicks == 0) {
+                // idle since the last flush, stop tracking it; late increments are picked up on the next flush
+                if (pendingClicks.remove(entry.getKey(), entry.getValue())) {
+                    idle.put(entry.getKey(), entry.getValue());
+                }
+                continue;
+            }
+            batch = add(batch, entry.getKey(), clicks);
+        }
+        retired = idle;
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    private List<Object[]> add(List<Object[]> batch, Long shortUrlId, long clicks) {
+        if (clicks == 0) {
+            return batch;
+        }
+        batch.add(new Object[]{clicks, shortUrlId});
+        if (batch.size() < batchSize) {
+            return batch;
+        }
+        write(batch);
+        return new ArrayList<>(batchSize);
+    }
+
+    @PreDestroy
+    public void drain() {
+        log.info("Flushing pending click counts before shutdown");
+        flush();
+        // nothing redirects any more: collect what the last flush retired
+        flush();
+    }
+
+    private void write(List<Object[]> batch) {
+        try {
+            if (shardedRepository != null) {
+                shardedRepository.addClickCounts(batch);
+            } else {
+                clickRepository.addClickCounts(batch);
+            }
+        } catch (Exception e) {
+            log.error("Failed to flush {} click counts, will retry on next flush", batch.size(), e);
+            for (Object[] row : batch) {
+                pendingClicks.computeIfAbsent((Long) row[1], id -> new LongAdder()).add((Long) row[0]);
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.abitmanipulator.url_shortner.services;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Bounded, lock-free multi-producer / single-consumer ring buffer.
+ * Producers claim a slot with a CAS on the tail and publish into it; {@link #offer} never blocks and
+ * drops (counting the drop) when the buffer is full. Only one thread at a time may call {@link #drain}.
+ */
+public class ClickEventBuffer<E> {
+
+    private final AtomicReferenceArray<E> slots;
+    private final int capacity;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+    private final LongAdder dropped = new LongAdder();
+
+    public ClickEventBuffer(int requestedCapacity) {
+        this.capacity = Integer.highestOneBit(Math.max(2, requestedCapacity - 1)) << 1;
+        this.mask = capacity - 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    public boolean offer(E element) {
+        long position;
+        do {
+            position = tail.get();
+            if (position - head >= capacity) {
+                dropped.increment();
+                return false;
+            }
+        } while (!tail.compareAndSet(position, position + 1));
+        slots.lazySet((int) (position & mask), element);
+        return true;
+    }
+
+    /**
+     * Hands at most {@code maxElements} published elements to the consumer, in claim order.
+     * @return the number of elements drained
+     */
+    public int drain(Consumer<E> consumer, int maxElements) {
+        long position = head;
+        int drained = 0;
+        while (drained < maxElements) {
+            int index = (int) (position & mask);
+            E element = slots.get(index);
+            if (element == null) {
+                break; // empty, or claimed but not published yet
+            }
+            slots.lazySet(index, null);
+            consumer.accept(element);
+            position++;
+            drained++;
+        }
+        head = position;
+        return drained;
+    }
+
+    public int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public long dropped() {
+        return dropped.sum();
+    }
+}
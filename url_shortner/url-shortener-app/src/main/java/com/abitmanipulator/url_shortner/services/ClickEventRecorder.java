@@ -0,0 +1,156 @@
+package com.abitmanipulator.url_shortner.services;
+
+import com.abitmanipulator.url_shortner.AppConfigProperties;
+import com.abitmanipulator.url_shortner.domain.models.ClickEvent;
+import com.abitmanipulator.url_shortner.domain.models.ClickMetadata;
+import com.abitmanipulator.url_shortner.domain.models.ShortUrlDto;
+import com.abitmanipulator.url_shortner.repository.ClickEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Click analytics pipeline: the redirect thread publishes into a lock-free ring buffer and returns,
+ * a background consumer drains the buffer in large batches into click_events and the click rollups.
+ * When the consumer falls behind, new events are dropped and counted rather than blocking redirects.
+ * A batch that fails to persist is retried on the following drains, before anything new is taken from the buffer,
+ * and only given up (and counted as failed) after {@value #MAX_ATTEMPTS} attempts; while the database is down
+ * the buffer fills up and sheds load by dropping.
+ */
+@Component
+public class ClickEventRecorder {
+    private static final Logger log = LoggerFactory.getLogger(ClickEventRecorder.class);
+
+    private static final int MAX_TEXT_LENGTH = 512;
+    private static final int MAX_ATTEMPTS = 5;
+
+    private final ClickEventBuffer<ClickEvent> buffer;
+    private final ClickEventRepository clickEventRepository;
+    private final ClickRollupService clickRollupService;
+    private final TransactionTemplate transactionTemplate;
+    private final AppConfigProperties.ClickEvents config;
+    private final Counter persisted;
+    private final Counter failed;
+    private final Counter retried;
+    // guarded by this
+    private List<ClickEvent> failedBatch;
+    private int attempts;
+
+    public ClickEventRecorder(ClickEventRepository clickEventRepository, ClickRollupService clickRollupService,
+                              PlatformTransactionManager transactionManager, AppConfigProperties properties, MeterRegistry meterRegistry) {
+        this.clickEventRepository = clickEventRepository;
+        this.clickRollupService = clickRollupService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.config = properties.clickEvents();
+        this.buffer = new ClickEventBuffer<>(config.bufferCapacity());
+        this.persisted = Counter.builder("shorturl.click.events.persisted").register(meterRegistry);
+        this.failed = Counter.builder("shorturl.click.events.failed")
+                .description("Click events given up after repeated failures to persist them")
+                .register(meterRegistry);
+        this.retried = Counter.builder("shorturl.click.events.retried").register(meterRegistry);
+        FunctionCounter.builder("shorturl.click.events.dropped", buffer, ClickEventBuffer::dropped)
+                .description("Click events dropped because the buffer was full")
+                .register(meterRegistry);
+        Gauge.builder("shorturl.click.events.buffered", buffer, ClickEventBuffer::size)
+                .register(meterRegistry);
+    }
+
+    public void record(ShortUrlDto shortUrl, ClickMetadata metadata) {
+        if (!config.enabled()) {
+            return;
+        }
+        buffer.offer(new ClickEvent(
+                shortUrl.id(),
+                shortUrl.shortKey(),
+                shortUrl.createdBy() != null ? shortUrl.createdBy().id() : null,
+                Instant.now(),
+                truncate(metadata.referrer()),
+                truncate(metadata.userAgent()),
+                metadata.country()));
+    }
+
+    @Scheduled(fixedDelayString = "${app.click-events.drain-interval:PT1S}")
+    public synchronized void drain() {
+        if (failedBatch != null && !retry()) {
+            return;
+        }
+        List<ClickEvent> batch = new ArrayList<>(config.batchSize());
+        while (buffer.drain(batch::add, config.batchSize()) > 0) {
+            if (!persist(batch)) {
+                failedBatch = batch;
+                attempts = 1;
+                return;
+            }
+            batch = new ArrayList<>(config.batchSize());
+        }
+    }
+
+    @PreDestroy
+    public synchronized void drainOnShutdown() {
+        log.info("Persisting {} buffered click events before shutdown", buffer.size());
+        drain();
+        if (failedBatch != null) {
+            giveUp();
+            // drain() stops at the first failure; with the database still failing, the rest is lost as well
+            int lost = buffer.drain(event -> {
+            }, buffer.capacity());
+            if (lost > 0) {
+                failed.increment(lost);
+                log.error("Dropping {} buffered click events at shutdown, they could not be persisted", lost);
+            }
+        }
+    }
+
+    /**
+     * @return whether draining can go on: the failed batch is persisted or given up
+     */
+    private boolean retry() {
+        retried.increment(failedBatch.size());
+        if (persist(failedBatch)) {
+            failedBatch = null;
+            return true;
+        }
+        if (++attempts < MAX_ATTEMPTS) {
+            return false;
+        }
+        giveUp();
+        return true;
+    }
+
+    private void giveUp() {
+        failed.increment(failedBatch.size());
+        log.error("Giving up on {} click events after {} failed attempts", failedBatch.size(), attempts);
+        failedBatch = null;
+    }
+
+    // insert and rollups commit together, so a failed batch can be retried without counting clicks twice
+    private boolean persist(List<ClickEvent> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                clickEventRepository.insertAll(batch);
+                clickRollupService.addAll(batch);
+            });
+            persisted.increment(batch.size());
+            return true;
+        } catch (Exception e) {
+            log.warn("Failed to persist {} click events", batch.size(), e);
+            return false;
+        }
+    }
+
+    private static String truncate(String value) {
+        return value == null || value.length() <= MAX_TEXT_LENGTH ? value : value.substring(0, MAX_TEXT_LENGTH);
+    }
+}
@@ -0,0 +1,216 @@
+package com.abitmanipulator.url_shortner.services;
+
+import com.abitmanipulator.url_shortner.AppConfigProperties;
+import com.abitmanipulator.url_shortner.domain.models.ClickBucket;
+import com.abitmanipulator.url_shortner.domain.models.ClickEvent;
+import com.abitmanipulator.url_shortner.domain.models.ClickRollupDelta;
+import com.abitmanipulator.url_shortner.domain.models.ClickTrend;
+import com.abitmanipulator.url_shortner.domain.models.RollupGranularity;
+import com.abitmanipulator.url_shortner.domain.models.ShortUrlDto;
+import com.abitmanipulator.url_shortner.domain.models.TopLink;
+import com.abitmanipulator.url_shortner.repository.ClickRollupRepository;
+import com.abitmanipulator.url_shortner.repository.ShardedShortUrlRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Per-link and global click counts in minute, hour and day buckets.
+ * Buckets are maintained incrementally from each persisted batch of click events (no rescans of click_events),
+ * so dashboards read a fixed number of small rows however many clicks there were.
+ * Fine-grained buckets are only kept for their retention period; day buckets are kept forever.
+ */
+@Service
+public class ClickRollupService {
+    private static final Logger log = LoggerFactory.getLogger(ClickRollupService.class);
+
+    private static final int COMPACTION_BATCH_SIZE = 10_000;
+    private static final Duration TOP_LINKS_WINDOW = Duration.ofDays(7);
+    // user ids are bigserial, starting at 1
+    private static final Long ALL_LINKS = 0L;
+
+    private static final Comparator<ClickRollupDelta> PRIMARY_KEY_ORDER = Comparator
+            .comparing(ClickRollupDelta::shortUrlId, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(ClickRollupDelta::granularity)
+            .thenComparing(ClickRollupDelta::bucketStart);
+
+    private final ClickRollupRepository clickRollupRepository;
+    // null unless short_urls is sharded, the top links are then looked up on the shards instead of joined
+    private final ShardedShortUrlRepository shardedRepository;
+    private final AppConfigProperties.ClickRollups config;
+    private final Counter lateEvents;
+    // keyed by owner id, ALL_LINKS for the figures over all links
+    private final Cache<Long, ClickTrend> trends;
+    private final Cache<Long, List<TopLink>> topLinks;
+
+    public ClickRollupService(ClickRollupRepository clickRollupRepository,
+                              ObjectProvider<ShardedShortUrlRepository> shardedRepository,
+                              AppConfigProperties properties, MeterRegistry meterRegistry) {
+        this.clickRollupRepository = clickRollupRepository;
+        this.shardedRepository = shardedRepository.getIfAvailable();
+        this.config = properties.clickRollups();
+        this.lateEvents = Counter.builder("shorturl.click.rollups.late")
+                .description("Click events too old for an already compacted granularity")
+                .register(meterRegistry);
+        this.trends = newStatsCache();
+        this.topLinks = newStatsCache();
+    }
+
+    /**
+     * Folds a batch of click events into the rollups. Runs inside the caller's transaction,
+     * together with the insert of the raw events, so a batch is counted exactly once.
+     * Late events land in their own (older) buckets; a granularity is skipped once the event
+     * is past its retention, since that bucket may already have been compacted away.
+     */
+    public void addAll(List<ClickEvent> events) {
+        Instant now = Instant.now();
+        Map<ClickRollupDelta, Long> linkClicks = new HashMap<>();
+        Map<ClickRollupDelta, Long> globalClicks = new HashMap<>();
+        for (ClickEvent event : events) {
+            for (RollupGranularity granularity : RollupGranularity.values()) {
+                Instant bucketStart = granularity.bucketStart(event.clickedAt());
+                Duration retention = retention(granularity);
+                if (retention != null && bucketStart.isBefore(now.minus(retention))) {
+                    lateEvents.increment();
+                    continue;
+                }
+                linkClicks.merge(new ClickRollupDelta(event.shortUrlId(), event.ownerId(), granularity, bucketStart, 0), 1L, Long::sum);
+                globalClicks.merge(new ClickRollupDelta(null, null, granularity, bucketStart, 0), 1L, Long::sum);
+            }
+        }
+        clickRollupRepository.addLinkClicks(toDeltas(linkClicks));
+        clickRollupRepository.addGlobalClicks(toDeltas(globalClicks));
+    }
+
+    public ClickTrend globalTrend() {
+        return trends.get(ALL_LINKS, key -> trend(clickRollupRepository::findGlobalBuckets));
+    }
+
+    public ClickTrend userTrend(Long userId) {
+        return trends.get(userId, key ->
+                trend((granularity, from) -> clickRollupRepository.findOwnerBuckets(userId, granularity, from)));
+    }
+
+    public List<TopLink> topLinks() {
+        return topLinks.get(ALL_LINKS, key -> {
+            Instant from = Instant.now().minus(TOP_LINKS_WINDOW);
+            return shardedRepository == null
+                    ? clickRollupRepository.findTopLinks(from, config.topLinks())
+                    : resolveOnShards(clickRollupRepository.findTopLinkClicks(from, config.topLinks()));
+        });
+    }
+
+    public List<TopLink> userTopLinks(Long userId) {
+        return topLinks.get(userId, key -> {
+            Instant from = Instant.now().minus(TOP_LINKS_WINDOW);
+            return shardedRepository == null
+                    ? clickRollupRepository.findOwnerTopLinks(userId, from, config.topLinks())
+                    : resolveOnShards(clickRollupRepository.findOwnerTopLinkClicks(userId, from, config.topLinks()));
+        });
+    }
+
+    // the rollups live in the main database and short_urls on the shards, so the join is done here; deleted links drop out
+    private List<TopLink> resolveOnShards(Map<Long, Long> clicks) {
+        Map<Long, ShortUrlDto> shortUrls = shardedRepository.findByIds(clicks.keySet()).stream()
+                .collect(Collectors.toMap(ShortUrlDto::id, Function.identity()));
+        List<TopLink> links = new ArrayList<>(shortUrls.size());
+        clicks.forEach((id, count) -> {
+            ShortUrlDto shortUrl = shortUrls.get(id);
+            if (shortUrl != null) {
+                links.add(new TopLink(id, shortUrl.shortKey(), shortUrl.originalUrl(), count));
+            }
+        });
+        return links;
+    }
+
+    /**
+     * Drops minute and hour buckets past their retention, in small batches to keep transactions short.
+     */
+    @Scheduled(fixedDelayString = "${app.click-rollups.compaction-interval:PT1H}")
+    public void compact() {
+        Instant now = Instant.now();
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            Duration retention = retention(granularity);
+            if (retention == null) {
+                continue;
+            }
+            Instant before = granularity.bucketStart(now.minus(retention));
+            long deleted = 0;
+            int batch;
+            do {
+                batch = clickRollupRepository.deleteBucketsBefore(granularity, before, COMPACTION_BATCH_SIZE);
+                deleted += batch;
+            } while (batch > 0);
+            if (deleted > 0) {
+                log.info("Compacted {} {} click rollup buckets older than {}", deleted, granularity, before);
+            }
+        }
+    }
+
+    private <V> Cache<Long, V> newStatsCache() {
+        return Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(config.statsTtl())
+                .build();
+    }
+
+    private Duration retention(RollupGranularity granularity) {
+        return switch (granularity) {
+            case MINUTE -> config.minuteRetention();
+            case HOUR -> config.hourRetention();
+            case DAY -> null;
+        };
+    }
+
+    private static List<ClickRollupDelta> toDeltas(Map<ClickRollupDelta, Long> clicks) {
+        List<ClickRollupDelta> deltas = new ArrayList<>(clicks.size());
+        clicks.forEach((bucket, count) -> deltas.add(new ClickRollupDelta(
+                bucket.shortUrlId(), bucket.ownerId(), bucket.granularity(), bucket.bucketStart(), count)));
+        deltas.sort(PRIMARY_KEY_ORDER);
+        return deltas;
+    }
+
+    private interface BucketQuery {
+        List<ClickBucket> find(RollupGranularity granularity, Instant from);
+    }
+
+    private static ClickTrend trend(BucketQuery query) {
+        Instant now = Instant.now();
+        return new ClickTrend(
+                series(query, RollupGranularity.MINUTE, 60, now),
+                series(query, RollupGranularity.HOUR, 24, now),
+                series(query, RollupGranularity.DAY, 30, now));
+    }
+
+    // the last `count` buckets up to and including the current one, with the missing ones as zero
+    private static List<ClickBucket> series(BucketQuery query, RollupGranularity granularity, int count, Instant now) {
+        Instant from = granularity.bucketStart(now).minus(count - 1L, granularity.unit());
+        Map<Instant, Long> clicks = new TreeMap<>();
+        for (ClickBucket bucket : query.find(granularity, from)) {
+            clicks.put(bucket.bucketStart(), bucket.clicks());
+        }
+        List<ClickBucket> series = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Instant bucketStart = from.plus(i, granularity.unit());
+            series.add(new ClickBucket(bucketStart, clicks.getOrDefault(bucketStart, 0L)));
+        }
+        return series;
+    }
+}
@@ -26,7 +26,9 @@ public class EntityMapper {
                 shortUrl.getExpiresAt(),
                 userDto,
                 shortUrl.getClickCount(),
-                shortUrl.getCreatedAt()
+                shortUrl.getCreatedAt(),
+                shortUrl.getRedirectType(),
+                shortUrl.getUniqueVisitors()
         );
     }
 
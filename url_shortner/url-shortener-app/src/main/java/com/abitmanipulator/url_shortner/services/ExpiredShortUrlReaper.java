@@ -0,0 +1,100 @@
+package com.abitmanipulator.url_shortner.services;
+
+import com.abitmanipulator.url_shortner.AppConfigProperties;
+import com.abitmanipulator.url_shortner.repository.ExpiredShortUrlRepository;
+import com.abitmanipulator.url_shortner.repository.ExpiredShortUrlRepository.PurgedShortUrl;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background purge of expired short urls.
+ * Walks the expired rows in (expires_at, id) order and deletes (or archives) them in small batches, each its own
+ * short statement that skips rows locked by others, pausing between batches and stopping when the run's time
+ * budget is used up; the next run picks up where the backlog is. Purged keys are evicted from the redirect cache.
+ */
+@Component
+public class ExpiredShortUrlReaper {
+    private static final Logger log = LoggerFactory.getLogger(ExpiredShortUrlReaper.class);
+
+    public enum Mode { DELETE, ARCHIVE }
+
+    private final ExpiredShortUrlRepository expiredShortUrlRepository;
+    private final ShortUrlCache shortUrlCache;
+    private final AppConfigProperties.Reaper config;
+    private final Counter purged;
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    public ExpiredShortUrlReaper(ExpiredShortUrlRepository expiredShortUrlRepository, ShortUrlCache shortUrlCache,
+                                 AppConfigProperties properties, MeterRegistry meterRegistry) {
+        this.expiredShortUrlRepository = expiredShortUrlRepository;
+        this.shortUrlCache = shortUrlCache;
+        this.config = properties.reaper();
+        this.purged = Counter.builder("shorturl.reaper.purged")
+                .tag("mode", config.mode().name().toLowerCase())
+                .description("Expired short urls deleted or archived")
+                .register(meterRegistry);
+        Gauge.builder("shorturl.reaper.lag", lagSeconds, AtomicLong::get)
+                .baseUnit("seconds")
+                .description("How long the oldest unpurged short url has been expired for")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "PT1M", fixedDelayString = "${app.reaper.interval:PT5M}")
+    public void purgeExpired() {
+        if (!config.enabled()) {
+            return;
+        }
+        Instant start = Instant.now();
+        Instant deadline = start.plus(config.maxRunTime());
+        Instant cutoff = start.minus(config.gracePeriod());
+        Instant afterExpiresAt = Instant.EPOCH;
+        long afterId = 0;
+        long total = 0;
+        while (Instant.now().isBefore(deadline)) {
+            List<PurgedShortUrl> batch = config.mode() == Mode.ARCHIVE
+                    ? expiredShortUrlRepository.archiveBatch(cutoff, afterExpiresAt, afterId, config.batchSize())
+                    : expiredShortUrlRepository.deleteBatch(cutoff, afterExpiresAt, afterId, config.batchSize());
+            if (batch.isEmpty()) {
+                break;
+            }
+            shortUrlCache.evictAll(batch.stream().map(PurgedShortUrl::shortKey).toList());
+            purged.increment(batch.size());
+            total += batch.size();
+            afterExpiresAt = batch.getLast().expiresAt();
+            afterId = batch.getLast().id();
+            if (batch.size() < config.batchSize()) {
+                break;
+            }
+            if (!pause()) {
+                break;
+            }
+        }
+        Instant oldest = expiredShortUrlRepository.findOldestExpiredBefore(cutoff).orElse(null);
+        lagSeconds.set(oldest == null ? 0 : Duration.between(oldest, Instant.now()).toSeconds());
+        if (total > 0) {
+            log.info("Purged ({}) {} expired short urls in {} ms", config.mode(), total,
+                    Duration.between(start, Instant.now()).toMillis());
+        }
+    }
+
+    // throttle between batches so the purge never competes with live traffic for long
+    private boolean pause() {
+        try {
+            Thread.sleep(config.pause());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
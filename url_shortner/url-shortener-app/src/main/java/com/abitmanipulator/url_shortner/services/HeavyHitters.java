@@ -0,0 +1,102 @@
+package com.abitmanipulator.url_shortner.services;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Space-Saving summary of the most frequent keys in a stream, using a fixed number of counters.
+ * When a new key arrives and all counters are taken, the key with the lowest count is replaced and the
+ * newcomer inherits that count as its error bound. Any key with true frequency above total / capacity is
+ * guaranteed to be tracked. {@link #decay} scales all counts down, turning the totals into an exponentially
+ * weighted sliding window. Not thread-safe: meant to be fed from a single consumer thread.
+ */
+public class HeavyHitters {
+
+    private static final double MIN_COUNT = 0.5;
+
+    private final int capacity;
+    private final Map<String, Counter> counters;
+    private TreeSet<Counter> byCount = new TreeSet<>(ORDER);
+
+    private static final Comparator<Counter> ORDER = Comparator
+            .comparingDouble((Counter counter) -> counter.count)
+            .thenComparing(counter -> counter.key);
+
+    public HeavyHitters(int capacity) {
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    public void add(String key) {
+        Counter counter = counters.get(key);
+        if (counter != null) {
+            byCount.remove(counter);
+            counter.count++;
+            byCount.add(counter);
+            return;
+        }
+        if (counters.size() < capacity) {
+            counter = new Counter(key, 1, 0);
+        } else {
+            Counter min = byCount.pollFirst();
+            counters.remove(min.key);
+            counter = new Counter(key, min.count + 1, min.count);
+        }
+        counters.put(key, counter);
+        byCount.add(counter);
+    }
+
+    /**
+     * Multiplies every count by {@code factor} (0..1) and forgets keys whose count decayed to nothing.
+     */
+    public void decay(double factor) {
+        TreeSet<Counter> decayed = new TreeSet<>(ORDER);
+        for (Counter counter : byCount) {
+            counter.count *= factor;
+            counter.error *= factor;
+            if (counter.count < MIN_COUNT) {
+                counters.remove(counter.key);
+            } else {
+                decayed.add(counter);
+            }
+        }
+        byCount = decayed;
+    }
+
+    /**
+     * The {@code limit} keys with the highest counts, highest first.
+     */
+    public List<Entry> top(int limit) {
+        List<Entry> top = new ArrayList<>(Math.min(limit, byCount.size()));
+        for (Counter counter : byCount.descendingSet()) {
+            if (top.size() == limit) {
+                break;
+            }
+            top.add(new Entry(counter.key, counter.count, counter.error));
+        }
+        return top;
+    }
+
+    public int size() {
+        return counters.size();
+    }
+
+    public record Entry(String key, double count, double error) {
+    }
+
+    private static final class Counter {
+        private final String key;
+        private double count;
+        private double error;
+
+        Counter(String key, double count, double error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
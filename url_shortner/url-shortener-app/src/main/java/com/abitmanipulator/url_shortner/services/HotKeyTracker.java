@@ -0,0 +1,75 @@
+package com.abitmanipulator.url_shortner.services;
+
+import com.abitmanipulator.url_shortner.AppConfigProperties;
+import com.abitmanipulator.url_shortner.domain.models.HotKey;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tracks which short keys are hot right now, in fixed memory.
+ * Redirects only publish the key into a lock-free ring buffer; a scheduled consumer folds the keys into a
+ * {@link HeavyHitters} summary, decays it by the configured half-life and publishes an immutable snapshot.
+ * The current heavy hitters are pinned in the {@link ShortUrlCache} so they are never evicted for size.
+ */
+@Component
+public class HotKeyTracker {
+
+    private static final int DRAIN_BATCH_SIZE = 10_000;
+
+    private final ClickEventBuffer<String> buffer;
+    private final HeavyHitters heavyHitters;
+    private final ShortUrlCache shortUrlCache;
+    private final AppConfigProperties.Trending config;
+    private final double decayFactor;
+    private volatile List<HotKey> snapshot = List.of();
+
+    public HotKeyTracker(ShortUrlCache shortUrlCache, AppConfigProperties properties, MeterRegistry meterRegistry) {
+        this.shortUrlCache = shortUrlCache;
+        this.config = properties.trending();
+        this.buffer = new ClickEventBuffer<>(config.bufferCapacity());
+        this.heavyHitters = new HeavyHitters(config.capacity());
+        // per-tick factor so that counts halve every half-life
+        this.decayFactor = Math.pow(0.5, (double) config.updateInterval().toMillis() / config.halfLife().toMillis());
+        FunctionCounter.builder("shorturl.trending.dropped", buffer, ClickEventBuffer::dropped)
+                .description("Clicks not counted by the trending tracker because its buffer was full")
+                .register(meterRegistry);
+    }
+
+    public void record(String shortKey) {
+        buffer.offer(shortKey);
+    }
+
+    /**
+     * Current heavy hitters, hottest first.
+     */
+    public List<HotKey> trending() {
+        return snapshot;
+    }
+
+    @Scheduled(fixedDelayString = "${app.trending.update-interval:PT1S}")
+    public synchronized void update() {
+        while (buffer.drain(heavyHitters::add, DRAIN_BATCH_SIZE) == DRAIN_BATCH_SIZE) {
+            // keep draining until the buffer is empty
+        }
+        heavyHitters.decay(decayFactor);
+        List<HotKey> top = heavyHitters.top(config.topK()).stream()
+                .map(entry -> new HotKey(entry.key(), Math.round(entry.count()), Math.round(entry.error())))
+                .toList();
+        snapshot = top;
+
+        Set<String> pinned = new LinkedHashSet<>();
+        for (HotKey hotKey : top) {
+            if (pinned.size() == config.pinned()) {
+                break;
+            }
+            pinned.add(hotKey.shortKey());
+        }
+        shortUrlCache.pin(pinned);
+    }
+}
@@ -0,0 +1,169 @@
+package com.abitmanipulator.url_shortner.services;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * HyperLogLog sketch of 64-bit hashes: estimates the number of distinct values in fixed memory
+ * (2^precision one-byte registers, ~1.04 / sqrt(2^precision) standard error).
+ * {@link #add} is lock-free and allocation free: registers are packed eight to a long and raised with a CAS.
+ * Sketches are merged by taking the register-wise maximum, so per-period sketches combine into totals losslessly;
+ * sketches of different precisions are first {@link #fold folded} down to the lower one.
+ */
+public class HyperLogLog {
+
+    private static final byte DENSE = 0;
+    private static final byte SPARSE = 1;
+
+    private final int precision;
+    private final int registerCount;
+    private final AtomicLongArray registers;
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("precision must be between 4 and 16: " + precision);
+        }
+        this.precision = precision;
+        this.registerCount = 1 << precision;
+        this.registers = new AtomicLongArray(registerCount / 8);
+    }
+
+    public int precision() {
+        return precision;
+    }
+
+    public void add(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // position of the first 1-bit in the remaining bits; the sentinel bit caps it at 64 - precision + 1
+        int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        raise(index, rank);
+    }
+
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge sketches of precision " + other.precision + " into " + precision);
+        }
+        for (int i = 0; i < registerCount; i++) {
+            int rank = other.get(i);
+            if (rank > 0) {
+                raise(i, rank);
+            }
+        }
+    }
+
+    /**
+     * This sketch at a lower (or the same) precision, exactly as if the hashes had been added at that precision:
+     * the index bits dropped become the leading bits of the rank. The opposite direction would have to guess.
+     */
+    public HyperLogLog fold(int precision) {
+        if (precision > this.precision) {
+            throw new IllegalArgumentException("Cannot fold a sketch of precision " + this.precision + " up to " + precision);
+        }
+        HyperLogLog folded = new HyperLogLog(precision);
+        int dropped = this.precision - precision;
+        for (int i = 0; i < registerCount; i++) {
+            int rank = get(i);
+            if (rank == 0) {
+                continue;
+            }
+            int droppedBits = i & ((1 << dropped) - 1);
+            folded.raise(i >>> dropped, droppedBits == 0
+                    ? dropped + rank
+                    : Integer.numberOfLeadingZeros(droppedBits) - (Integer.SIZE - dropped) + 1);
+        }
+        return folded;
+    }
+
+    /**
+     * Union of two sketches at the lower of their precisions; neither is changed.
+     */
+    public static HyperLogLog union(HyperLogLog a, HyperLogLog b) {
+        int precision = Math.min(a.precision, b.precision);
+        HyperLogLog union = a.fold(precision);
+        union.merge(b.fold(precision));
+        return union;
+    }
+
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (int i = 0; i < registerCount; i++) {
+            int rank = get(i);
+            sum += 1.0 / (1L << rank);
+            if (rank == 0) {
+                zeros++;
+            }
+        }
+        double alpha = 0.7213 / (1 + 1.079 / registerCount);
+        double estimate = alpha * registerCount * registerCount / sum;
+        if (estimate <= 2.5 * registerCount && zeros > 0) {
+            // small range: linear counting is more accurate
+            estimate = registerCount * Math.log((double) registerCount / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Compact encoding: {precision, SPARSE, (index hi, index lo, rank)...} while few registers are set,
+     * {precision, DENSE, rank...} once that would be larger than the registers themselves.
+     */
+    public byte[] toBytes() {
+        int nonZero = 0;
+        for (int i = 0; i < registerCount; i++) {
+            if (get(i) != 0) {
+                nonZero++;
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(precision);
+        if (nonZero * 3 < registerCount) {
+            out.write(SPARSE);
+            for (int i = 0; i < registerCount; i++) {
+                int rank = get(i);
+                if (rank != 0) {
+                    out.write(i >>> 8);
+                    out.write(i);
+                    out.write(rank);
+                }
+            }
+        } else {
+            out.write(DENSE);
+            for (int i = 0; i < registerCount; i++) {
+                out.write(get(i));
+            }
+        }
+        return out.toByteArray();
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        HyperLogLog sketch = new HyperLogLog(bytes[0]);
+        if (bytes[1] == SPARSE) {
+            for (int offset = 2; offset + 2 < bytes.length; offset += 3) {
+                int index = ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+                sketch.raise(index, bytes[offset + 2]);
+            }
+        } else {
+            for (int i = 0; i < sketch.registerCount; i++) {
+                sketch.raise(i, bytes[i + 2]);
+            }
+        }
+        return sketch;
+    }
+
+    private int get(int index) {
+        return (int) (registers.get(index >>> 3) >>> ((index & 7) << 3)) & 0xFF;
+    }
+
+    private void raise(int index, int rank) {
+        int word = index >>> 3;
+        int shift = (index & 7) << 3;
+        long mask = 0xFFL << shift;
+        long current;
+        do {
+            current = registers.get(word);
+            if (((current & mask) >>> shift) >= rank) {
+                return;
+            }
+        } while (!registers.compareAndSet(word, current, (current & ~mask) | ((long) rank << shift)));
+    }
+}
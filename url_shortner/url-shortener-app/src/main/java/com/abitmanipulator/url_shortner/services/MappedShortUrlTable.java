@@ -0,0 +1,328 @@
+package com.abitmanipulator.url_shortner.services;
+
+import com.abitmanipulator.url_shortner.domain.models.RedirectType;
+import com.abitmanipulator.url_shortner.domain.models.ShortUrlDto;
+import com.abitmanipulator.url_shortner.domain.models.UserDto;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Off-heap open-addressing hash table of short key -> redirect target, memory-mapped from a file so it survives restarts.
+ * <pre>
+ * header   64 bytes: magic, version, clean flag, slot count, data end, live entries, used slots, watermark
+ * slots    slot count x 16 bytes: key hash, record offset (0 = empty, -1 = removed)
+ * records  appended: id, created at, expires at, owner id, flags, redirect type, key length, url length, key, url
+ * </pre>
+ * All values are little-endian. Lookups are lock-free; writers are serialized and publish a slot only once its record
+ * is complete. Removed slots stay as tombstones and the slot table never grows: once {@link #MAX_LOAD_FACTOR} is
+ * reached puts are refused until the table is rebuilt into a new file. Only {@link #close()} marks the file clean,
+ * so {@link #open(Path)} rejects a file left behind by a crash instead of trusting half-written pages.
+ */
+public class MappedShortUrlTable implements AutoCloseable {
+
+    // bump when the layout (or the order of RedirectType's constants) changes; older files are then rebuilt
+    static final int VERSION = 1;
+
+    private static final long MAGIC = 0x50414E534C525553L; // "SURLSNAP"
+    private static final double MAX_LOAD_FACTOR = 0.75;
+    private static final long MIN_SLOTS = 1024;
+    private static final long AVERAGE_RECORD_SIZE = 96;
+
+    private static final long MAGIC_OFFSET = 0;
+    private static final long VERSION_OFFSET = 8;
+    private static final long CLEAN_OFFSET = 12;
+    private static final long SLOT_COUNT_OFFSET = 16;
+    private static final long DATA_END_OFFSET = 24;
+    private static final long ENTRIES_OFFSET = 32;
+    private static final long USED_SLOTS_OFFSET = 40;
+    private static final long WATERMARK_OFFSET = 48;
+    private static final long HEADER_SIZE = 64;
+
+    private static final long SLOT_SIZE = 16;
+    private static final long EMPTY = 0;
+    private static final long REMOVED = -1;
+
+    private static final long ID = 0;
+    private static final long CREATED_AT = 8;
+    private static final long EXPIRES_AT = 16;
+    private static final long OWNER_ID = 24;
+    private static final long FLAGS = 32;
+    private static final long REDIRECT_TYPE = 33;
+    private static final long KEY_LENGTH = 34;
+    private static final long URL_LENGTH = 36;
+    private static final long RECORD_HEADER_SIZE = 40;
+    private static final long NONE = Long.MIN_VALUE;
+    private static final byte PRIVATE = 1;
+
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfLong RECORD_LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfInt RECORD_INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfShort RECORD_SHORT = ValueLayout.JAVA_SHORT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle SLOT_RECORD_OFFSET = LONG.varHandle();
+    private static final RedirectType[] REDIRECT_TYPES = RedirectType.values();
+
+    private final FileChannel channel;
+    private final long slotCount;
+    private final long maxUsedSlots;
+    private volatile MemorySegment segment;
+
+    private MappedShortUrlTable(FileChannel channel, long slotCount, MemorySegment segment) {
+        this.channel = channel;
+        this.slotCount = slotCount;
+        this.maxUsedSlots = (long) (slotCount * MAX_LOAD_FACTOR);
+        this.segment = segment;
+    }
+
+    /**
+     * Creates a new, empty table file sized for about {@code expectedEntries} links.
+     */
+    public static MappedShortUrlTable create(Path path, long expectedEntries) throws IOException {
+        long slotCount = Long.highestOneBit(Math.max(MIN_SLOTS, (long) (expectedEntries / MAX_LOAD_FACTOR)) - 1) << 1;
+        long dataStart = HEADER_SIZE + slotCount * SLOT_SIZE;
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            // the file is sparse: unused slots and data cost no disk until written
+            MemorySegment segment = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    dataStart + Math.max(MIN_SLOTS, expectedEntries) * AVERAGE_RECORD_SIZE, Arena.ofAuto());
+            segment.set(LONG, MAGIC_OFFSET, MAGIC);
+            segment.set(INT, VERSION_OFFSET, VERSION);
+            segment.set(INT, CLEAN_OFFSET, 0);
+            segment.set(LONG, SLOT_COUNT_OFFSET, slotCount);
+            segment.set(LONG, DATA_END_OFFSET, dataStart);
+            return new MappedShortUrlTable(channel, slotCount, segment);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Maps an existing table file written by {@link #create(Path, long)} and closed cleanly.
+     * @throws IOException if the file is not a table of this version or was not closed cleanly
+     */
+    public static MappedShortUrlTable open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException(path + " is not a short url snapshot");
+            }
+            MemorySegment segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, size, Arena.ofAuto());
+            if (segment.get(LONG, MAGIC_OFFSET) != MAGIC) {
+                throw new IOException(path + " is not a short url snapshot");
+            }
+            int version = segment.get(INT, VERSION_OFFSET);
+            if (version != VERSION) {
+                throw new IOException(path + " has format version " + version + ", expected " + VERSION);
+            }
+            if (segment.get(INT, CLEAN_OFFSET) != 1) {
+                throw new IOException(path + " was not closed cleanly");
+            }
+            long slotCount = segment.get(LONG, SLOT_COUNT_OFFSET);
+            long dataEnd = segment.get(LONG, DATA_END_OFFSET);
+            if (slotCount < MIN_SLOTS || Long.bitCount(slotCount) != 1
+                    || dataEnd < HEADER_SIZE + slotCount * SLOT_SIZE || dataEnd > size) {
+                throw new IOException(path + " has a corrupt header");
+            }
+            // dirty until closed again
+            segment.set(INT, CLEAN_OFFSET, 0);
+            segment.force();
+            return new MappedShortUrlTable(channel, slotCount, segment);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public Optional<ShortUrlDto> find(String shortKey) {
+        byte[] key = shortKey.getBytes(StandardCharsets.UTF_8);
+        long hash = BloomFilter.hash(shortKey);
+        MemorySegment slots = segment;
+        long mask = slotCount - 1;
+        for (long i = hash & mask, probes = 0; probes < slotCount; i = (i + 1) & mask, probes++) {
+            long slot = HEADER_SIZE + i * SLOT_SIZE;
+            long offset = (long) SLOT_RECORD_OFFSET.getAcquire(slots, slot + 8);
+            if (offset == EMPTY) {
+                return Optional.empty();
+            }
+            if (offset != REMOVED && slots.get(LONG, slot) == hash) {
+                // read again: the record may lie past the end of the mapping the slot was read from
+                MemorySegment data = segment;
+                if (keyEquals(data, offset, key)) {
+                    return Optional.of(read(data, offset, shortKey));
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Adds or replaces the entry for the link's short key. Links don't change, so an entry with the same id is left as is.
+     * @return false if the table is full
+     */
+    public synchronized boolean put(ShortUrlDto shortUrl) {
+        byte[] key = shortUrl.shortKey().getBytes(StandardCharsets.UTF_8);
+        byte[] url = shortUrl.originalUrl().getBytes(StandardCharsets.UTF_8);
+        long hash = BloomFilter.hash(shortUrl.shortKey());
+        MemorySegment current = segment;
+        long slot = findSlot(current, hash, key);
+        long existing = current.get(LONG, slot + 8);
+        if (existing != EMPTY && current.get(RECORD_LONG, existing + ID) == shortUrl.id()) {
+            return true;
+        }
+        if (existing == EMPTY && current.get(LONG, USED_SLOTS_OFFSET) >= maxUsedSlots) {
+            return false;
+        }
+
+        long offset = current.get(LONG, DATA_END_OFFSET);
+        long recordEnd = offset + RECORD_HEADER_SIZE + key.length + url.length;
+        current = ensureCapacity(recordEnd);
+        current.set(RECORD_LONG, offset + ID, shortUrl.id());
+        current.set(RECORD_LONG, offset + CREATED_AT, shortUrl.createdAt() != null ? shortUrl.createdAt().toEpochMilli() : NONE);
+        current.set(RECORD_LONG, offset + EXPIRES_AT, shortUrl.expiresAt() != null ? shortUrl.expiresAt().toEpochMilli() : NONE);
+        current.set(RECORD_LONG, offset + OWNER_ID, shortUrl.createdBy() != null ? shortUrl.createdBy().id() : NONE);
+        current.set(ValueLayout.JAVA_BYTE, offset + FLAGS, Boolean.TRUE.equals(shortUrl.isPrivate()) ? PRIVATE : 0);
+        current.set(ValueLayout.JAVA_BYTE, offset + REDIRECT_TYPE,
+                (byte) (shortUrl.redirectType() != null ? shortUrl.redirectType().ordinal() + 1 : 0));
+        current.set(RECORD_SHORT, offset + KEY_LENGTH, (short) key.length);
+        current.set(RECORD_INT, offset + URL_LENGTH, url.length);
+        MemorySegment.copy(key, 0, current, ValueLayout.JAVA_BYTE, offset + RECORD_HEADER_SIZE, key.length);
+        MemorySegment.copy(url, 0, current, ValueLayout.JAVA_BYTE, offset + RECORD_HEADER_SIZE + key.length, url.length);
+        current.set(LONG, DATA_END_OFFSET, recordEnd);
+
+        if (existing == EMPTY) {
+            current.set(LONG, slot, hash);
+            current.set(LONG, USED_SLOTS_OFFSET, current.get(LONG, USED_SLOTS_OFFSET) + 1);
+            current.set(LONG, ENTRIES_OFFSET, current.get(LONG, ENTRIES_OFFSET) + 1);
+        }
+        SLOT_RECORD_OFFSET.setRelease(current, slot + 8, offset);
+        return true;
+    }
+
+    /**
+     * @return false if the key was not in the table
+     */
+    public synchronized boolean remove(String shortKey) {
+        MemorySegment current = segment;
+        long slot = findSlot(current, BloomFilter.hash(shortKey), shortKey.getBytes(StandardCharsets.UTF_8));
+        if (current.get(LONG, slot + 8) == EMPTY) {
+            return false;
+        }
+        SLOT_RECORD_OFFSET.setRelease(current, slot + 8, REMOVED);
+        current.set(LONG, ENTRIES_OFFSET, current.get(LONG, ENTRIES_OFFSET) - 1);
+        return true;
+    }
+
+    public long entries() {
+        return segment.get(LONG, ENTRIES_OFFSET);
+    }
+
+    /**
+     * Bytes in use, slot table included; the mapping itself may be larger.
+     */
+    public long byteSize() {
+        return segment.get(LONG, DATA_END_OFFSET);
+    }
+
+    /**
+     * Creation time up to which links are known to be in the table, kept across restarts.
+     */
+    public Instant watermark() {
+        return Instant.ofEpochMilli(segment.get(LONG, WATERMARK_OFFSET));
+    }
+
+    public synchronized void setWatermark(Instant watermark) {
+        segment.set(LONG, WATERMARK_OFFSET, watermark.toEpochMilli());
+    }
+
+    public void force() {
+        segment.force();
+    }
+
+    /**
+     * Flushes the table and marks the file clean, so that the next {@link #open(Path)} accepts it.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        MemorySegment current = segment;
+        current.force();
+        current.set(INT, CLEAN_OFFSET, 1);
+        current.force();
+        channel.close();
+    }
+
+    // under the lock: slot holding the key, or the empty slot where it would go
+    private long findSlot(MemorySegment current, long hash, byte[] key) {
+        long mask = slotCount - 1;
+        for (long i = hash & mask; ; i = (i + 1) & mask) {
+            long slot = HEADER_SIZE + i * SLOT_SIZE;
+            long offset = current.get(LONG, slot + 8);
+            if (offset == EMPTY || (offset != REMOVED && current.get(LONG, slot) == hash && keyEquals(current, offset, key))) {
+                return slot;
+            }
+        }
+    }
+
+    private MemorySegment ensureCapacity(long end) {
+        MemorySegment current = segment;
+        if (end <= current.byteSize()) {
+            return current;
+        }
+        long size = current.byteSize();
+        while (size < end) {
+            size *= 2;
+        }
+        try {
+            // both mappings share the page cache; readers still holding the old one keep working
+            MemorySegment grown = channel.map(FileChannel.MapMode.READ_WRITE, 0, size, Arena.ofAuto());
+            segment = grown;
+            return grown;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean keyEquals(MemorySegment data, long offset, byte[] key) {
+        int keyLength = Short.toUnsignedInt(data.get(RECORD_SHORT, offset + KEY_LENGTH));
+        if (keyLength != key.length) {
+            return false;
+        }
+        long keyStart = offset + RECORD_HEADER_SIZE;
+        return MemorySegment.mismatch(data, keyStart, keyStart + keyLength, MemorySegment.ofArray(key), 0, keyLength) == -1;
+    }
+
+    private static ShortUrlDto read(MemorySegment data, long offset, String shortKey) {
+        long createdAt = data.get(RECORD_LONG, offset + CREATED_AT);
+        long expiresAt = data.get(RECORD_LONG, offset + EXPIRES_AT);
+        long ownerId = data.get(RECORD_LONG, offset + OWNER_ID);
+        int redirectType = data.get(ValueLayout.JAVA_BYTE, offset + REDIRECT_TYPE);
+        int keyLength = Short.toUnsignedInt(data.get(RECORD_SHORT, offset + KEY_LENGTH));
+        byte[] url = new byte[data.get(RECORD_INT, offset + URL_LENGTH)];
+        MemorySegment.copy(data, ValueLayout.JAVA_BYTE, offset + RECORD_HEADER_SIZE + keyLength, url, 0, url.length);
+        // only what the redirect path needs: no owner name, click or visitor counts
+        return new ShortUrlDto(
+                data.get(RECORD_LONG, offset + ID),
+                shortKey,
+                new String(url, StandardCharsets.UTF_8),
+                (data.get(ValueLayout.JAVA_BYTE, offset + FLAGS) & PRIVATE) != 0,
+                expiresAt != NONE ? Instant.ofEpochMilli(expiresAt) : null,
+                ownerId != NONE ? new UserDto(ownerId, null) : null,
+                null,
+                createdAt != NONE ? Instant.ofEpochMilli(createdAt) : null,
+                redirectType != 0 ? REDIRECT_TYPES[redirectType - 1] : null,
+                null);
+    }
+}
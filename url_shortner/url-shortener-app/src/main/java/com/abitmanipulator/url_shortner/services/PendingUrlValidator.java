@@ -0,0 +1,77 @@
+package com.abitmanipulator.url_shortner.services;
+
+import com.abitmanipulator.url_shortner.AppConfigProperties;
+import com.abitmanipulator.url_shortner.domain.entities.ShortUrl;
+import com.abitmanipulator.url_shortner.domain.models.ValidationStatus;
+import com.abitmanipulator.url_shortner.repository.ShortUrlRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * "Accept now, validate later": validates links created as PENDING in the background and
+ * marks them VALID or INVALID. A periodic sweep picks up links whose check was lost, e.g. on restart;
+ * it doesn't query at all unless deferred validation is on.
+ */
+@Component
+public class PendingUrlValidator {
+    private static final Logger log = LoggerFactory.getLogger(PendingUrlValidator.class);
+
+    private static final int SWEEP_BATCH_SIZE = 100;
+    private static final Duration SWEEP_GRACE_PERIOD = Duration.ofMinutes(1);
+
+    private final UrlExistenceValidator urlExistenceValidator;
+    private final ShortUrlRepository shortUrlRepository;
+    private final ShortUrlCache shortUrlCache;
+    private final boolean deferred;
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    public PendingUrlValidator(UrlExistenceValidator urlExistenceValidator, ShortUrlRepository shortUrlRepository, ShortUrlCache shortUrlCache,
+                               AppConfigProperties properties) {
+        this.urlExistenceValidator = urlExistenceValidator;
+        this.shortUrlRepository = shortUrlRepository;
+        this.shortUrlCache = shortUrlCache;
+        this.deferred = properties.validateOriginalUrl() && properties.urlValidation().deferred();
+    }
+
+    public void submit(Long shortUrlId, String shortKey, String originalUrl) {
+        if (!inFlight.add(shortUrlId)) {
+            return;
+        }
+        urlExistenceValidator.validate(originalUrl)
+                .thenAccept(valid -> complete(shortUrlId, shortKey, valid))
+                .whenComplete((ignored, error) -> {
+                    inFlight.remove(shortUrlId);
+                    if (error != null) {
+                        log.error("Failed to validate short url {}", shortKey, error);
+                    }
+                });
+    }
+
+    @Scheduled(fixedDelayString = "${app.url-validation.sweep-interval:PT1M}")
+    public void sweep() {
+        if (!deferred) {
+            return;
+        }
+        Instant createdBefore = Instant.now().minus(SWEEP_GRACE_PERIOD);
+        for (ShortUrl shortUrl : shortUrlRepository.findByValidationStatus(ValidationStatus.PENDING, createdBefore, Limit.of(SWEEP_BATCH_SIZE))) {
+            submit(shortUrl.getId(), shortUrl.getShortKey(), shortUrl.getOriginalUrl());
+        }
+    }
+
+    private void complete(Long shortUrlId, String shortKey, boolean valid) {
+        ValidationStatus status = valid ? ValidationStatus.VALID : ValidationStatus.INVALID;
+        shortUrlRepository.updateValidationStatus(shortUrlId, status);
+        if (!valid) {
+            log.info("Original url of short key {} is not reachable, disabling it", shortKey);
+            shortUrlCache.evict(shortKey);
+        }
+    }
+}
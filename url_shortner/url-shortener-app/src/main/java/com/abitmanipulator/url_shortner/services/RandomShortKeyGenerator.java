@@ -0,0 +1,65 @@
+package com.abitmanipulator.url_shortner.services;
+
+import com.abitmanipulator.url_shortner.repository.ShortUrlRepository;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Draws random keys and retries until one is not present in the database.
+ * Costs one existence query per attempt, and attempts grow as the table fills up.
+ */
+public class RandomShortKeyGenerator implements ShortKeyGenerator {
+
+    private static final String CHARACTERS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+    private static final int SHORT_KEY_LENGTH = 6;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final ShortUrlRepository shortUrlRepository;
+
+    public RandomShortKeyGenerator(ShortUrlRepository shortUrlRepository) {
+        this.shortUrlRepository = shortUrlRepository;
+    }
+
+    @Override
+    public String nextKey() {
+        String shortKey ;
+        do{
+            shortKey = generateRandomShortKey();
+        } while(shortUrlRepository.existsByShortKey(shortKey));
+        return shortKey;
+    }
+
+    /**
+     * Draws the whole batch, then checks it against the database with one query per round,
+     * redrawing only the keys that collided.
+     */
+    @Override
+    public List<String> nextKeys(int count) {
+        Set<String> keys = new LinkedHashSet<>(count);
+        Set<String> candidates = new LinkedHashSet<>();
+        while (keys.size() < count) {
+            candidates.clear();
+            while (keys.size() + candidates.size() < count) {
+                String candidate = generateRandomShortKey();
+                if (!keys.contains(candidate)) {
+                    candidates.add(candidate);
+                }
+            }
+            candidates.removeAll(shortUrlRepository.findExistingShortKeys(candidates));
+            keys.addAll(candidates);
+        }
+        return new ArrayList<>(keys);
+    }
+
+    public static String generateRandomShortKey() {
+        StringBuilder sb = new StringBuilder(SHORT_KEY_LENGTH);
+        for (int i = 0; i < SHORT_KEY_LENGTH; i++) {
+            sb.append(CHARACTERS.charAt(RANDOM.nextInt(CHARACTERS.length())));
+        }
+        return sb.toString();
+    }
+}
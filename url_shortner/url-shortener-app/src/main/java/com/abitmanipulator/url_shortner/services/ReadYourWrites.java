@@ -0,0 +1,48 @@
+package com.abitmanipulator.url_shortner.services;
+
+import com.abitmanipulator.url_shortner.AppConfigProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Remembers users who just changed their links, so that their next reads skip the replicas until replication
+ * has caught up, e.g. "My URLs" right after creating one. Anonymous writes are not tracked.
+ * A no-op unless read replicas are enabled.
+ */
+@Component
+public class ReadYourWrites {
+
+    private final Cache<Long, Boolean> recentWriters;
+
+    public ReadYourWrites(AppConfigProperties properties) {
+        AppConfigProperties.ReadReplicas config = properties.readReplicas();
+        Duration window = config.readYourWritesWindow();
+        this.recentWriters = config.enabled() && window.isPositive()
+                ? Caffeine.newBuilder().maximumSize(100_000).expireAfterWrite(window).build()
+                : null;
+    }
+
+    public void markWrite(Long userId) {
+        if (recentWriters != null && userId != null) {
+            recentWriters.put(userId, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Called while picking a connection, so it only looks at the principal and never touches the database.
+     */
+    public boolean isCurrentUserPinned() {
+        if (recentWriters == null) {
+            return false;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null
+                && authentication.getPrincipal() instanceof SecurityUser user
+                && recentWriters.getIfPresent(user.getId()) != null;
+    }
+}
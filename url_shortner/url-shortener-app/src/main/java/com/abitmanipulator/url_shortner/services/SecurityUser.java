@@ -0,0 +1,34 @@
+package com.abitmanipulator.url_shortner.services;
+
+import com.abitmanipulator.url_shortner.domain.models.Role;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.io.Serial;
+import java.util.List;
+
+/**
+ * Principal built once at login, carrying the user id and role so that
+ * request handling can identify the current user without a database lookup.
+ */
+public class SecurityUser extends User {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final Long id;
+    private final Role role;
+
+    public SecurityUser(Long id, String email, String password, Role role) {
+        super(email, password, List.of(new SimpleGrantedAuthority(role.name())));
+        this.id = id;
+        this.role = role;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Role getRole() {
+        return role;
+    }
+}
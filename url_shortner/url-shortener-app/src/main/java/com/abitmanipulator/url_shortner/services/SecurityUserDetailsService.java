@@ -2,14 +2,11 @@ package com.abitmanipulator.url_shortner.services;
 
 import com.abitmanipulator.url_shortner.domain.entities.User;
 import com.abitmanipulator.url_shortner.repository.UserRepository;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-
 @Service
 public class SecurityUserDetailsService implements UserDetailsService {
     private final  UserRepository userRepository;
@@ -22,10 +19,11 @@ public class SecurityUserDetailsService implements UserDetailsService {
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
          User user = userRepository.findByEmail(username)
                  .orElseThrow(()->new UsernameNotFoundException("User not with the email: "+ username));
-        return new org.springframework.security.core.userdetails.User(
+        return new SecurityUser(
+                user.getId(),
                 user.getEmail(),
                 user.getPassword(),
-                List.of(new SimpleGrantedAuthority(user.getRole().name()))
+                user.getRole()
         );
     }
 }
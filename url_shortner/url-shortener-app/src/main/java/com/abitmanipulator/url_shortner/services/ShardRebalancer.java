@@ -0,0 +1,88 @@
+package com.abitmanipulator.url_shortner.services;
+
+import com.abitmanipulator.url_shortner.AppConfigProperties;
+import com.abitmanipulator.url_shortner.domain.models.ShardRebalanceStatus;
+import com.abitmanipulator.url_shortner.repository.ShardedShortUrlRepository;
+import com.abitmanipulator.url_shortner.repository.ShardedShortUrlRepository.MoveResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Online rebalancing after shards were added: walks every shard by id in small batches and moves the rows the
+ * current ring assigns elsewhere, pausing between batches. Lookups keep working throughout (they fall back to the
+ * previous ring), so this runs while serving traffic. When it has finished, drop {@code app.sharding.previous-shard-count}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.sharding", name = "enabled", havingValue = "true")
+public class ShardRebalancer {
+    private static final Logger log = LoggerFactory.getLogger(ShardRebalancer.class);
+
+    private final ShardedShortUrlRepository shardedRepository;
+    private final AppConfigProperties.Sharding config;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile long scanned;
+    private volatile long moved;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    public ShardRebalancer(ShardedShortUrlRepository shardedRepository, AppConfigProperties properties) {
+        this.shardedRepository = shardedRepository;
+        this.config = properties.sharding();
+    }
+
+    /**
+     * Starts a run in the background.
+     * @return false if one is already running
+     */
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        scanned = 0;
+        moved = 0;
+        error = null;
+        startedAt = Instant.now();
+        finishedAt = null;
+        Thread.ofVirtual().name("shard-rebalancer").start(this::run);
+        return true;
+    }
+
+    public ShardRebalanceStatus status() {
+        return new ShardRebalanceStatus(running.get(), shardedRepository.isRebalancing(), shardedRepository.countPerShard(),
+                scanned, moved, startedAt, finishedAt, error);
+    }
+
+    private void run() {
+        try {
+            for (int shard = 0; shard < shardedRepository.shardCount(); shard++) {
+                long afterId = 0;
+                MoveResult result;
+                do {
+                    result = shardedRepository.moveBatch(shard, afterId, config.rebalanceBatchSize());
+                    afterId = result.lastId();
+                    scanned += result.scanned();
+                    moved += result.moved();
+                    if (result.moved() > 0) {
+                        Thread.sleep(config.rebalancePause());
+                    }
+                } while (result.scanned() > 0);
+            }
+            log.info("Shard rebalancing finished: scanned {} rows, moved {}", scanned, moved);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = "interrupted";
+        } catch (RuntimeException e) {
+            log.error("Shard rebalancing failed after moving {} rows; it can be restarted", moved, e);
+            error = e.getMessage();
+        } finally {
+            finishedAt = Instant.now();
+            running.set(false);
+        }
+    }
+}
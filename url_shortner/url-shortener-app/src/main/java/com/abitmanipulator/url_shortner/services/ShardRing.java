@@ -0,0 +1,60 @@
+package com.abitmanipulator.url_shortner.services;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Consistent hash ring mapping short keys to shard indexes 0..shardCount-1.
+ * Each shard owns {@code virtualNodes} points on the ring and a key belongs to the first point at or after its hash,
+ * so going from N to N+1 shards moves only about 1/(N+1) of the keys, all of them onto the new shard.
+ */
+public class ShardRing {
+
+    private final int shardCount;
+    private final long[] points;
+    private final int[] owners;
+
+    public ShardRing(int shardCount, int virtualNodes) {
+        if (shardCount < 1 || virtualNodes < 1) {
+            throw new IllegalArgumentException("shardCount and virtualNodes must be positive");
+        }
+        this.shardCount = shardCount;
+        TreeMap<Long, Integer> ring = new TreeMap<>();
+        for (int shard = 0; shard < shardCount; shard++) {
+            for (int node = 0; node < virtualNodes; node++) {
+                // a point depends only on its own shard, which is what keeps existing points in place when shards are added
+                ring.putIfAbsent(BloomFilter.hash("shard-" + shard + "#" + node), shard);
+            }
+        }
+        this.points = new long[ring.size()];
+        this.owners = new int[ring.size()];
+        int i = 0;
+        for (Map.Entry<Long, Integer> point : ring.entrySet()) {
+            points[i] = point.getKey();
+            owners[i] = point.getValue();
+            i++;
+        }
+    }
+
+    public int shardFor(CharSequence shortKey) {
+        if (shardCount == 1) {
+            return 0;
+        }
+        long hash = BloomFilter.hash(shortKey);
+        int low = 0;
+        int high = points.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (points[mid] < hash) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return owners[low == points.length ? 0 : low];
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+}
@@ -0,0 +1,117 @@
+package com.abitmanipulator.url_shortner.services;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Maps sequential ids to non-guessable, fixed length base62 keys.
+ * The id is first scrambled with a keyed Feistel network over 42 bits, cycle-walking until the result
+ * fits into 62^7, which makes the mapping a bijection on [0, 62^7): distinct ids always give distinct keys.
+ */
+public class ShortKeyEncoder {
+
+    private static final String CHARACTERS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+    public static final int KEY_LENGTH = 7;
+    public static final long KEY_SPACE = pow(CHARACTERS.length(), KEY_LENGTH); // 62^7 ~ 3.5 * 10^12
+
+    private static final int HALF_BITS = 21; // 2^42 is the smallest even power of two above 62^7
+    private static final long HALF_MASK = (1L << HALF_BITS) - 1;
+    private static final int ROUNDS = 4;
+
+    private final long[] roundKeys;
+
+    public ShortKeyEncoder(String secret) {
+        this.roundKeys = deriveRoundKeys(secret);
+    }
+
+    public String encode(long id) {
+        if (id < 0 || id >= KEY_SPACE) {
+            throw new IllegalArgumentException("Id out of short key space: " + id);
+        }
+        long value = permute(id);
+        while (value >= KEY_SPACE) {
+            value = permute(value);
+        }
+        char[] key = new char[KEY_LENGTH];
+        for (int i = KEY_LENGTH - 1; i >= 0; i--) {
+            key[i] = CHARACTERS.charAt((int) (value % CHARACTERS.length()));
+            value /= CHARACTERS.length();
+        }
+        return new String(key);
+    }
+
+    /**
+     * Inverse of {@link #encode(long)}; only used to verify that the mapping is a bijection.
+     */
+    long decode(String key) {
+        if (key.length() != KEY_LENGTH) {
+            throw new IllegalArgumentException("Not a short key: " + key);
+        }
+        long value = 0;
+        for (int i = 0; i < KEY_LENGTH; i++) {
+            int digit = CHARACTERS.indexOf(key.charAt(i));
+            if (digit < 0) {
+                throw new IllegalArgumentException("Not a short key: " + key);
+            }
+            value = value * CHARACTERS.length() + digit;
+        }
+        long id = unpermute(value);
+        while (id >= KEY_SPACE) {
+            id = unpermute(id);
+        }
+        return id;
+    }
+
+    private long permute(long value) {
+        long left = value >>> HALF_BITS;
+        long right = value & HALF_MASK;
+        for (long roundKey : roundKeys) {
+            long next = left ^ (mix(right ^ roundKey) & HALF_MASK);
+            left = right;
+            right = next;
+        }
+        return (left << HALF_BITS) | right;
+    }
+
+    private long unpermute(long value) {
+        long left = value >>> HALF_BITS;
+        long right = value & HALF_MASK;
+        for (int i = roundKeys.length - 1; i >= 0; i--) {
+            long previous = right ^ (mix(left ^ roundKeys[i]) & HALF_MASK);
+            right = left;
+            left = previous;
+        }
+        return (left << HALF_BITS) | right;
+    }
+
+    // splitmix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static long[] deriveRoundKeys(String secret) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(secret.getBytes(StandardCharsets.UTF_8));
+            ByteBuffer buffer = ByteBuffer.wrap(digest);
+            long[] keys = new long[ROUNDS];
+            for (int i = 0; i < ROUNDS; i++) {
+                keys[i] = buffer.getLong();
+            }
+            return keys;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static long pow(long base, int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= base;
+        }
+        return result;
+    }
+}
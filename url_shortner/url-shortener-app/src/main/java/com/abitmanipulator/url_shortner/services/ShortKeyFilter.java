@@ -0,0 +1,179 @@
+package com.abitmanipulator.url_shortner.services;
+
+import com.abitmanipulator.url_shortner.AppConfigProperties;
+import com.abitmanipulator.url_shortner.repository.ShortKeyChannel;
+import com.abitmanipulator.url_shortner.repository.ShortKeyScanRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * In-memory Bloom filter of all live short keys, used to answer requests for unknown keys without a query.
+ * <ul>
+ *     <li>built from a streaming scan of short_urls once the app is up, and rebuilt periodically to forget deleted keys</li>
+ *     <li>keys created on this node are added directly and announced on the {@link ShortKeyChannel}; keys created
+ *     on other nodes arrive on the channel, and a periodic scan of recently created rows catches up on anything missed</li>
+ *     <li>a key is only rejected while the channel is being listened to and a scan has run since listening started;
+ *     before that (startup, lost connection) every key is reported as possibly present</li>
+ * </ul>
+ * Keys created elsewhere can still be rejected for the few milliseconds it takes to deliver their notification.
+ */
+@Component
+public class ShortKeyFilter {
+    private static final Logger log = LoggerFactory.getLogger(ShortKeyFilter.class);
+
+    // rows may commit a while after their created_at was taken
+    private static final Duration REFRESH_OVERLAP = Duration.ofMinutes(1);
+
+    private static final Duration RECONNECT_DELAY = Duration.ofSeconds(5);
+
+    private final ShortKeyScanRepository scanRepository;
+    private final ShortKeyChannel channel;
+    private final AppConfigProperties.KeyFilter config;
+    private final Counter rejections;
+
+    private volatile BloomFilter filter;
+    private volatile BloomFilter building;
+    private volatile Instant lastRefresh;
+    // null while not listening
+    private volatile Instant listeningSince;
+    private final Thread listener;
+
+    public ShortKeyFilter(ShortKeyScanRepository scanRepository, ShortKeyChannel channel, AppConfigProperties properties,
+                          MeterRegistry meterRegistry) {
+        this.scanRepository = scanRepository;
+        this.channel = channel;
+        this.config = properties.keyFilter();
+        this.rejections = Counter.builder("shorturl.key.filter.rejections")
+                .description("Redirects for unknown short keys answered without a database lookup")
+                .register(meterRegistry);
+        Gauge.builder("shorturl.key.filter.false.positive.probability", this, f -> f.filter == null ? 1.0 : f.filter.expectedFalsePositiveProbability())
+                .register(meterRegistry);
+        Gauge.builder("shorturl.key.filter.size.bytes", this, f -> f.filter == null ? 0 : f.filter.bitSize() / 8.0)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("shorturl.key.filter.keys", this, f -> f.filter == null ? 0 : f.filter.approximateSize())
+                .register(meterRegistry);
+        Gauge.builder("shorturl.key.filter.authoritative", this, f -> f.isAuthoritative() ? 1 : 0)
+                .description("1 while the filter may reject keys, 0 while every key falls through to the database")
+                .register(meterRegistry);
+        this.listener = config.enabled() ? Thread.ofPlatform().daemon().name("short-key-listener").start(this::listen) : null;
+    }
+
+    /**
+     * @return false only if the key definitely does not exist
+     */
+    public boolean mightContain(String shortKey) {
+        BloomFilter current = filter;
+        if (!config.enabled() || current == null || !isAuthoritative() || current.mightContain(shortKey)) {
+            return true;
+        }
+        rejections.increment();
+        return false;
+    }
+
+    /**
+     * Adds keys created on this node and announces them to the other nodes.
+     */
+    public void addAll(Collection<String> shortKeys) {
+        if (!config.enabled() || shortKeys.isEmpty()) {
+            return;
+        }
+        shortKeys.forEach(this::put);
+        try {
+            channel.publish(shortKeys);
+        } catch (Exception e) {
+            // other nodes pick the keys up with their next scan; until then they may 404
+            log.warn("Failed to announce {} new short keys", shortKeys.size(), e);
+        }
+    }
+
+    public void add(String shortKey) {
+        addAll(List.of(shortKey));
+    }
+
+    private void put(String shortKey) {
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(shortKey);
+        }
+        BloomFilter next = building;
+        if (next != null) {
+            next.put(shortKey);
+        }
+    }
+
+    @Scheduled(initialDelayString = "PT0S", fixedDelayString = "${app.key-filter.rebuild-interval:PT6H}")
+    public void rebuild() {
+        if (!config.enabled()) {
+            return;
+        }
+        long start = System.nanoTime();
+        Instant scanStart = Instant.now();
+        BloomFilter next = new BloomFilter(config.expectedKeys(), config.falsePositiveProbability());
+        building = next;
+        try {
+            scanRepository.forEachShortKey(next::put);
+            filter = next;
+            lastRefresh = scanStart;
+            log.info("Built short key filter with {} keys in {} ms", next.approximateSize(), (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            log.error("Failed to build short key filter", e);
+        } finally {
+            building = null;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.key-filter.refresh-interval:PT5S}")
+    public void refresh() {
+        BloomFilter current = filter;
+        Instant since = lastRefresh;
+        if (current == null || since == null) {
+            return;
+        }
+        Instant scanStart = Instant.now();
+        scanRepository.forEachShortKeyCreatedSince(since.minus(REFRESH_OVERLAP), current::put);
+        lastRefresh = scanStart;
+    }
+
+    @PreDestroy
+    public void stopListening() {
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    // notifications cover keys committed after listening started, a scan started later covers everything before
+    private boolean isAuthoritative() {
+        Instant since = listeningSince;
+        Instant refreshed = lastRefresh;
+        return since != null && refreshed != null && !refreshed.isBefore(since);
+    }
+
+    private void listen() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                channel.listen(() -> listeningSince = Instant.now(), this::put);
+            } catch (Exception e) {
+                log.warn("Lost the short key channel, falling through to the database until it is back", e);
+            } finally {
+                listeningSince = null;
+            }
+            try {
+                Thread.sleep(RECONNECT_DELAY);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+}
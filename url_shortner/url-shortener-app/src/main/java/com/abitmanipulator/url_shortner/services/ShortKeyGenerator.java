@@ -0,0 +1,32 @@
+package com.abitmanipulator.url_shortner.services;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Strategy for allocating the short key of a new short url.
+ * Implementations must hand out keys that are not in use yet, the caller does not check for collisions.
+ */
+public interface ShortKeyGenerator {
+
+    String nextKey();
+
+    /**
+     * {@code count} distinct unused keys, for bulk creation. Implementations override this when they can
+     * allocate a batch more cheaply than one key at a time.
+     */
+    default List<String> nextKeys(int count) {
+        List<String> keys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            keys.add(nextKey());
+        }
+        return keys;
+    }
+
+    enum Strategy {
+        /** 6 random base62 chars, checked against the database until unused. */
+        RANDOM,
+        /** IDs leased in blocks from a database sequence, permuted and encoded as 7 base62 chars. */
+        BLOCK
+    }
+}
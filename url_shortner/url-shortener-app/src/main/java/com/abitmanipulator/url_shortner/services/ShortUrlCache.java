@@ -0,0 +1,144 @@
+package com.abitmanipulator.url_shortner.services;
+
+import com.abitmanipulator.url_shortner.AppConfigProperties;
+import com.abitmanipulator.url_shortner.domain.models.ShortUrlDto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of short key -> resolved short url, sitting in front of the database on the redirect path.
+ * Only the key -> url mapping is cached; expiry and ownership checks are still done by the caller on every hit.
+ * Hit ratio, evictions and load latency are published as `cache.*` metrics under the name "shortUrls".
+ * Pinned (currently hot) keys weigh nothing, so size-based eviction never removes them; they still expire.
+ * Misses are looked up in the {@link ShortUrlSnapshot} (when enabled) before the loader; evictions remove keys from both.
+ */
+@Component
+public class ShortUrlCache {
+
+    public static final String CACHE_NAME = "shortUrls";
+
+    private final Cache<String, ShortUrlDto> cache;
+    private final ShortUrlSnapshot snapshot;
+    private volatile Set<String> pinned = Set.of();
+
+    public ShortUrlCache(ShortUrlSnapshot snapshot, AppConfigProperties properties, MeterRegistry meterRegistry) {
+        this.snapshot = snapshot;
+        AppConfigProperties.RedirectCache config = properties.redirectCache();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(config.maximumSize())
+                .weigher((String key, ShortUrlDto value) -> pinned.contains(key) ? 0 : 1)
+                .expireAfter(new LinkExpiry(config.ttl()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Returns the cached short url, or takes it from the snapshot, or loads it using the given loader.
+     * Misses (empty results) are not cached.
+     */
+    public Optional<ShortUrlDto> get(String shortKey, Function<String, Optional<ShortUrlDto>> loader) {
+        return Optional.ofNullable(cache.get(shortKey, key -> snapshot.find(key).or(() -> loader.apply(key)).orElse(null)));
+    }
+
+    public void evict(String shortKey) {
+        evictAll(List.of(shortKey));
+    }
+
+    public void evictAll(Collection<String> shortKeys) {
+        cache.invalidateAll(shortKeys);
+        snapshot.removeAll(shortKeys);
+    }
+
+    /**
+     * Drops the keys from this node's cache only, for keys that were just created: the snapshot has no entry to remove,
+     * and recording them as removals would only grow short_url_removals.
+     */
+    public void invalidateAll(Collection<String> shortKeys) {
+        cache.invalidateAll(shortKeys);
+    }
+
+    /**
+     * Replaces the set of pinned keys. Weights are only computed on write, so entries that enter or
+     * leave the set are re-put to pick up their new weight.
+     */
+    public synchronized void pin(Set<String> shortKeys) {
+        Set<String> previous = pinned;
+        Set<String> current = Set.copyOf(shortKeys);
+        if (current.equals(previous)) {
+            return;
+        }
+        pinned = current;
+        Set<String> changed = new HashSet<>(previous);
+        changed.addAll(current);
+        changed.removeIf(key -> previous.contains(key) && current.contains(key));
+        for (String key : changed) {
+            cache.asMap().computeIfPresent(key, (k, value) -> value);
+        }
+    }
+
+    /**
+     * Evicts the keys once the current transaction commits, so that a concurrent reader cannot
+     * re-populate the cache with a row that is about to disappear. Evicts immediately when no transaction is active.
+     */
+    public void evictAllAfterCommit(Collection<String> shortKeys) {
+        if (shortKeys.isEmpty()) {
+            return;
+        }
+        List<String> keys = List.copyOf(shortKeys);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evictAll(keys);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evictAll(keys);
+            }
+        });
+    }
+
+    /**
+     * Entries live for the configured ttl, but never past the link's own expiresAt.
+     */
+    private record LinkExpiry(Duration ttl) implements Expiry<String, ShortUrlDto> {
+
+        @Override
+        public long expireAfterCreate(String key, ShortUrlDto value, long currentTime) {
+            long ttlNanos = ttl.toNanos();
+            if (value.expiresAt() == null) {
+                return ttlNanos;
+            }
+            Duration remaining = Duration.between(Instant.now(), value.expiresAt());
+            if (remaining.isNegative()) {
+                return 0;
+            }
+            return Math.min(ttlNanos, remaining.toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, ShortUrlDto value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, ShortUrlDto value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.abitmanipulator.url_shortner.services;
+
+import com.abitmanipulator.url_shortner.AppConfigProperties;
+import com.abitmanipulator.url_shortner.domain.models.ExportFormat;
+import com.abitmanipulator.url_shortner.domain.models.ShortUrlDto;
+import com.abitmanipulator.url_shortner.repository.ShardedShortUrlRepository;
+import com.abitmanipulator.url_shortner.repository.ShortUrlExportRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes short urls to an output stream as they come off the database cursor, one row at a time,
+ * so heap use does not depend on how many links are exported. When sharded, rows come a page at a time from every shard.
+ */
+@Service
+public class ShortUrlExporter {
+
+    private static final String CSV_HEADER =
+            "id,short_key,short_url,original_url,is_private,expires_at,created_by,click_count,unique_visitors,created_at\n";
+
+    private final ShortUrlExportRepository exportRepository;
+    private final ShardedShortUrlRepository shardedRepository;
+    private final ObjectMapper objectMapper;
+    private final AppConfigProperties properties;
+
+    public ShortUrlExporter(ShortUrlExportRepository exportRepository, ObjectProvider<ShardedShortUrlRepository> shardedRepository,
+                            ObjectMapper objectMapper, AppConfigProperties properties) {
+        this.exportRepository = exportRepository;
+        this.shardedRepository = shardedRepository.getIfAvailable();
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+    }
+
+    /**
+     * @param userId whose links to export, or null for all links
+     */
+    public void export(Long userId, ExportFormat format, boolean gzip, OutputStream out) throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), 64 * 1024);
+        try {
+            if (format == ExportFormat.CSV) {
+                writer.write(CSV_HEADER);
+                forEachShortUrl(userId, shortUrl -> write(() -> writeCsv(writer, shortUrl)));
+            } else {
+                JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                forEachShortUrl(userId, shortUrl -> write(() -> {
+                    objectMapper.writeValue(generator, shortUrl);
+                    generator.flush();
+                    writer.write('\n');
+                }));
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+        if (target instanceof GZIPOutputStream gzipOut) {
+            gzipOut.finish();
+        }
+    }
+
+    private void forEachShortUrl(Long userId, Consumer<ShortUrlDto> consumer) {
+        if (shardedRepository != null) {
+            shardedRepository.forEachShortUrl(userId, consumer);
+        } else {
+            exportRepository.forEachShortUrl(userId, consumer);
+        }
+    }
+
+    private void writeCsv(Writer writer, ShortUrlDto shortUrl) throws IOException {
+        writer.write(String.valueOf(shortUrl.id()));
+        writer.write(',');
+        writer.write(shortUrl.shortKey());
+        writer.write(',');
+        writer.write(csv(properties.baseUrl() + "/s/" + shortUrl.shortKey()));
+        writer.write(',');
+        writer.write(csv(shortUrl.originalUrl()));
+        writer.write(',');
+        writer.write(String.valueOf(shortUrl.isPrivate()));
+        writer.write(',');
+        writer.write(shortUrl.expiresAt() != null ? shortUrl.expiresAt().toString() : "");
+        writer.write(',');
+        writer.write(shortUrl.createdBy() != null ? csv(shortUrl.createdBy().name()) : "");
+        writer.write(',');
+        writer.write(String.valueOf(shortUrl.clickCount()));
+        writer.write(',');
+        writer.write(shortUrl.uniqueVisitors() != null ? shortUrl.uniqueVisitors().toString() : "");
+        writer.write(',');
+        writer.write(shortUrl.createdAt().toString());
+        writer.write('\n');
+    }
+
+    private static String csv(String value) {
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    // the row callback can't throw IOException; tunnel it out and rethrow above
+    private static void write(IoAction action) {
+        try {
+            action.run();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface IoAction {
+        void run() throws IOException;
+    }
+}
@@ -0,0 +1,256 @@
+package com.abitmanipulator.url_shortner.services;
+
+import com.abitmanipulator.url_shortner.AppConfigProperties;
+import com.abitmanipulator.url_shortner.domain.models.ImportReport;
+import com.abitmanipulator.url_shortner.repository.ShardedShortUrlRepository;
+import com.abitmanipulator.url_shortner.repository.ShardedShortUrlRepository.ImportRow;
+import com.abitmanipulator.url_shortner.repository.ShortUrlImportRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Imports links from another shortener, keeping their short keys.
+ * Input is CSV with the columns {@code short_key,original_url,expires_at,owner} (expires_at ISO-8601 or empty,
+ * owner an existing user's email or empty), read as a stream and written through COPY in batches,
+ * so memory stays bounded whatever the input size. Rows whose key is taken are reported, not imported.
+ * When short urls are sharded, each batch goes to the shards instead, every row to the one owning its key.
+ * <p>
+ * Rejected rows: original urls that are not http(s), and keys of exactly 7 base62 characters, which is the space
+ * the BLOCK generator hands out keys from without checking the table: an imported key there would sooner or later
+ * collide with a generated one. (RANDOM keys are checked against the table, so 6-character keys are fine.)
+ */
+@Service
+public class ShortUrlImporter {
+    private static final Logger log = LoggerFactory.getLogger(ShortUrlImporter.class);
+
+    private static final Pattern SHORT_KEY = Pattern.compile("[A-Za-z0-9_-]{1,10}");
+    private static final Pattern GENERATED_KEY = Pattern.compile("[A-Za-z0-9]{" + ShortKeyEncoder.KEY_LENGTH + "}");
+    // a batch only fails when one of its keys was inserted concurrently (partitioned schema); see importBatch
+    private static final int MAX_BATCH_ATTEMPTS = 3;
+    private static final int MAX_SAMPLES = 100;
+
+    private final ShortUrlImportRepository importRepository;
+    private final ShortKeyFilter shortKeyFilter;
+    private final ShortUrlCache shortUrlCache;
+    private final int batchSize;
+    private final ShardedShortUrlRepository shardedRepository;
+    private final Counter importedRows;
+    private final Counter conflictingRows;
+    private final Counter rejectedRows;
+
+    public ShortUrlImporter(ShortUrlImportRepository importRepository, ObjectProvider<ShardedShortUrlRepository> shardedRepository,
+                            ShortKeyFilter shortKeyFilter, ShortUrlCache shortUrlCache,
+                            AppConfigProperties properties, MeterRegistry meterRegistry) {
+        this.importRepository = importRepository;
+        this.shortKeyFilter = shortKeyFilter;
+        this.shortUrlCache = shortUrlCache;
+        this.batchSize = properties.csvImport().batchSize();
+        this.shardedRepository = shardedRepository.getIfAvailable();
+        this.importedRows = Counter.builder("shorturl.import.rows").tag("outcome", "imported").register(meterRegistry);
+        this.conflictingRows = Counter.builder("shorturl.import.rows").tag("outcome", "conflict").register(meterRegistry);
+        this.rejectedRows = Counter.builder("shorturl.import.rows").tag("outcome", "rejected").register(meterRegistry);
+    }
+
+    public ImportReport importCsv(InputStream input) throws IOException {
+        Progress progress = new Progress();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        List<ImportRow> batch = new ArrayList<>(batchSize);
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || (lineNumber == 1 && line.startsWith("short_key"))) {
+                continue;
+            }
+            progress.rowsRead++;
+            String error = parseRow(batch, line);
+            if (error != null) {
+                progress.reject("line " + lineNumber + ": " + error);
+                continue;
+            }
+            if (batch.size() >= batchSize) {
+                flush(batch, progress);
+            }
+        }
+        if (!batch.isEmpty()) {
+            flush(batch, progress);
+        }
+        ImportReport report = progress.report();
+        log.info("Import finished: {} rows read, {} imported, {} key conflicts, {} rejected in {} ms ({} rows/s)",
+                report.rowsRead(), report.imported(), report.conflicts(), report.rejected(),
+                report.elapsedMillis(), report.rowsPerSecond());
+        return report;
+    }
+
+    private void flush(List<ImportRow> batch, Progress progress) {
+        List<String> inserted = shardedRepository != null ? shardedRepository.importRows(batch) : importBatch(toCsv(batch));
+        shortKeyFilter.addAll(inserted);
+        // negative lookups are not cached, but a stale entry for a re-used key must not survive
+        shortUrlCache.invalidateAll(inserted);
+
+        progress.imported += inserted.size();
+        importedRows.increment(inserted.size());
+        if (inserted.size() < batch.size()) {
+            Set<String> insertedKeys = new HashSet<>(inserted);
+            for (ImportRow row : batch) {
+                if (!insertedKeys.remove(row.shortKey())) {
+                    progress.conflict(row.shortKey());
+                    conflictingRows.increment();
+                }
+            }
+        }
+        ImportReport report = progress.report();
+        log.info("Import progress: {} rows read, {} imported, {} key conflicts, {} rejected ({} rows/s)",
+                report.rowsRead(), report.imported(), report.conflicts(), report.rejected(), report.rowsPerSecond());
+        batch.clear();
+    }
+
+    // normalized CSV rows for COPY
+    private static String toCsv(List<ImportRow> batch) {
+        StringBuilder csv = new StringBuilder();
+        for (ImportRow row : batch) {
+            csv.append(row.shortKey()).append(',')
+                    .append(quote(row.originalUrl())).append(',')
+                    .append(row.expiresAt() != null ? row.expiresAt().toString() : "").append(',')
+                    .append(row.owner() != null ? quote(row.owner()) : "").append('\n');
+        }
+        return csv.toString();
+    }
+
+    private List<String> importBatch(String batch) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return importRepository.importBatch(new StringReader(batch));
+            } catch (DuplicateKeyException e) {
+                if (attempt == MAX_BATCH_ATTEMPTS) {
+                    throw e;
+                }
+                // rolled back; the retry sees the concurrently inserted key and skips it as a conflict
+                log.info("Retrying import batch, one of its keys was inserted concurrently: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Validates one input line and adds it to the batch.
+     * @return why the line was rejected, or null
+     */
+    private static String parseRow(List<ImportRow> batch, String line) {
+        List<String> fields = parseCsvLine(line);
+        if (fields == null || fields.size() < 2 || fields.size() > 4) {
+            return "expected short_key,original_url[,expires_at[,owner]]";
+        }
+        String shortKey = fields.get(0).trim();
+        String originalUrl = fields.get(1).trim();
+        String expiresAt = fields.size() > 2 ? fields.get(2).trim() : "";
+        String owner = fields.size() > 3 ? fields.get(3).trim() : "";
+        if (!SHORT_KEY.matcher(shortKey).matches()) {
+            return "invalid short key '" + shortKey + "'";
+        }
+        if (GENERATED_KEY.matcher(shortKey).matches()) {
+            return "short key '" + shortKey + "' is reserved for generated keys (7 letters and digits)";
+        }
+        if (originalUrl.isEmpty()) {
+            return "missing original url";
+        }
+        if (!UrlExistenceValidator.isHttpUrl(originalUrl)) {
+            return "original url must be an absolute http or https url";
+        }
+        Instant expiry = null;
+        if (!expiresAt.isEmpty()) {
+            try {
+                expiry = Instant.parse(expiresAt);
+            } catch (DateTimeParseException e) {
+                return "invalid expires_at '" + expiresAt + "'";
+            }
+        }
+        batch.add(new ImportRow(shortKey, originalUrl, expiry, owner.isEmpty() ? null : owner));
+        return null;
+    }
+
+    // RFC 4180 fields on a single line; null when a quote is left open
+    private static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>(4);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static String quote(String value) {
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private final class Progress {
+        private final long startNanos = System.nanoTime();
+        private long rowsRead;
+        private long imported;
+        private long conflicts;
+        private long rejected;
+        private final List<String> sampleConflicts = new ArrayList<>();
+        private final List<String> sampleRejections = new ArrayList<>();
+
+        void conflict(String shortKey) {
+            conflicts++;
+            if (sampleConflicts.size() < MAX_SAMPLES) {
+                sampleConflicts.add(shortKey);
+            }
+        }
+
+        void reject(String reason) {
+            rejected++;
+            rejectedRows.increment();
+            if (sampleRejections.size() < MAX_SAMPLES) {
+                sampleRejections.add(reason);
+            }
+        }
+
+        ImportReport report() {
+            long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+            return new ImportReport(rowsRead, imported, conflicts, rejected, elapsedMillis,
+                    List.copyOf(sampleConflicts), List.copyOf(sampleRejections));
+        }
+    }
+}
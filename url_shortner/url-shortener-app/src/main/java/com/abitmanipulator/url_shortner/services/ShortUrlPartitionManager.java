@@ -0,0 +1,66 @@
+package com.abitmanipulator.url_shortner.services;
+
+import com.abitmanipulator.url_shortner.AppConfigProperties;
+import com.abitmanipulator.url_shortner.repository.ShortUrlPartitionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Keeps the monthly short_urls partitions ahead of time and drops whole months past their retention,
+ * instead of deleting their rows one by one. A month is only dropped once every link in it has expired;
+ * until then {@link ExpiredShortUrlReaper} purges its rows as usual.
+ * Only active with app.partitioning.enabled (profile "partitioned").
+ */
+@Component
+@ConditionalOnProperty(name = "app.partitioning.enabled", havingValue = "true")
+public class ShortUrlPartitionManager {
+    private static final Logger log = LoggerFactory.getLogger(ShortUrlPartitionManager.class);
+
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("'short_urls_'uuuu_MM");
+
+    private final ShortUrlPartitionRepository partitionRepository;
+    private final AppConfigProperties.Partitioning config;
+    private final boolean archive;
+    private final Counter droppedLinks;
+
+    public ShortUrlPartitionManager(ShortUrlPartitionRepository partitionRepository, AppConfigProperties properties,
+                                    MeterRegistry meterRegistry) {
+        this.partitionRepository = partitionRepository;
+        this.config = properties.partitioning();
+        this.archive = properties.reaper().mode() == ExpiredShortUrlReaper.Mode.ARCHIVE;
+        this.droppedLinks = Counter.builder("shorturl.partitions.dropped.links")
+                .description("Expired short urls removed by dropping their partition")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "PT0S", fixedDelayString = "${app.partitioning.maintenance-interval:PT12H}")
+    public void maintain() {
+        partitionRepository.ensurePartitions(config.monthsAhead());
+
+        Instant retainFrom = Instant.now().minus(config.retention());
+        for (String partition : partitionRepository.findPartitionNames()) {
+            YearMonth month = YearMonth.parse(partition, PARTITION_MONTH);
+            Instant monthEnd = month.plusMonths(1).atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+            if (!monthEnd.isBefore(retainFrom)) {
+                break; // names sort chronologically
+            }
+            if (!partitionRepository.isFullyExpired(partition)) {
+                log.debug("Keeping partition {}: it still holds links that have not expired", partition);
+                continue;
+            }
+            int dropped = partitionRepository.dropPartition(partition, archive);
+            droppedLinks.increment(dropped);
+            log.info("Dropped partition {} ({} expired short urls)", partition, dropped);
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package com.abitmanipulator.url_shortner.services;
+
+import com.abitmanipulator.url_shortner.AppConfigProperties;
+import com.abitmanipulator.url_shortner.domain.entities.ShortUrl;
+import com.abitmanipulator.url_shortner.domain.entities.User;
+import com.abitmanipulator.url_shortner.domain.models.ClickMetadata;
+import com.abitmanipulator.url_shortner.domain.models.CreateShortUrlCmd;
+import com.abitmanipulator.url_shortner.domain.models.PageCursor;
+import com.abitmanipulator.url_shortner.domain.models.PagedResult;
+import com.abitmanipulator.url_shortner.domain.models.ShortUrlDto;
+import com.abitmanipulator.url_shortner.domain.models.ValidationStatus;
+import com.abitmanipulator.url_shortner.repository.ShardedShortUrlRepository;
+import com.abitmanipulator.url_shortner.repository.ShortUrlBulkRepository;
+import com.abitmanipulator.url_shortner.repository.ShortUrlListingRepository;
+import com.abitmanipulator.url_shortner.repository.ShortUrlRepository;
+import com.abitmanipulator.url_shortner.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+@Service
+@Transactional(readOnly = true)
+public class ShortUrlService {
+
+    private final ShortUrlRepository shortUrlRepository;
+    private final ShortUrlListingRepository shortUrlListingRepository;
+    private final ShortUrlBulkRepository shortUrlBulkRepository;
+    private final EntityMapper entityMapper;
+    private final AppConfigProperties properties;
+    private final UserRepository userRepository;
+    private final ShortUrlCache shortUrlCache;
+    private final ShortUrlSnapshot shortUrlSnapshot;
+    private final ClickCounter clickCounter;
+    private final ShortKeyGenerator shortKeyGenerator;
+    private final UrlExistenceValidator urlExistenceValidator;
+    private final PendingUrlValidator pendingUrlValidator;
+    private final TransactionTemplate transactionTemplate;
+    private final ShortKeyFilter shortKeyFilter;
+    private final ClickEventRecorder clickEventRecorder;
+    private final HotKeyTracker hotKeyTracker;
+    private final UniqueVisitorCounter uniqueVisitorCounter;
+    private final ReadYourWrites readYourWrites;
+    // null unless app.sharding.enabled; then short_urls lives on the shards, not in the main database
+    private final ShardedShortUrlRepository shardedRepository;
+    // exact COUNT(*) gets slower as the table grows; page counts only need to be roughly right
+    private final Cache<String, Long> listingTotals = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(Duration.ofMinutes(1))
+            .build();
+
+    public ShortUrlService(ShortUrlRepository shortUrlRepository, ShortUrlListingRepository shortUrlListingRepository, ShortUrlBulkRepository shortUrlBulkRepository, EntityMapper entityMapper, AppConfigProperties properties, UserRepository userRepository, ShortUrlCache shortUrlCache, ShortUrlSnapshot shortUrlSnapshot, ClickCounter clickCounter, ShortKeyGenerator shortKeyGenerator, UrlExistenceValidator urlExistenceValidator, PendingUrlValidator pendingUrlValidator, PlatformTransactionManager transactionManager, ShortKeyFilter shortKeyFilter, ClickEventRecorder clickEventRecorder, HotKeyTracker hotKeyTracker, UniqueVisitorCounter uniqueVisitorCounter, ReadYourWrites readYourWrites, ObjectProvider<ShardedShortUrlRepository> shardedRepository) {
+        this.shortUrlRepository = shortUrlRepository;
+        this.shortUrlListingRepository = shortUrlListingRepository;
+        this.shortUrlBulkRepository = shortUrlBulkRepository;
+        this.entityMapper = entityMapper;
+        this.properties = properties;
+        this.userRepository = userRepository;
+        this.shortUrlCache = shortUrlCache;
+        this.shortUrlSnapshot = shortUrlSnapshot;
+        this.clickCounter = clickCounter;
+        this.shortKeyGenerator = shortKeyGenerator;
+        this.urlExistenceValidator = urlExistenceValidator;
+        this.pendingUrlValidator = pendingUrlValidator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.shortKeyFilter = shortKeyFilter;
+        this.clickEventRecorder = clickEventRecorder;
+        this.hotKeyTracker = hotKeyTracker;
+        this.uniqueVisitorCounter = uniqueVisitorCounter;
+        this.readYourWrites = readYourWrites;
+        this.shardedRepository = shardedRepository.getIfAvailable();
+    }
+
+    public PagedResult<ShortUrlDto> findAllPublicShortUrls(String cursor, int pageNo, int pageSize) {
+        if (shardedRepository != null) {
+            long total = listingTotals.get("public", key -> shardedRepository.countActivePublicShortUrls(Instant.now()));
+            return getKeysetPage(PageCursor.decode(cursor), pageNo, pageSize, total,
+                    shardedRepository::findPublicShortUrlsAfter,
+                    shardedRepository::findPublicShortUrlsBefore);
+        }
+        long total = listingTotals.get("public", key -> shortUrlRepository.countActivePublicShortUrls(Instant.now()));
+        return getKeysetPage(PageCursor.decode(cursor), pageNo, pageSize, total,
+                shortUrlListingRepository::findPublicShortUrlsAfter,
+                shortUrlListingRepository::findPublicShortUrlsBefore);
+    }
+
+    /**
+     * Seeks from the cursor position instead of skipping rows, so every page costs the same however deep it is.
+     * One extra row is fetched to find out whether there is more in the direction of travel.
+     * Rows are projected straight into DTOs, so a page costs exactly one query.
+     */
+    private PagedResult<ShortUrlDto> getKeysetPage(PageCursor cursor, int pageNo, int pageSize, long total,
+                                                   KeysetQuery after, KeysetQuery before) {
+        Limit limit = Limit.of(pageSize + 1);
+        List<ShortUrlDto> rows;
+        boolean hasNext;
+        boolean hasPrevious;
+        if (cursor.direction() == PageCursor.Direction.NEXT) {
+            rows = after.find(cursor.createdAt(), cursor.id(), limit);
+            hasNext = rows.size() > pageSize;
+            hasPrevious = pageNo > 1;
+            rows = rows.subList(0, Math.min(pageSize, rows.size()));
+        } else {
+            rows = new ArrayList<>(before.find(cursor.createdAt(), cursor.id(), limit));
+            hasPrevious = rows.size() > pageSize;
+            rows = rows.subList(0, Math.min(pageSize, rows.size()));
+            Collections.reverse(rows);
+            hasNext = !cursor.equals(PageCursor.last());
+        }
+        if (cursor.equals(PageCursor.last())) {
+            pageNo = (int) Math.max(1, (total + pageSize - 1) / pageSize);
+        }
+        List<ShortUrlDto> data = List.copyOf(rows);
+        String nextCursor = data.isEmpty() ? null : PageCursor.next(data.getLast().createdAt(), data.getLast().id()).encode();
+        String previousCursor = data.isEmpty() ? null : PageCursor.previous(data.getFirst().createdAt(), data.getFirst().id()).encode();
+        return PagedResult.fromKeyset(data, Math.max(pageNo, 1), pageSize, total, hasNext, hasPrevious, nextCursor, previousCursor);
+    }
+
+    @FunctionalInterface
+    private interface KeysetQuery {
+        List<ShortUrlDto> find(Instant createdAt, Long id, Limit limit);
+    }
+
+    // Runs outside any transaction: cache hits never touch the database and clicks are written behind by ClickCounter.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Optional<ShortUrlDto> accessOriginalUrl(String shortKey, Long userId, ClickMetadata clickMetadata) {
+        Optional<ShortUrlDto> shortUrlOpt = findAccessibleShortUrl(shortKey, userId);
+        shortUrlOpt.ifPresent(shortUrl -> {
+            clickCounter.increment(shortUrl.id());
+            clickEventRecorder.record(shortUrl, clickMetadata);
+            hotKeyTracker.record(shortUrl.shortKey());
+            uniqueVisitorCounter.record(shortUrl.id(), clickMetadata.visitorHash());
+        });
+        return shortUrlOpt;
+    }
+
+    /**
+     * Same checks as {@link #accessOriginalUrl(String, Long, ClickMetadata)}, without counting a click.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Optional<ShortUrlDto> findAccessibleShortUrl(String shortKey, Long userId) {
+        if(!shortKeyFilter.mightContain(shortKey)) {
+            return Optional.empty();
+        }
+        Optional<ShortUrlDto> shortUrlOpt = shortUrlCache.get(shortKey, this::loadShortUrl);
+        if(shortUrlOpt.isEmpty()) {
+            return Optional.empty();
+        }
+        ShortUrlDto shortUrl = shortUrlOpt.get();
+        if(shortUrl.isExpired(Instant.now()) || !shortUrl.isAccessibleBy(userId)) {
+            return Optional.empty();
+        }
+        return shortUrlOpt;
+    }
+
+    private Optional<ShortUrlDto> loadShortUrl(String shortKey) {
+        if (shardedRepository != null) {
+            return shardedRepository.findByShortKey(shortKey);
+        }
+        return shortUrlRepository.findByShortKey(shortKey)
+                .filter(shortUrl -> shortUrl.getValidationStatus() != ValidationStatus.INVALID)
+                .map(entityMapper::toShortUrlDto);
+    }
+
+    public PagedResult<ShortUrlDto> getUserShortUrls(Long userId, String cursor, int pageNo, int pageSize) {
+        if (shardedRepository != null) {
+            long total = listingTotals.get("user:" + userId, key -> shardedRepository.countByCreatedById(userId));
+            return getKeysetPage(PageCursor.decode(cursor), pageNo, pageSize, total,
+                    (createdAt, id, limit) -> shardedRepository.findByCreatedByIdAfter(userId, createdAt, id, limit),
+                    (createdAt, id, limit) -> shardedRepository.findByCreatedByIdBefore(userId, createdAt, id, limit));
+        }
+        long total = listingTotals.get("user:" + userId, key -> shortUrlRepository.countByCreatedById(userId));
+        return getKeysetPage(PageCursor.decode(cursor), pageNo, pageSize, total,
+                (createdAt, id, limit) -> shortUrlListingRepository.findByCreatedByIdAfter(userId, createdAt, id, limit),
+                (createdAt, id, limit) -> shortUrlListingRepository.findByCreatedByIdBefore(userId, createdAt, id, limit));
+    }
+
+    @Transactional
+    public void deleteUserShortUrls(List<Long> ids, Long userId) {
+        if (ids != null && !ids.isEmpty() && userId != null) {
+            List<String> shortKeys;
+            if (shardedRepository != null) {
+                shortKeys = shardedRepository.deleteByIdInAndCreatedById(ids, userId);
+            } else {
+                shortKeys = shortUrlRepository.findShortKeysByIdInAndCreatedById(ids, userId);
+                shortUrlRepository.deleteByIdInAndCreatedById(ids, userId);
+            }
+            shortUrlCache.evictAllAfterCommit(shortKeys);
+            readYourWrites.markWrite(userId);
+        }
+    }
+
+    public PagedResult<ShortUrlDto> findAllShortUrls(String cursor, int pageNo, int pageSize) {
+        if (shardedRepository != null) {
+            long total = listingTotals.get("all", key -> shardedRepository.count());
+            return getKeysetPage(PageCursor.decode(cursor), pageNo, pageSize, total,
+                    shardedRepository::findAllShortUrlsAfter,
+                    shardedRepository::findAllShortUrlsBefore);
+        }
+        long total = listingTotals.get("all", key -> shortUrlRepository.count());
+        return getKeysetPage(PageCursor.decode(cursor), pageNo, pageSize, total,
+                shortUrlListingRepository::findAllShortUrlsAfter,
+                shortUrlListingRepository::findAllShortUrlsBefore);
+    }
+
+    // The url check talks to a remote host and may take seconds, so it runs before any
+    // transaction (and pooled connection) is opened; only the insert itself is transactional.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ShortUrlDto createShortUrl(CreateShortUrlCmd cmd) {
+        boolean deferValidation = properties.validateOriginalUrl() && properties.urlValidation().deferred();
+        if(properties.validateOriginalUrl() && !deferValidation) {
+            boolean urlExists = urlExistenceValidator.isUrlExists(cmd.originalUrl());
+            if(!urlExists) {
+                throw new RuntimeException("Invalid URL : "+ cmd.originalUrl() );
+            }
+        }
+
+        var validationStatus = deferValidation ? ValidationStatus.PENDING : ValidationStatus.VALID;
+        ShortUrlDto shortUrlDto = transactionTemplate.execute(status -> saveShortUrl(cmd, validationStatus));
+        readYourWrites.markWrite(cmd.userId());
+        shortKeyFilter.add(shortUrlDto.shortKey());
+        shortUrlSnapshot.add(shortUrlDto);
+        if(deferValidation) {
+            pendingUrlValidator.submit(shortUrlDto.id(), shortUrlDto.shortKey(), shortUrlDto.originalUrl());
+        }
+        return shortUrlDto;
+    }
+
+    private ShortUrlDto saveShortUrl(CreateShortUrlCmd cmd, ValidationStatus validationStatus) {
+        var shortKey = shortKeyGenerator.nextKey();
+        User createdBy = cmd.userId() == null ? null : userRepository.findById(cmd.userId()).orElseThrow();
+        var shortUrl = newShortUrl(cmd, shortKey, createdBy, validationStatus, Instant.now());
+        if (shardedRepository != null) {
+            shardedRepository.insert(shortUrl);
+        } else {
+            shortUrlRepository.save(shortUrl);
+        }
+        return entityMapper.toShortUrlDto(shortUrl);
+    }
+
+    /**
+     * Creates many short urls for one user at once: keys are allocated in bulk and rows inserted with
+     * multi-row statements in a single transaction (when sharded, one insert per shard, undone if another fails),
+     * so either all links are created or none.
+     * Original urls are never checked inline here; with validation on they are created PENDING and checked in the background
+     * (not when sharded: the background check doesn't reach the shards yet).
+     * @return the created short urls, in the order of {@code cmds}
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<ShortUrlDto> createShortUrls(Long userId, List<CreateShortUrlCmd> cmds) {
+        AppConfigProperties.Bulk config = properties.bulk();
+        if (cmds.size() > config.maxLinks()) {
+            throw new IllegalArgumentException("At most " + config.maxLinks() + " links can be created per request");
+        }
+        if (cmds.isEmpty()) {
+            return List.of();
+        }
+        var validationStatus = properties.validateOriginalUrl() ? ValidationStatus.PENDING : ValidationStatus.VALID;
+        User createdBy = userRepository.findById(userId).orElseThrow();
+        List<String> shortKeys = shortKeyGenerator.nextKeys(cmds.size());
+        Instant createdAt = Instant.now();
+        List<ShortUrl> shortUrls = new ArrayList<>(cmds.size());
+        for (int i = 0; i < cmds.size(); i++) {
+            shortUrls.add(newShortUrl(cmds.get(i), shortKeys.get(i), createdBy, validationStatus, createdAt));
+        }
+        if (shardedRepository != null) {
+            shardedRepository.insertAll(shortUrls, config.chunkSize());
+        } else {
+            transactionTemplate.executeWithoutResult(status -> shortUrlBulkRepository.insertAll(shortUrls, config.chunkSize()));
+        }
+        readYourWrites.markWrite(userId);
+
+        List<ShortUrlDto> created = shortUrls.stream().map(entityMapper::toShortUrlDto).toList();
+        shortKeyFilter.addAll(shortKeys);
+        for (ShortUrlDto shortUrlDto : created) {
+            shortUrlSnapshot.add(shortUrlDto);
+            // the validator updates short_urls in the main database; sharded links stay PENDING, which still redirects
+            if (validationStatus == ValidationStatus.PENDING && shardedRepository == null) {
+                pendingUrlValidator.submit(shortUrlDto.id(), shortUrlDto.shortKey(), shortUrlDto.originalUrl());
+            }
+        }
+        return created;
+    }
+
+    private ShortUrl newShortUrl(CreateShortUrlCmd cmd, String shortKey, User createdBy,
+                                 ValidationStatus validationStatus, Instant createdAt) {
+        var shortUrl = new ShortUrl();
+        shortUrl.setOriginalUrl(cmd.originalUrl());
+        shortUrl.setShortKey(shortKey);
+        if(createdBy == null) {
+            shortUrl.setCreatedBy(null);
+            shortUrl.setIsPrivate(false);
+            shortUrl.setExpiresAt(createdAt.plus(properties.defaultExpiryDays(), java.time.temporal.ChronoUnit.DAYS));
+        } else {
+            shortUrl.setCreatedBy(createdBy);
+            shortUrl.setIsPrivate(cmd.isPrivate());
+            shortUrl.setExpiresAt(cmd.expirationInDays() != null ?
+                                    createdAt.plus(cmd.expirationInDays(), java.time.temporal.ChronoUnit.DAYS):
+                                    null
+                                );
+        }
+        shortUrl.setClickCount(0l);
+        shortUrl.setUniqueVisitors(0L);
+        shortUrl.setCreatedAt(createdAt);
+        shortUrl.setValidationStatus(validationStatus);
+        shortUrl.setRedirectType(createdBy == null ? null : cmd.redirectType());
+        return shortUrl;
+    }
+
+}
@@ -0,0 +1,283 @@
+package com.abitmanipulator.url_shortner.services;
+
+import com.abitmanipulator.url_shortner.AppConfigProperties;
+import com.abitmanipulator.url_shortner.domain.models.ShortUrlDto;
+import com.abitmanipulator.url_shortner.repository.ShardedShortUrlRepository;
+import com.abitmanipulator.url_shortner.repository.ShortKeyScanRepository;
+import com.abitmanipulator.url_shortner.repository.ShortUrlRemovalRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Memory-mapped snapshot of every redirect target, consulted by {@link ShortUrlCache} on a miss before the database.
+ * <ul>
+ *     <li>the file of the previous run is mapped on startup, so after a deploy redirects are served from the page cache
+ *     instead of all falling through to Postgres; it is only trusted if that run shut down cleanly</li>
+ *     <li>otherwise (first start, crash, format change) and periodically it is rebuilt from a streaming scan into a
+ *     temporary file, which replaces the old one by an atomic rename only once complete</li>
+ *     <li>links created on this node are added directly, links created elsewhere by a periodic scan of recent rows</li>
+ *     <li>keys evicted from the cache (deleted, reaped, disabled) are removed and logged to short_url_removals;
+ *     the same periodic scan removes the keys logged elsewhere since the file's watermark</li>
+ *     <li>so a mapped file is only served once that scan has caught up, and a file older than the removal log's
+ *     retention is rebuilt instead</li>
+ * </ul>
+ * The database stays the source of truth: keys the snapshot doesn't have are looked up as before.
+ * When short urls are sharded, the scans walk the shards.
+ */
+@Component
+public class ShortUrlSnapshot {
+    private static final Logger log = LoggerFactory.getLogger(ShortUrlSnapshot.class);
+
+    // rows may commit a while after their created_at was taken
+    private static final Duration REFRESH_OVERLAP = Duration.ofMinutes(1);
+
+    private final ShortKeyScanRepository scanRepository;
+    private final ShardedShortUrlRepository shardedRepository;
+    private final ShortUrlRemovalRepository removalRepository;
+    private final AppConfigProperties.Snapshot config;
+    private final Counter hits;
+    private final Counter misses;
+    // guards swapping tables against concurrent adds and removes
+    private final Object lock = new Object();
+    private final Set<String> removedWhileBuilding = new HashSet<>();
+
+    private volatile MappedShortUrlTable table;
+    private volatile MappedShortUrlTable building;
+    private volatile boolean full;
+    // the table has seen every removal up to its watermark
+    private volatile boolean caughtUp;
+
+    public ShortUrlSnapshot(ShortKeyScanRepository scanRepository, ObjectProvider<ShardedShortUrlRepository> shardedRepository,
+                            ShortUrlRemovalRepository removalRepository, AppConfigProperties properties, MeterRegistry meterRegistry) {
+        this.scanRepository = scanRepository;
+        this.shardedRepository = shardedRepository.getIfAvailable();
+        this.removalRepository = removalRepository;
+        this.config = properties.snapshot();
+        this.hits = Counter.builder("shorturl.snapshot.lookups")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("shorturl.snapshot.lookups")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("shorturl.snapshot.links", this, s -> s.table == null ? 0 : s.table.entries())
+                .register(meterRegistry);
+        Gauge.builder("shorturl.snapshot.size.bytes", this, s -> s.table == null ? 0 : s.table.byteSize())
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        if (config.enabled()) {
+            open(Path.of(config.path()));
+        }
+    }
+
+    private void open(Path path) {
+        if (!Files.exists(path)) {
+            return;
+        }
+        MappedShortUrlTable opened;
+        try {
+            opened = MappedShortUrlTable.open(path);
+        } catch (IOException e) {
+            log.warn("Discarding short url snapshot: {}", e.getMessage());
+            return;
+        }
+        if (opened.watermark().isBefore(Instant.now().minus(config.removalRetention()))) {
+            // removals made before the retention are no longer logged
+            log.info("Discarding short url snapshot {}: last refreshed at {}", path, opened.watermark());
+            closeQuietly(opened);
+            return;
+        }
+        table = opened;
+        log.info("Mapped short url snapshot {} with {} links", path, table.entries());
+    }
+
+    public Optional<ShortUrlDto> find(String shortKey) {
+        MappedShortUrlTable current = table;
+        if (current == null || !caughtUp) {
+            return Optional.empty();
+        }
+        Optional<ShortUrlDto> shortUrl = current.find(shortKey);
+        (shortUrl.isPresent() ? hits : misses).increment();
+        return shortUrl;
+    }
+
+    public void add(ShortUrlDto shortUrl) {
+        synchronized (lock) {
+            if (table != null) {
+                put(table, shortUrl);
+            }
+            if (building != null) {
+                put(building, shortUrl);
+            }
+        }
+    }
+
+    /**
+     * Removes the keys here and logs them for the other nodes.
+     */
+    public void removeAll(Collection<String> shortKeys) {
+        if (!config.enabled() || shortKeys.isEmpty()) {
+            return;
+        }
+        remove(shortKeys);
+        try {
+            removalRepository.record(shortKeys);
+        } catch (DataAccessException e) {
+            // the removal itself is done; other nodes keep serving the keys until their next rebuild
+            log.warn("Failed to log {} removed short keys for the other nodes' snapshots", shortKeys.size(), e);
+        }
+    }
+
+    private void remove(Collection<String> shortKeys) {
+        synchronized (lock) {
+            for (String shortKey : shortKeys) {
+                if (table != null) {
+                    table.remove(shortKey);
+                }
+                if (building != null) {
+                    building.remove(shortKey);
+                    // the running scan may still put it back
+                    removedWhileBuilding.add(shortKey);
+                }
+            }
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.snapshot.rebuild-interval:PT1H}", fixedDelayString = "${app.snapshot.rebuild-interval:PT1H}")
+    public synchronized void rebuild() {
+        if (!config.enabled()) {
+            return;
+        }
+        long start = System.nanoTime();
+        Instant scanStart = Instant.now();
+        Path path = Path.of(config.path()).toAbsolutePath();
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        MappedShortUrlTable previous = table;
+        long expectedLinks = Math.max(config.expectedLinks(), previous == null ? 0 : previous.entries() * 2);
+        MappedShortUrlTable next = null;
+        try {
+            Files.createDirectories(path.getParent());
+            Files.deleteIfExists(temporary);
+            next = MappedShortUrlTable.create(temporary, expectedLinks);
+            synchronized (lock) {
+                building = next;
+                removedWhileBuilding.clear();
+            }
+            full = false;
+            MappedShortUrlTable target = next;
+            forEachRedirectTarget(shortUrl -> put(target, shortUrl));
+            next.setWatermark(scanStart);
+            next.force();
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            synchronized (lock) {
+                removedWhileBuilding.forEach(next::remove);
+                removedWhileBuilding.clear();
+                table = next;
+                building = null;
+            }
+            caughtUp = true;
+            log.info("Built short url snapshot with {} links ({} bytes) in {} ms",
+                    next.entries(), next.byteSize(), (System.nanoTime() - start) / 1_000_000);
+            if (previous != null) {
+                previous.close();
+            }
+            removalRepository.deleteRemovedBefore(Instant.now().minus(config.removalRetention()));
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to build short url snapshot", e);
+            synchronized (lock) {
+                if (building == next) {
+                    building = null;
+                }
+            }
+            if (next != null && table != next) {
+                closeQuietly(next);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.snapshot.refresh-interval:PT5S}")
+    public synchronized void refresh() {
+        if (!config.enabled()) {
+            return;
+        }
+        MappedShortUrlTable current = table;
+        if (current == null) {
+            rebuild();
+            return;
+        }
+        Instant scanStart = Instant.now();
+        Instant since = current.watermark().minus(REFRESH_OVERLAP);
+        // removals first: a key removed and then created again (re-imported) is put back by the second scan
+        List<String> removed = new ArrayList<>();
+        removalRepository.forEachRemovedSince(since, removed::add);
+        remove(removed);
+        forEachRedirectTargetCreatedSince(since, this::add);
+        current.setWatermark(scanStart);
+        caughtUp = true;
+    }
+
+    /**
+     * Marks the file clean, so the next start maps it instead of rebuilding.
+     */
+    @PreDestroy
+    public void close() {
+        synchronized (lock) {
+            if (table != null) {
+                closeQuietly(table);
+                table = null;
+            }
+        }
+    }
+
+    private void forEachRedirectTarget(Consumer<ShortUrlDto> consumer) {
+        if (shardedRepository != null) {
+            shardedRepository.forEachRedirectTarget(consumer);
+        } else {
+            scanRepository.forEachRedirectTarget(consumer);
+        }
+    }
+
+    private void forEachRedirectTargetCreatedSince(Instant createdSince, Consumer<ShortUrlDto> consumer) {
+        if (shardedRepository != null) {
+            shardedRepository.forEachRedirectTargetCreatedSince(createdSince, consumer);
+        } else {
+            scanRepository.forEachRedirectTargetCreatedSince(createdSince, consumer);
+        }
+    }
+
+    private void put(MappedShortUrlTable target, ShortUrlDto shortUrl) {
+        if (!target.put(shortUrl) && !full) {
+            full = true;
+            log.warn("Short url snapshot is full; new links are looked up in the database until the next rebuild");
+        }
+    }
+
+    private static void closeQuietly(MappedShortUrlTable table) {
+        try {
+            table.close();
+        } catch (IOException e) {
+            log.warn("Failed to close short url snapshot", e);
+        }
+    }
+}
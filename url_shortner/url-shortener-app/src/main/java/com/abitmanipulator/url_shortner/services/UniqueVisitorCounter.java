@@ -0,0 +1,141 @@
+package com.abitmanipulator.url_shortner.services;
+
+import com.abitmanipulator.url_shortner.AppConfigProperties;
+import com.abitmanipulator.url_shortner.repository.ShardedShortUrlRepository;
+import com.abitmanipulator.url_shortner.repository.ShortUrlVisitorRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Approximate unique visitors per short url.
+ * Redirects add a hash of the visitor (client address + user agent) to an in-memory {@link HyperLogLog}
+ * holding the current period; each flush merges the period sketches into the sketch persisted on short_urls
+ * and stores the new estimate in short_urls.unique_visitors (on the shards holding the links, when sharded).
+ */
+@Component
+public class UniqueVisitorCounter {
+    private static final Logger log = LoggerFactory.getLogger(UniqueVisitorCounter.class);
+
+    private final ConcurrentHashMap<Long, HyperLogLog> pendingSketches = new ConcurrentHashMap<>();
+    private final ShortUrlVisitorRepository visitorRepository;
+    private final ShardedShortUrlRepository shardedRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final AppConfigProperties.UniqueVisitors config;
+
+    public UniqueVisitorCounter(ShortUrlVisitorRepository visitorRepository, ObjectProvider<ShardedShortUrlRepository> shardedRepository,
+                                PlatformTransactionManager transactionManager, AppConfigProperties properties) {
+        this.visitorRepository = visitorRepository;
+        this.shardedRepository = shardedRepository.getIfAvailable();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.config = properties.uniqueVisitors();
+    }
+
+    /**
+     * 64-bit hash identifying a visitor; 0 when nothing is known about the client.
+     * Hashes the two values in place (FNV-1a, finished with the splitmix64 mixer) without concatenating them.
+     */
+    public static long visitorHash(String clientAddress, String userAgent) {
+        if (clientAddress == null && userAgent == null) {
+            return 0;
+        }
+        long h = 0xcbf29ce484222325L;
+        h = fnv(h, clientAddress);
+        h = (h ^ '|') * 0x100000001b3L;
+        h = fnv(h, userAgent);
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        return h ^ (h >>> 31);
+    }
+
+    public void record(Long shortUrlId, long visitorHash) {
+        if (visitorHash == 0) {
+            return;
+        }
+        HyperLogLog sketch = pendingSketches.get(shortUrlId);
+        if (sketch == null) {
+            sketch = pendingSketches.computeIfAbsent(shortUrlId, id -> new HyperLogLog(config.precision()));
+        }
+        sketch.add(visitorHash);
+    }
+
+    @Scheduled(fixedDelayString = "${app.unique-visitors.flush-interval:PT30S}")
+    public synchronized void flush() {
+        List<Map.Entry<Long, HyperLogLog>> batch = new ArrayList<>(config.batchSize());
+        for (Map.Entry<Long, HyperLogLog> entry : pendingSketches.entrySet()) {
+            // a redirect still holding the removed sketch may add to it after this point; such a visitor is only
+            // lost if it never comes back, which is within the error the estimate already has
+            if (pendingSketches.remove(entry.getKey(), entry.getValue())) {
+                batch.add(entry);
+            }
+            if (batch.size() >= config.batchSize()) {
+                write(batch);
+                batch = new ArrayList<>(config.batchSize());
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    @PreDestroy
+    public void drain() {
+        log.info("Flushing pending unique visitor sketches before shutdown");
+        flush();
+    }
+
+    private void write(List<Map.Entry<Long, HyperLogLog>> batch) {
+        Map<Long, HyperLogLog> pending = new LinkedHashMap<>();
+        batch.forEach(entry -> pending.put(entry.getKey(), entry.getValue()));
+        List<Long> ids = List.copyOf(pending.keySet());
+        try {
+            if (shardedRepository != null) {
+                shardedRepository.mergeVisitorSketches(ids, persisted -> merge(pending, persisted));
+            } else {
+                transactionTemplate.executeWithoutResult(status ->
+                        visitorRepository.updateVisitorSketches(merge(pending, visitorRepository.lockVisitorSketches(ids))));
+            }
+        } catch (Exception e) {
+            log.error("Failed to flush {} unique visitor sketches, will retry on next flush", batch.size(), e);
+            for (Map.Entry<Long, HyperLogLog> entry : batch) {
+                pendingSketches.computeIfAbsent(entry.getKey(), id -> new HyperLogLog(config.precision())).merge(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * @param persisted the sketches of the links still there (null where there is none yet); links deleted meanwhile are missing
+     */
+    private static List<Object[]> merge(Map<Long, HyperLogLog> pending, Map<Long, byte[]> persisted) {
+        List<Object[]> updates = new ArrayList<>(persisted.size());
+        persisted.forEach((id, bytes) -> {
+            // after a precision change, continue at the lower one: folding down keeps the lifetime count
+            HyperLogLog sketch = pending.get(id);
+            HyperLogLog merged = bytes != null ? HyperLogLog.union(sketch, HyperLogLog.fromBytes(bytes)) : sketch;
+            updates.add(new Object[]{merged.toBytes(), merged.estimate(), id});
+        });
+        return updates;
+    }
+
+    private static long fnv(long h, String value) {
+        if (value == null) {
+            return h;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+}
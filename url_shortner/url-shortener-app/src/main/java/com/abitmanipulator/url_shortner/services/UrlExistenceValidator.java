@@ -0,0 +1,209 @@
+package com.abitmanipulator.url_shortner.services;
+
+import com.abitmanipulator.url_shortner.AppConfigProperties;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Checks that an original url answers a HEAD request with 2xx/3xx.
+ * Requests go through a non-blocking {@link HttpClient} with a bounded number of in-flight requests per host.
+ * Results are cached per url (negative results for a shorter time) and hosts that refuse or time out
+ * connecting are remembered, so further urls on them fail fast.
+ */
+@Component
+public class UrlExistenceValidator {
+    private static final Logger log = LoggerFactory.getLogger(UrlExistenceValidator.class);
+
+    private final HttpClient httpClient;
+    private final AppConfigProperties.UrlValidation config;
+    private final AsyncCache<String, Boolean> results;
+    private final Cache<String, Boolean> unreachableHosts;
+    private final Cache<String, HostLimiter> hostLimiters;
+
+    public UrlExistenceValidator(AppConfigProperties properties, Environment environment) {
+        this.config = properties.urlValidation();
+        HttpClient.Builder httpClientBuilder = HttpClient.newBuilder()
+                .connectTimeout(config.connectTimeout())
+                .followRedirects(HttpClient.Redirect.NEVER);
+        if (Threading.VIRTUAL.isActive(environment)) {
+            // completion stages (and the validation status updates chained on them) run on virtual threads too
+            httpClientBuilder.executor(Executors.newVirtualThreadPerTaskExecutor());
+        }
+        this.httpClient = httpClientBuilder.build();
+        this.results = Caffeine.newBuilder()
+                .maximumSize(config.maximumSize())
+                .expireAfter(new ResultExpiry(config.positiveTtl(), config.negativeTtl()))
+                .buildAsync();
+        this.unreachableHosts = Caffeine.newBuilder()
+                .maximumSize(config.maximumSize())
+                .expireAfterWrite(config.negativeTtl())
+                .build();
+        this.hostLimiters = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+    }
+
+    /**
+     * Blocking variant, for callers that need the answer before going on.
+     * Must not be called while holding a database connection.
+     */
+    public boolean isUrlExists(String urlString) {
+        return validate(urlString).join();
+    }
+
+    public CompletableFuture<Boolean> validate(String urlString) {
+        return results.get(urlString, (url, executor) -> check(url));
+    }
+
+    /**
+     * Whether the url is absolute, http or https, with a host: the only kind of url a short url may point to.
+     * Checks the syntax only, no request is made.
+     */
+    public static boolean isHttpUrl(String urlString) {
+        try {
+            return isHttpUrl(new URI(urlString));
+        } catch (URISyntaxException e) {
+            return false;
+        }
+    }
+
+    private static boolean isHttpUrl(URI uri) {
+        return uri.getHost() != null
+                && ("http".equalsIgnoreCase(uri.getScheme()) || "https".equalsIgnoreCase(uri.getScheme()));
+    }
+
+    private CompletableFuture<Boolean> check(String urlString) {
+        log.debug("Checking if URL exists: {}", urlString);
+        URI uri;
+        try {
+            uri = new URI(urlString);
+        } catch (Exception e) {
+            log.debug("Invalid URL: {}", urlString);
+            return CompletableFuture.completedFuture(false);
+        }
+        if (!isHttpUrl(uri)) {
+            return CompletableFuture.completedFuture(false);
+        }
+        String host = uri.getHost();
+        if (unreachableHosts.getIfPresent(host) != null) {
+            log.debug("Host {} recently unreachable, rejecting {}", host, urlString);
+            return CompletableFuture.completedFuture(false);
+        }
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                .timeout(config.requestTimeout())
+                .build();
+        HostLimiter limiter = hostLimiters.get(host, h -> new HostLimiter(config.maxConcurrentPerHost()));
+        return limiter.submit(() -> httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()))
+                .handle((response, error) -> {
+                    if (error == null) {
+                        int responseCode = response.statusCode();
+                        return (responseCode >= 200 && responseCode < 400); // 2xx and 3xx are valid
+                    }
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    if (cause instanceof ConnectException || cause instanceof HttpConnectTimeoutException) {
+                        unreachableHosts.put(host, Boolean.TRUE);
+                    }
+                    log.error("Error while checking URL: {}", urlString, cause);
+                    return false; // URL is invalid or not reachable
+                });
+    }
+
+    /**
+     * Non-blocking per-host concurrency limit: requests over the limit are queued
+     * and started when an in-flight request to the same host completes.
+     */
+    private static final class HostLimiter {
+        private final Queue<Runnable> waiting = new ArrayDeque<>();
+        private int available;
+
+        HostLimiter(int permits) {
+            this.available = permits;
+        }
+
+        <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> task) {
+            CompletableFuture<T> result = new CompletableFuture<>();
+            Runnable start = () -> {
+                try {
+                    task.get().whenComplete((value, error) -> {
+                        release();
+                        if (error != null) {
+                            result.completeExceptionally(error);
+                        } else {
+                            result.complete(value);
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    release();
+                    result.completeExceptionally(e);
+                }
+            };
+            boolean startNow;
+            synchronized (this) {
+                startNow = available > 0;
+                if (startNow) {
+                    available--;
+                } else {
+                    waiting.add(start);
+                }
+            }
+            if (startNow) {
+                start.run();
+            }
+            return result;
+        }
+
+        private void release() {
+            Runnable next;
+            synchronized (this) {
+                next = waiting.poll();
+                if (next == null) {
+                    available++;
+                }
+            }
+            if (next != null) {
+                next.run();
+            }
+        }
+    }
+
+    private record ResultExpiry(Duration positiveTtl, Duration negativeTtl) implements Expiry<String, Boolean> {
+
+        @Override
+        public long expireAfterCreate(String key, Boolean valid, long currentTime) {
+            return valid ? positiveTtl.toNanos() : negativeTtl.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Boolean valid, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, valid, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Boolean valid, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -3,14 +3,17 @@ package com.abitmanipulator.url_shortner.web;
 import com.abitmanipulator.url_shortner.domain.Exception.ShortUrlNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
 
 @ControllerAdvice
 public class GlobalExceptionHandler {
     public static final Logger LOGGER = LoggerFactory.getLogger(GlobalExceptionHandler.class);
 
     @ExceptionHandler(ShortUrlNotFoundException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
     String handleShortUrlNotFoundException(ShortUrlNotFoundException ex){
         LOGGER.error("Short Url Not Found: {}", ex.getMessage());
         return "error/404";
@@ -0,0 +1,35 @@
+package com.abitmanipulator.url_shortner.web;
+
+import com.abitmanipulator.url_shortner.domain.models.ShardRebalanceStatus;
+import com.abitmanipulator.url_shortner.services.ShardRebalancer;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * /actuator/shards: rows per shard and rebalancing progress; POST starts a rebalancing run.
+ */
+@Component
+@Endpoint(id = "shards")
+@ConditionalOnProperty(prefix = "app.sharding", name = "enabled", havingValue = "true")
+public class ShardsEndpoint {
+
+    private final ShardRebalancer shardRebalancer;
+
+    public ShardsEndpoint(ShardRebalancer shardRebalancer) {
+        this.shardRebalancer = shardRebalancer;
+    }
+
+    @ReadOperation
+    public ShardRebalanceStatus shards() {
+        return shardRebalancer.status();
+    }
+
+    @WriteOperation
+    public ShardRebalanceStatus rebalance() {
+        shardRebalancer.start();
+        return shardRebalancer.status();
+    }
+}
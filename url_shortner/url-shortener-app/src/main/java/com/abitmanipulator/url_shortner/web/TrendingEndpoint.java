@@ -0,0 +1,28 @@
+package com.abitmanipulator.url_shortner.web;
+
+import com.abitmanipulator.url_shortner.domain.models.HotKey;
+import com.abitmanipulator.url_shortner.services.HotKeyTracker;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * /actuator/trending: the short keys that are hot right now.
+ */
+@Component
+@Endpoint(id = "trending")
+public class TrendingEndpoint {
+
+    private final HotKeyTracker hotKeyTracker;
+
+    public TrendingEndpoint(HotKeyTracker hotKeyTracker) {
+        this.hotKeyTracker = hotKeyTracker;
+    }
+
+    @ReadOperation
+    public List<HotKey> trending() {
+        return hotKeyTracker.trending();
+    }
+}
@@ -0,0 +1,60 @@
+package com.abitmanipulator.url_shortner.web.controller;
+
+import com.abitmanipulator.url_shortner.AppConfigProperties;
+import com.abitmanipulator.url_shortner.domain.models.ExportFormat;
+import com.abitmanipulator.url_shortner.domain.models.PagedResult;
+import com.abitmanipulator.url_shortner.domain.models.ShortUrlDto;
+import com.abitmanipulator.url_shortner.services.ClickRollupService;
+import com.abitmanipulator.url_shortner.services.HotKeyTracker;
+import com.abitmanipulator.url_shortner.services.ShortUrlExporter;
+import com.abitmanipulator.url_shortner.services.ShortUrlService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@Controller
+@RequestMapping("/admin")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminController {
+    private final ShortUrlService shortUrlService;
+    private final AppConfigProperties properties;
+    private final ClickRollupService clickRollupService;
+    private final HotKeyTracker hotKeyTracker;
+    private final ShortUrlExporter shortUrlExporter;
+
+    public AdminController(ShortUrlService shortUrlService, AppConfigProperties properties, ClickRollupService clickRollupService, HotKeyTracker hotKeyTracker, ShortUrlExporter shortUrlExporter) {
+        this.shortUrlService = shortUrlService;
+        this.properties = properties;
+        this.clickRollupService = clickRollupService;
+        this.hotKeyTracker = hotKeyTracker;
+        this.shortUrlExporter = shortUrlExporter;
+    }
+
+    @GetMapping("/dashboard")
+    public String dashboard(
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(required = false) String cursor,
+            Model model) {
+        PagedResult<ShortUrlDto> allUrls = shortUrlService.findAllShortUrls(cursor, page, properties.pageSize());
+        model.addAttribute("shortUrls", allUrls);
+        model.addAttribute("baseUrl", properties.baseUrl());
+        model.addAttribute("paginationUrl", "/admin/dashboard");
+        model.addAttribute("clickTrend", clickRollupService.globalTrend());
+        model.addAttribute("topLinks", clickRollupService.topLinks());
+        model.addAttribute("trending", hotKeyTracker.trending());
+        return "admin-dashboard";
+    }
+
+    // GET /admin/export?format=CSV&gzip=true
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportAll(
+            @RequestParam(defaultValue = "CSV") ExportFormat format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        return ExportResponses.export(shortUrlExporter, "short-urls", null, format, gzip);
+    }
+}
\ No newline at end of file
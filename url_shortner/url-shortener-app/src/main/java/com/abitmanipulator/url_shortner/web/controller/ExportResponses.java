@@ -0,0 +1,29 @@
+package com.abitmanipulator.url_shortner.web.controller;
+
+import com.abitmanipulator.url_shortner.domain.models.ExportFormat;
+import com.abitmanipulator.url_shortner.services.ShortUrlExporter;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+
+/**
+ * Builds the download response for a short url export; the body is written by the exporter on an async thread.
+ */
+final class ExportResponses {
+
+    private ExportResponses() {
+    }
+
+    static ResponseEntity<StreamingResponseBody> export(ShortUrlExporter exporter, String name, Long userId,
+                                                        ExportFormat format, boolean gzip) {
+        String filename = name + "-" + LocalDate.now() + "." + format.extension() + (gzip ? ".gz" : "");
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : format.contentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(out -> exporter.export(userId, format, gzip, out));
+    }
+}
@@ -1,22 +1,25 @@
 package com.abitmanipulator.url_shortner.web.controller;
 
 import com.abitmanipulator.url_shortner.AppConfigProperties;
-import com.abitmanipulator.url_shortner.domain.Exception.ShortUrlNotFoundException;
 import com.abitmanipulator.url_shortner.domain.models.CreateShortUrlCmd;
+import com.abitmanipulator.url_shortner.domain.models.ExportFormat;
 import com.abitmanipulator.url_shortner.domain.models.PagedResult;
 import com.abitmanipulator.url_shortner.domain.models.ShortUrlDto;
+import com.abitmanipulator.url_shortner.services.ClickRollupService;
+import com.abitmanipulator.url_shortner.services.ShortUrlExporter;
 import com.abitmanipulator.url_shortner.services.ShortUrlService;
 import com.abitmanipulator.url_shortner.web.controller.dtos.CreateShortUrlForm;
 import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.util.List;
-import java.util.Optional;
 
 @Controller
 public class HomeController {
@@ -24,11 +27,15 @@ public class HomeController {
     private final ShortUrlService shortUrlService;
     private final AppConfigProperties properties;
     private final SecurityUtils securityUtils;
+    private final ClickRollupService clickRollupService;
+    private final ShortUrlExporter shortUrlExporter;
 
-    public HomeController(ShortUrlService shortUrlService, AppConfigProperties properties, SecurityUtils securityUtils) {
+    public HomeController(ShortUrlService shortUrlService, AppConfigProperties properties, SecurityUtils securityUtils, ClickRollupService clickRollupService, ShortUrlExporter shortUrlExporter) {
         this.shortUrlService = shortUrlService;
         this.properties = properties;
         this.securityUtils = securityUtils;
+        this.clickRollupService = clickRollupService;
+        this.shortUrlExporter = shortUrlExporter;
     }
 
     // GET /?page=1&size=10&sort=createdAt,desc
@@ -36,17 +43,18 @@ public class HomeController {
     public String home(
             @RequestParam(defaultValue = "1")
                     Integer page,
+            @RequestParam(required = false) String cursor,
 //            @PageableDefault(page = 1, size = 10)
 //            Pageable pageable,
             Model model) {
-        fetchAndAddShortUrlsDataToModel(model, page);
+        fetchAndAddShortUrlsDataToModel(model, cursor, page);
         model.addAttribute("createShortUrlForm",
-                new CreateShortUrlForm("", null,false));
+                new CreateShortUrlForm("", null,false, null));
         return "index";
     }
 
-    private void fetchAndAddShortUrlsDataToModel(Model model, int pageNo) {
-        PagedResult<ShortUrlDto> shortUrls = shortUrlService.findAllPublicShortUrls(pageNo, properties.pageSize());
+    private void fetchAndAddShortUrlsDataToModel(Model model, String cursor, int pageNo) {
+        PagedResult<ShortUrlDto> shortUrls = shortUrlService.findAllPublicShortUrls(cursor, pageNo, properties.pageSize());
         model.addAttribute("shortUrls", shortUrls);
         model.addAttribute("baseUrl", properties.baseUrl());
         model.addAttribute("paginationUrl", "/");
@@ -59,7 +67,7 @@ public class HomeController {
                           RedirectAttributes redirectAttributes,
                           Model model) {
         if(bindingResult.hasErrors()) {
-            fetchAndAddShortUrlsDataToModel(model, 1);
+            fetchAndAddShortUrlsDataToModel(model, null, 1);
             return "index";
         }
 
@@ -69,7 +77,8 @@ public class HomeController {
                     form.originalUrl(),
                     form.expirationInDays(),
                     form.isPrivate(),
-                    userId
+                    userId,
+                    form.redirectType()
             );
             var shortUrlDto = shortUrlService.createShortUrl(cmd);
             redirectAttributes.addFlashAttribute("successMessage", "Short url created successfully." +
@@ -80,17 +89,6 @@ public class HomeController {
         return "redirect:/";
     }
 
-    @GetMapping("/s/{shortKey}")
-    String redirectToOriginalUrl(@PathVariable("shortKey") String shortKey, Model model) throws ShortUrlNotFoundException {
-        Long userId = securityUtils.getCurrentUserId();
-        Optional<ShortUrlDto> shortUrlDtoOptional = shortUrlService.accessOriginalUrl(shortKey, userId);
-        if(shortUrlDtoOptional.isEmpty()) {
-            throw new ShortUrlNotFoundException("Invalid short key :"+ shortKey);
-        }
-        ShortUrlDto shortUrlDto = shortUrlDtoOptional.get();
-        return "redirect:"+shortUrlDto.originalUrl();
-    }
-
     @GetMapping("/login")
     String loginForm() {
         return "login";
@@ -100,16 +98,28 @@ public class HomeController {
     @PreAuthorize("isAuthenticated()")
     public String showUserUrls(
             @RequestParam(defaultValue = "1") int page,
+            @RequestParam(required = false) String cursor,
             Model model) {
         var currentUserId = securityUtils.getCurrentUserId();
         PagedResult<ShortUrlDto> myUrls =
-                shortUrlService.getUserShortUrls(currentUserId, page, properties.pageSize());
+                shortUrlService.getUserShortUrls(currentUserId, cursor, page, properties.pageSize());
         model.addAttribute("shortUrls", myUrls);
         model.addAttribute("baseUrl", properties.baseUrl());
         model.addAttribute("paginationUrl", "/my-urls");
+        model.addAttribute("clickTrend", clickRollupService.userTrend(currentUserId));
+        model.addAttribute("topLinks", clickRollupService.userTopLinks(currentUserId));
         return "my-urls";
     }
 
+    // GET /my-urls/export?format=NDJSON&gzip=true
+    @GetMapping("/my-urls/export")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<StreamingResponseBody> exportUserUrls(
+            @RequestParam(defaultValue = "CSV") ExportFormat format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        return ExportResponses.export(shortUrlExporter, "my-urls", securityUtils.getCurrentUserId(), format, gzip);
+    }
+
     @PostMapping("/delete-urls")
     @PreAuthorize("hasAnyRole('USER', 'MODERATOR')")
     public String deleteUrls(
@@ -0,0 +1,76 @@
+package com.abitmanipulator.url_shortner.web.controller;
+
+import com.abitmanipulator.url_shortner.AppConfigProperties;
+import com.abitmanipulator.url_shortner.domain.Exception.ShortUrlNotFoundException;
+import com.abitmanipulator.url_shortner.domain.models.ClickMetadata;
+import com.abitmanipulator.url_shortner.domain.models.ShortUrlDto;
+import com.abitmanipulator.url_shortner.services.RedirectPolicy;
+import com.abitmanipulator.url_shortner.services.ShortUrlService;
+import com.abitmanipulator.url_shortner.services.UniqueVisitorCounter;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import java.util.Locale;
+
+/**
+ * Serves short url redirects by writing the status and Location header directly,
+ * without going through view resolution and RedirectView. Status and Cache-Control come from {@link RedirectPolicy}.
+ * Runs in its own security filter chain that never creates a session.
+ */
+@Controller
+public class RedirectController {
+
+    private final ShortUrlService shortUrlService;
+    private final SecurityUtils securityUtils;
+    private final RedirectPolicy redirectPolicy;
+    private final AppConfigProperties properties;
+
+    public RedirectController(ShortUrlService shortUrlService, SecurityUtils securityUtils, RedirectPolicy redirectPolicy, AppConfigProperties properties) {
+        this.shortUrlService = shortUrlService;
+        this.securityUtils = securityUtils;
+        this.redirectPolicy = redirectPolicy;
+        this.properties = properties;
+    }
+
+    @GetMapping("/s/{shortKey}")
+    ResponseEntity<Void> redirectToOriginalUrl(@PathVariable("shortKey") String shortKey,
+                                               HttpServletRequest request) throws ShortUrlNotFoundException {
+        ShortUrlDto shortUrl = shortUrlService.accessOriginalUrl(shortKey, securityUtils.getCurrentUserId(), clickMetadata(request))
+                .orElseThrow(() -> new ShortUrlNotFoundException("Invalid short key :" + shortKey));
+        return redirect(shortUrl);
+    }
+
+    // link previews and crawlers probe with HEAD; answer the same way but don't count it as a click
+    @RequestMapping(value = "/s/{shortKey}", method = RequestMethod.HEAD)
+    ResponseEntity<Void> headOriginalUrl(@PathVariable("shortKey") String shortKey) throws ShortUrlNotFoundException {
+        ShortUrlDto shortUrl = shortUrlService.findAccessibleShortUrl(shortKey, securityUtils.getCurrentUserId())
+                .orElseThrow(() -> new ShortUrlNotFoundException("Invalid short key :" + shortKey));
+        return redirect(shortUrl);
+    }
+
+    private ClickMetadata clickMetadata(HttpServletRequest request) {
+        String country = request.getHeader(properties.clickEvents().countryHeader());
+        if (country != null) {
+            country = country.length() == 2 ? country.toUpperCase(Locale.ROOT) : null;
+        }
+        String userAgent = request.getHeader(HttpHeaders.USER_AGENT);
+        return new ClickMetadata(
+                request.getHeader(HttpHeaders.REFERER),
+                userAgent,
+                country,
+                UniqueVisitorCounter.visitorHash(request.getRemoteAddr(), userAgent));
+    }
+
+    private ResponseEntity<Void> redirect(ShortUrlDto shortUrl) {
+        return ResponseEntity.status(redirectPolicy.redirectType(shortUrl).status())
+                .cacheControl(redirectPolicy.cacheControl(shortUrl))
+                .header(HttpHeaders.LOCATION, shortUrl.originalUrl())
+                .build();
+    }
+}
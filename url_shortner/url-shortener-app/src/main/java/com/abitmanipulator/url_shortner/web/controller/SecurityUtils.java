@@ -0,0 +1,61 @@
+package com.abitmanipulator.url_shortner.web.controller;
+
+import com.abitmanipulator.url_shortner.domain.entities.User;
+import com.abitmanipulator.url_shortner.repository.UserRepository;
+import com.abitmanipulator.url_shortner.services.SecurityUser;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+@Service
+public class SecurityUtils {
+
+    private final UserRepository userRepository;
+    // for principals that are not a SecurityUser (e.g. sessions created before it existed)
+    private final Cache<String, Long> userIdsByEmail = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(Duration.ofMinutes(1))
+            .build();
+
+    public SecurityUtils(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    public User getCurrentUser() {
+        Authentication authentication = getAuthenticatedUser();
+        if (authentication != null) {
+            String email = authentication.getName();
+            return userRepository.findByEmail(email).orElse(null);
+        }
+        return null;
+    }
+
+    /**
+     * Resolved from the principal built at login, without touching the database.
+     */
+    public Long getCurrentUserId(){
+        Authentication authentication = getAuthenticatedUser();
+        if (authentication == null) {
+            return null;
+        }
+        if (authentication.getPrincipal() instanceof SecurityUser securityUser) {
+            return securityUser.getId();
+        }
+        return userIdsByEmail.get(authentication.getName(),
+                email -> userRepository.findByEmail(email).map(User::getId).orElse(null));
+    }
+
+    private Authentication getAuthenticatedUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication;
+    }
+}
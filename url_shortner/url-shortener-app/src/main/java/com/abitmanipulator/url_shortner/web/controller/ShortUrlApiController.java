@@ -0,0 +1,97 @@
+package com.abitmanipulator.url_shortner.web.controller;
+
+import com.abitmanipulator.url_shortner.AppConfigProperties;
+import com.abitmanipulator.url_shortner.domain.models.CreateShortUrlCmd;
+import com.abitmanipulator.url_shortner.domain.models.ImportReport;
+import com.abitmanipulator.url_shortner.domain.models.ShortUrlDto;
+import com.abitmanipulator.url_shortner.services.ShortUrlImporter;
+import com.abitmanipulator.url_shortner.services.ShortUrlService;
+import com.abitmanipulator.url_shortner.web.controller.dtos.BulkCreateShortUrlsRequest;
+import com.abitmanipulator.url_shortner.web.controller.dtos.BulkCreateShortUrlsResponse;
+import com.abitmanipulator.url_shortner.web.controller.dtos.BulkCreateShortUrlsResponse.CreatedShortUrl;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * JSON API for integrations, authenticated with HTTP Basic (see WebSecurityConfig).
+ */
+@RestController
+@RequestMapping("/api/short-urls")
+@PreAuthorize("isAuthenticated()")
+public class ShortUrlApiController {
+
+    private final ShortUrlService shortUrlService;
+    private final AppConfigProperties properties;
+    private final SecurityUtils securityUtils;
+    private final ShortUrlImporter shortUrlImporter;
+
+    public ShortUrlApiController(ShortUrlService shortUrlService, AppConfigProperties properties, SecurityUtils securityUtils,
+                                 ShortUrlImporter shortUrlImporter) {
+        this.shortUrlService = shortUrlService;
+        this.properties = properties;
+        this.securityUtils = securityUtils;
+        this.shortUrlImporter = shortUrlImporter;
+    }
+
+    // POST /api/short-urls/bulk {"links": [{"originalUrl": "...", "expirationInDays": 30, "isPrivate": false}, ...]}
+    @PostMapping("/bulk")
+    @ResponseStatus(HttpStatus.CREATED)
+    public BulkCreateShortUrlsResponse createShortUrls(@Valid @RequestBody BulkCreateShortUrlsRequest request) {
+        Long userId = securityUtils.getCurrentUserId();
+        List<CreateShortUrlCmd> cmds = request.links().stream()
+                .map(link -> new CreateShortUrlCmd(
+                        link.originalUrl(),
+                        link.expirationInDays(),
+                        Boolean.TRUE.equals(link.isPrivate()),
+                        userId,
+                        link.redirectType()))
+                .toList();
+        List<ShortUrlDto> created = shortUrlService.createShortUrls(userId, cmds);
+        return new BulkCreateShortUrlsResponse(created.stream()
+                .map(shortUrl -> new CreatedShortUrl(
+                        shortUrl.originalUrl(),
+                        shortUrl.shortKey(),
+                        properties.baseUrl() + "/s/" + shortUrl.shortKey(),
+                        shortUrl.expiresAt()))
+                .toList());
+    }
+
+    /**
+     * Streams a CSV of existing links (short_key,original_url,expires_at,owner) into the database, keeping their keys.
+     * curl -u admin:... -H 'Content-Type: text/csv' --data-binary @links.csv .../api/short-urls/import
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ImportReport importShortUrls(HttpServletRequest request) throws IOException {
+        return shortUrlImporter.importCsv(request.getInputStream());
+    }
+
+    // handled here rather than in GlobalExceptionHandler, which renders HTML error pages
+    @ExceptionHandler(MethodArgumentNotValidException.class)
+    ProblemDetail handleValidationException(MethodArgumentNotValidException ex) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, ex.getBindingResult().getAllErrors().stream()
+                .map(error -> error.getDefaultMessage())
+                .distinct()
+                .toList()
+                .toString());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    ProblemDetail handleIllegalArgumentException(IllegalArgumentException ex) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, ex.getMessage());
+    }
+}
@@ -0,0 +1,30 @@
+package com.abitmanipulator.url_shortner.web.controller.dtos;
+
+import com.abitmanipulator.url_shortner.domain.models.RedirectType;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+public record BulkCreateShortUrlsRequest(
+        @NotEmpty(message = "At least one link is required.")
+        List<@Valid Link> links
+) {
+
+    public record Link(
+            @NotBlank(message = "Original URL is required.")
+            String originalUrl,
+
+            @Min(1)
+            @Max(365)
+            Integer expirationInDays,
+
+            Boolean isPrivate,
+
+            RedirectType redirectType
+    ) {
+    }
+}
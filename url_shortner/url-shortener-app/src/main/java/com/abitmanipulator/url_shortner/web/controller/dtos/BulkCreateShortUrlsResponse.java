@@ -0,0 +1,10 @@
+package com.abitmanipulator.url_shortner.web.controller.dtos;
+
+import java.time.Instant;
+import java.util.List;
+
+public record BulkCreateShortUrlsResponse(List<CreatedShortUrl> created) {
+
+    public record CreatedShortUrl(String originalUrl, String shortKey, String shortUrl, Instant expiresAt) {
+    }
+}
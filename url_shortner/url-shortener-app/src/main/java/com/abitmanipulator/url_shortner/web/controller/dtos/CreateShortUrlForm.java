@@ -1,5 +1,6 @@
 package com.abitmanipulator.url_shortner.web.controller.dtos;
 
+import com.abitmanipulator.url_shortner.domain.models.RedirectType;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
@@ -12,7 +13,9 @@ public record CreateShortUrlForm(
             @Max(365)
         Integer expirationInDays,
 
-        Boolean isPrivate
+        Boolean isPrivate,
+
+        RedirectType redirectType
 
         ) {
 }
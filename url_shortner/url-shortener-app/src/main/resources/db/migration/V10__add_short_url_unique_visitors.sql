@@ -0,0 +1,4 @@
+-- HyperLogLog sketch of the link's visitors (see HyperLogLog#toBytes) and its latest estimate.
+-- Adding a nullable column and a column with a constant default are both metadata-only changes.
+ALTER TABLE short_urls ADD COLUMN visitor_sketch BYTEA;
+ALTER TABLE short_urls ADD COLUMN unique_visitors BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,17 @@
+-- Expired short urls moved out of short_urls by ExpiredShortUrlReaper when app.reaper.mode=ARCHIVE.
+-- No constraints or indexes besides the key: the table is only appended to and read for audits.
+CREATE TABLE short_urls_archive
+(
+    id                BIGINT PRIMARY KEY,
+    short_key         VARCHAR(10) NOT NULL,
+    original_url      TEXT        NOT NULL,
+    is_private        BOOLEAN     NOT NULL,
+    expires_at        TIMESTAMP,
+    created_by        BIGINT,
+    click_count       BIGINT      NOT NULL,
+    unique_visitors   BIGINT      NOT NULL,
+    validation_status VARCHAR(10) NOT NULL,
+    redirect_type     VARCHAR(20),
+    created_at        TIMESTAMP   NOT NULL,
+    archived_at       TIMESTAMP   NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
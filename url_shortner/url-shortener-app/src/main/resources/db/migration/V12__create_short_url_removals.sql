@@ -0,0 +1,9 @@
+-- Short keys deleted, purged or disabled, so that nodes drop them from their ShortUrlSnapshot: each node reads the rows
+-- removed since its snapshot's watermark, like it reads the rows created since. Only kept for app.snapshot.removal-retention.
+CREATE TABLE short_url_removals
+(
+    short_key  VARCHAR(10) NOT NULL,
+    removed_at TIMESTAMP   NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_short_url_removals_removed_at ON short_url_removals (removed_at);
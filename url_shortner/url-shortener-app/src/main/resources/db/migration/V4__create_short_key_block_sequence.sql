@@ -0,0 +1,2 @@
+-- Block numbers leased by BlockShortKeyGenerator, one per node start / exhausted block.
+CREATE SEQUENCE short_key_block_seq START WITH 1 INCREMENT BY 1;
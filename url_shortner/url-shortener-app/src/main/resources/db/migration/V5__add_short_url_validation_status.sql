@@ -0,0 +1,5 @@
+ALTER TABLE short_urls
+    ADD COLUMN validation_status VARCHAR(10) NOT NULL DEFAULT 'VALID';
+
+-- the background sweep only ever looks at the (few) pending rows
+CREATE INDEX idx_short_urls_pending_validation ON short_urls (id) WHERE validation_status = 'PENDING';
@@ -0,0 +1,20 @@
+-- Indexes matching the ShortUrlRepository access patterns.
+-- Created CONCURRENTLY so existing tables stay writable; Flyway runs this script outside a transaction.
+-- CONCURRENTLY waits for every open transaction, including Flyway's own lock holder, so the lock must be
+-- session-level: spring.flyway.postgresql.transactional-lock=false (application.properties).
+
+-- public listing: WHERE is_private = false ORDER BY created_at DESC, id DESC (keyset), countActivePublicShortUrls
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_short_urls_public_created_at
+    ON short_urls (created_at DESC, id DESC) WHERE is_private = false;
+
+-- user listing: WHERE created_by = ? ORDER BY created_at DESC, id DESC, countByCreatedById, FK lookups
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_short_urls_created_by_created_at
+    ON short_urls (created_by, created_at DESC, id DESC);
+
+-- admin listing: ORDER BY created_at DESC, id DESC; key filter refresh: WHERE created_at >= ?
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_short_urls_created_at
+    ON short_urls (created_at DESC, id DESC);
+
+-- expiry checks and clean-up: WHERE expires_at < ?
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_short_urls_expires_at
+    ON short_urls (expires_at) WHERE expires_at IS NOT NULL;
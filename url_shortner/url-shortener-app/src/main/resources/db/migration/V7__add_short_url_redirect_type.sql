@@ -0,0 +1,3 @@
+-- NULL: use app.redirect.default-type
+ALTER TABLE short_urls
+    ADD COLUMN redirect_type VARCHAR(20);
@@ -0,0 +1,14 @@
+-- Append-only per-click history, written in batches by ClickEventRecorder.
+-- No foreign key: events outlive deleted links and inserts stay cheap.
+CREATE TABLE click_events
+(
+    short_url_id BIGINT    NOT NULL,
+    clicked_at   TIMESTAMP NOT NULL,
+    referrer     TEXT,
+    user_agent   TEXT,
+    country      CHAR(2)
+);
+
+CREATE INDEX idx_click_events_short_url_clicked_at ON click_events (short_url_id, clicked_at);
+-- rows arrive roughly in clicked_at order, a BRIN index covers time range scans for a few pages
+CREATE INDEX idx_click_events_clicked_at ON click_events USING BRIN (clicked_at);
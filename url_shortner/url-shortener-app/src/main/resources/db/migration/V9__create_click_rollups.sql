@@ -0,0 +1,24 @@
+-- Click counts per time bucket, maintained incrementally by ClickRollupService.
+-- granularity is MINUTE, HOUR or DAY; bucket_start is the UTC start of the bucket.
+CREATE TABLE link_click_rollups
+(
+    short_url_id BIGINT      NOT NULL,
+    granularity  VARCHAR(6)  NOT NULL,
+    bucket_start TIMESTAMP   NOT NULL,
+    owner_id     BIGINT,
+    clicks       BIGINT      NOT NULL,
+    PRIMARY KEY (short_url_id, granularity, bucket_start)
+);
+
+-- per-user trends and top links on my-urls
+CREATE INDEX idx_link_click_rollups_owner ON link_click_rollups (owner_id, granularity, bucket_start);
+-- global top links and compaction
+CREATE INDEX idx_link_click_rollups_bucket ON link_click_rollups (granularity, bucket_start);
+
+CREATE TABLE global_click_rollups
+(
+    granularity  VARCHAR(6) NOT NULL,
+    bucket_start TIMESTAMP  NOT NULL,
+    clicks       BIGINT     NOT NULL,
+    PRIMARY KEY (granularity, bucket_start)
+);
@@ -0,0 +1,110 @@
+-- Opt-in (profile "partitioned"): turns short_urls into a table range-partitioned by created_at month.
+-- Every partition carries its own, bounded, indexes; old months are dropped whole by ShortUrlPartitionManager.
+-- Rewrites the table inside one transaction: on a large table run it in a maintenance window.
+
+-- 1. keep the id sequence, move the old table aside
+ALTER SEQUENCE short_urls_id_seq OWNED BY NONE;
+ALTER TABLE short_urls RENAME TO short_urls_unpartitioned;
+
+CREATE TABLE short_urls
+(
+    id                BIGINT      NOT NULL DEFAULT nextval('short_urls_id_seq'),
+    short_key         VARCHAR(10) NOT NULL,
+    original_url      TEXT        NOT NULL,
+    is_private        BOOLEAN     NOT NULL DEFAULT FALSE,
+    expires_at        TIMESTAMP,
+    created_by        BIGINT,
+    click_count       BIGINT      NOT NULL DEFAULT 0,
+    created_at        TIMESTAMP   NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    validation_status VARCHAR(10) NOT NULL DEFAULT 'VALID',
+    redirect_type     VARCHAR(20),
+    visitor_sketch    BYTEA,
+    unique_visitors   BIGINT      NOT NULL DEFAULT 0,
+    CONSTRAINT fk_short_urls_users FOREIGN KEY (created_by) REFERENCES users (id)
+) PARTITION BY RANGE (created_at);
+
+ALTER SEQUENCE short_urls_id_seq OWNED BY short_urls.id;
+
+-- 2. partition management
+CREATE FUNCTION create_short_urls_partition(month_start DATE) RETURNS TEXT AS
+$$
+DECLARE
+    partition_name TEXT := 'short_urls_' || to_char(month_start, 'YYYY_MM');
+BEGIN
+    EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF short_urls FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, month_start, (month_start + INTERVAL '1 month')::DATE);
+    RETURN partition_name;
+END
+$$ LANGUAGE plpgsql;
+
+-- current month plus the next months_ahead ones
+CREATE FUNCTION ensure_short_urls_partitions(months_ahead INT) RETURNS VOID AS
+$$
+BEGIN
+    FOR i IN 0..months_ahead
+        LOOP
+            PERFORM create_short_urls_partition((date_trunc('month', now()) + make_interval(months => i))::DATE);
+        END LOOP;
+END
+$$ LANGUAGE plpgsql;
+
+DO
+$$
+DECLARE
+    month_start DATE := date_trunc('month', coalesce((SELECT min(created_at) FROM short_urls_unpartitioned), now()))::DATE;
+BEGIN
+    WHILE month_start < date_trunc('month', now()) LOOP
+        PERFORM create_short_urls_partition(month_start);
+        month_start := (month_start + INTERVAL '1 month')::DATE;
+    END LOOP;
+    PERFORM ensure_short_urls_partitions(3);
+END
+$$;
+
+-- 3. short_key must stay unique across partitions, which a partitioned index can't enforce
+--    (it would have to include created_at): a small key table does, maintained by triggers
+CREATE TABLE short_url_keys
+(
+    short_key VARCHAR(10) PRIMARY KEY
+);
+
+CREATE FUNCTION short_url_keys_sync() RETURNS TRIGGER AS
+$$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO short_url_keys (short_key) VALUES (NEW.short_key);
+        RETURN NEW;
+    END IF;
+    DELETE FROM short_url_keys WHERE short_key = OLD.short_key;
+    RETURN OLD;
+END
+$$ LANGUAGE plpgsql;
+
+-- 4. copy the data
+INSERT INTO short_urls (id, short_key, original_url, is_private, expires_at, created_by, click_count, created_at,
+                        validation_status, redirect_type, visitor_sketch, unique_visitors)
+SELECT id, short_key, original_url, is_private, expires_at, created_by, click_count, created_at,
+       validation_status, redirect_type, visitor_sketch, unique_visitors
+FROM short_urls_unpartitioned;
+
+INSERT INTO short_url_keys (short_key)
+SELECT short_key FROM short_urls_unpartitioned;
+
+DROP TABLE short_urls_unpartitioned;
+
+-- a duplicate key fails the insert with a unique violation, as the old UNIQUE constraint did
+CREATE TRIGGER trg_short_urls_keys_insert
+    AFTER INSERT ON short_urls
+    FOR EACH ROW EXECUTE FUNCTION short_url_keys_sync();
+CREATE TRIGGER trg_short_urls_keys_delete
+    AFTER DELETE ON short_urls
+    FOR EACH ROW EXECUTE FUNCTION short_url_keys_sync();
+
+-- 5. keys and indexes, created on the parent and so on every (future) partition
+ALTER TABLE short_urls ADD PRIMARY KEY (id, created_at);
+CREATE INDEX idx_short_urls_short_key ON short_urls (short_key);
+CREATE INDEX idx_short_urls_public_created_at ON short_urls (created_at DESC, id DESC) WHERE is_private = false;
+CREATE INDEX idx_short_urls_created_by_created_at ON short_urls (created_by, created_at DESC, id DESC);
+CREATE INDEX idx_short_urls_created_at ON short_urls (created_at DESC, id DESC);
+CREATE INDEX idx_short_urls_expires_at ON short_urls (expires_at) WHERE expires_at IS NOT NULL;
+CREATE INDEX idx_short_urls_pending_validation ON short_urls (id) WHERE validation_status = 'PENDING';
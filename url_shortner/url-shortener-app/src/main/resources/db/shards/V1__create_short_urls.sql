@@ -0,0 +1,23 @@
+-- short_urls on a shard (app.sharding). Same columns as the main schema, but:
+-- ids are taken from the main database's short_urls_id_seq, so they are unique across shards (no BIGSERIAL here);
+-- users live in the main database only, so created_by has no foreign key.
+CREATE TABLE short_urls
+(
+    id                BIGINT PRIMARY KEY,
+    short_key         VARCHAR(10) NOT NULL UNIQUE,
+    original_url      TEXT        NOT NULL,
+    is_private        BOOLEAN     NOT NULL DEFAULT FALSE,
+    expires_at        TIMESTAMP,
+    created_by        BIGINT,
+    click_count       BIGINT      NOT NULL DEFAULT 0,
+    created_at        TIMESTAMP   NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    validation_status VARCHAR(10) NOT NULL DEFAULT 'VALID',
+    redirect_type     VARCHAR(20),
+    visitor_sketch    BYTEA,
+    unique_visitors   BIGINT      NOT NULL DEFAULT 0
+);
+
+-- listings are scatter-gathered with the same keyset queries as on the main schema
+CREATE INDEX idx_short_urls_public_created_at ON short_urls (created_at DESC, id DESC) WHERE is_private = false;
+CREATE INDEX idx_short_urls_created_by_created_at ON short_urls (created_by, created_at DESC, id DESC);
+CREATE INDEX idx_short_urls_created_at ON short_urls (created_at DESC, id DESC);
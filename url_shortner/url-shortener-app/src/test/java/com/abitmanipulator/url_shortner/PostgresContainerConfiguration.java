@@ -0,0 +1,19 @@
+package com.abitmanipulator.url_shortner;
+
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Bean;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * A throwaway Postgres, same major version as compose.yaml, that the datasource is pointed at.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class PostgresContainerConfiguration {
+
+    @Bean
+    @ServiceConnection
+    PostgreSQLContainer<?> postgresContainer() {
+        return new PostgreSQLContainer<>("postgres:17");
+    }
+}
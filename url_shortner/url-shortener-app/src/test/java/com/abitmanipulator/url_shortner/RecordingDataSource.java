@@ -0,0 +1,143 @@
+package com.abitmanipulator.url_shortner;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records every statement sent through the application's {@link DataSource}, with its parameter bindings,
+ * so tests can count round trips or replay a query under EXPLAIN. Import {@link Configuration} to wrap the
+ * context's datasource.
+ */
+public class RecordingDataSource extends DelegatingDataSource {
+
+    private final List<RecordedStatement> statements = new CopyOnWriteArrayList<>();
+
+    public RecordingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    public List<RecordedStatement> statements() {
+        return List.copyOf(statements);
+    }
+
+    /**
+     * The statements executed by one thread, leaving out what schedulers and listeners ran meanwhile.
+     */
+    public List<RecordedStatement> statementsOn(Thread thread) {
+        return statements.stream().filter(statement -> statement.threadId() == thread.threadId()).toList();
+    }
+
+    public void clear() {
+        statements.clear();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if (result instanceof PreparedStatement statement && method.getName().equals("prepareStatement")) {
+                        return wrap(statement, PreparedStatement.class, (String) args[0]);
+                    }
+                    if (result instanceof Statement statement && method.getName().equals("createStatement")) {
+                        return wrap(statement, Statement.class, null);
+                    }
+                    return result;
+                });
+    }
+
+    private <T extends Statement> T wrap(T statement, Class<T> type, String preparedSql) {
+        TreeMap<Integer, Binding> bindings = new TreeMap<>();
+        List<String> batch = new ArrayList<>();
+        return type.cast(Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                        bindings.put(index, new Binding(method, args));
+                    } else if (name.equals("clearParameters")) {
+                        bindings.clear();
+                    } else if (name.equals("addBatch")) {
+                        batch.add(preparedSql != null ? preparedSql : (String) args[0]);
+                    } else if (name.equals("executeBatch") || name.equals("executeLargeBatch")) {
+                        statements.add(new RecordedStatement(batch.isEmpty() ? preparedSql : batch.getFirst(), List.of(),
+                                Thread.currentThread().threadId()));
+                        batch.clear();
+                    } else if (name.startsWith("execute")) {
+                        String sql = args != null && args.length > 0 ? (String) args[0] : preparedSql;
+                        statements.add(new RecordedStatement(sql, List.copyOf(bindings.values()), Thread.currentThread().threadId()));
+                    }
+                    return invoke(statement, method, args);
+                }));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    /**
+     * A statement as executed; batches are recorded once, without bindings.
+     */
+    public record RecordedStatement(String sql, List<Binding> bindings, long threadId) {
+
+        /**
+         * Sets the recorded parameters on another statement with the same placeholders.
+         */
+        public void bind(PreparedStatement statement) throws SQLException {
+            for (Binding binding : bindings) {
+                try {
+                    binding.method().invoke(statement, binding.args());
+                } catch (ReflectiveOperationException e) {
+                    throw new SQLException("Cannot replay " + binding.method().getName(), e);
+                }
+            }
+        }
+    }
+
+    public record Binding(Method method, Object[] args) {
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    public static class Configuration {
+
+        @Bean
+        static BeanPostProcessor recordingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource && !(bean instanceof RecordingDataSource)) {
+                        return new RecordingDataSource(dataSource);
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.abitmanipulator.url_shortner;
+
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.boot.convert.ApplicationConversionService;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binds {@link AppConfigProperties} the way the application does, defaults included, for tests that don't start a context.
+ */
+public final class TestProperties {
+
+    private TestProperties() {
+    }
+
+    /**
+     * @param keyValues alternating property names (without the "app." prefix) and values
+     */
+    public static AppConfigProperties of(String... keyValues) {
+        Map<String, String> properties = new HashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            properties.put("app." + keyValues[i], keyValues[i + 1]);
+        }
+        Binder binder = new Binder(List.of(new MapConfigurationPropertySource(properties)), null,
+                ApplicationConversionService.getSharedInstance());
+        return binder.bindOrCreate("app", AppConfigProperties.class);
+    }
+}
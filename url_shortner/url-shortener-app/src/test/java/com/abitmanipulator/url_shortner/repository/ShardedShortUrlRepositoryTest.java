@@ -0,0 +1,369 @@
+package com.abitmanipulator.url_shortner.repository;
+
+import com.abitmanipulator.url_shortner.domain.entities.ShortUrl;
+import com.abitmanipulator.url_shortner.domain.models.PageCursor;
+import com.abitmanipulator.url_shortner.domain.models.ShortUrlDto;
+import com.abitmanipulator.url_shortner.repository.ShardedShortUrlRepository.ImportRow;
+import com.abitmanipulator.url_shortner.repository.ShardedShortUrlRepository.MoveResult;
+import com.abitmanipulator.url_shortner.services.HyperLogLog;
+import com.abitmanipulator.url_shortner.services.ShardRing;
+import com.abitmanipulator.url_shortner.services.UniqueVisitorCounter;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the sharded repository against separate Postgres instances: one for the main database (users and the id
+ * sequence), three as shards. Shards are only ever appended, so a test "adds" a shard by building a repository over
+ * three of them with the two-shard ring as the previous one.
+ */
+@Testcontainers
+class ShardedShortUrlRepositoryTest {
+
+    private static final int VIRTUAL_NODES = 128;
+    private static final ShardRing TWO_SHARDS = new ShardRing(2, VIRTUAL_NODES);
+    private static final ShardRing THREE_SHARDS = new ShardRing(3, VIRTUAL_NODES);
+
+    @Container
+    static final PostgreSQLContainer<?> MAIN = new PostgreSQLContainer<>("postgres:17");
+    @Container
+    static final PostgreSQLContainer<?> SHARD_0 = new PostgreSQLContainer<>("postgres:17");
+    @Container
+    static final PostgreSQLContainer<?> SHARD_1 = new PostgreSQLContainer<>("postgres:17");
+    @Container
+    static final PostgreSQLContainer<?> SHARD_2 = new PostgreSQLContainer<>("postgres:17");
+
+    private static JdbcClient main;
+    private static List<DataSource> shardDataSources;
+    private static List<JdbcClient> shards;
+
+    private final List<ShardedShortUrlRepository> repositories = new ArrayList<>();
+
+    @BeforeAll
+    static void createSchemas() {
+        main = JdbcClient.create(dataSource(MAIN));
+        main.sql("CREATE SEQUENCE short_urls_id_seq").update();
+        main.sql("CREATE TABLE users (id BIGSERIAL PRIMARY KEY, email TEXT NOT NULL UNIQUE, name TEXT NOT NULL)").update();
+        shardDataSources = List.of(dataSource(SHARD_0), dataSource(SHARD_1), dataSource(SHARD_2));
+        shardDataSources.forEach(shard -> Flyway.configure().dataSource(shard).locations("classpath:db/shards").load().migrate());
+        shards = shardDataSources.stream().map(JdbcClient::create).toList();
+    }
+
+    @BeforeEach
+    void emptyShards() {
+        shards.forEach(shard -> shard.sql("TRUNCATE short_urls").update());
+        main.sql("TRUNCATE users").update();
+    }
+
+    @AfterEach
+    void shutDown() throws Exception {
+        for (ShardedShortUrlRepository repository : repositories) {
+            repository.destroy();
+        }
+    }
+
+    @Test
+    void insertAllPutsEveryLinkOnTheShardOwningItsKey() {
+        ShardedShortUrlRepository repository = repository(3, 0);
+        List<ShortUrl> links = links(300);
+
+        repository.insertAll(links, 50);
+
+        assertThat(links).extracting(ShortUrl::getId).doesNotContainNull().doesNotHaveDuplicates();
+        assertEveryKeyOnItsShard(THREE_SHARDS);
+        assertThat(repository.countPerShard()).allSatisfy(count -> assertThat(count).isPositive());
+        assertThat(repository.count()).isEqualTo(300);
+        assertThat(repository.findByShortKey("k7")).get().extracting(ShortUrlDto::id).isEqualTo(links.get(7).getId());
+    }
+
+    @Test
+    void insertAllUndoesTheOtherShardsWhenOneFails() {
+        ShardedShortUrlRepository repository = repository(3, 0);
+        repository.insertAll(List.of(link("k5", Instant.now())), 50);
+
+        assertThatThrownBy(() -> repository.insertAll(links(300), 50)).isInstanceOf(DuplicateKeyException.class);
+
+        assertThat(repository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void moveBatchCopiesThenDeletesEveryRowTheNewRingAssignsElsewhere() {
+        repository(2, 0).insertAll(links(300), 100);
+        List<String> moving = IntStream.range(0, 300).mapToObj(i -> "k" + i)
+                .filter(key -> THREE_SHARDS.shardFor(key) == 2)
+                .toList();
+        ShardedShortUrlRepository grown = repository(3, 2);
+        // not moved yet: found on the old shard
+        assertThat(grown.findByShortKey(moving.getFirst())).isPresent();
+
+        int moved = moveAll(grown);
+
+        assertThat(moved).isEqualTo(moving.size());
+        assertEveryKeyOnItsShard(THREE_SHARDS);
+        assertThat(grown.countPerShard()).containsExactly(
+                countOwnedBy(0), countOwnedBy(1), (long) moving.size());
+        assertThat(moving).allSatisfy(key -> assertThat(grown.findByShortKey(key)).isPresent());
+    }
+
+    @Test
+    void moveBatchKeepsTheHigherClickCountOfTheTwoCopies() {
+        // two rows whose copy already reached the new shard before an earlier move was interrupted:
+        // clicks flushed in between reached only the old row (a), or after the copy both (b)
+        List<String> keys = IntStream.range(0, 300).mapToObj(i -> "k" + i)
+                .filter(key -> THREE_SHARDS.shardFor(key) == 2)
+                .limit(2)
+                .toList();
+        String a = keys.get(0);
+        String b = keys.get(1);
+        insertRow(TWO_SHARDS.shardFor(a), 1001, a, 10);
+        insertRow(2, 1001, a, 3);
+        insertRow(TWO_SHARDS.shardFor(b), 1002, b, 10);
+        insertRow(2, 1002, b, 12);
+        ShardedShortUrlRepository grown = repository(3, 2);
+        PageCursor first = PageCursor.first();
+        // on two shards, listed once
+        assertThat(grown.findAllShortUrlsAfter(first.createdAt(), first.id(), Limit.of(10)))
+                .extracting(ShortUrlDto::id).containsExactlyInAnyOrder(1001L, 1002L);
+
+        moveAll(grown);
+
+        assertThat(clickCount(2, 1001)).isEqualTo(10);
+        assertThat(clickCount(2, 1002)).isEqualTo(12);
+        assertThat(grown.countPerShard()).containsExactly(0L, 0L, 2L);
+    }
+
+    @Test
+    void findByIdsGathersTheLinksFromEveryShardOnce() {
+        ShardedShortUrlRepository repository = repository(3, 0);
+        List<ShortUrl> links = links(30);
+        repository.insertAll(links, 50);
+        // copied to another shard by an interrupted move
+        String copied = links.get(3).getShortKey();
+        insertRow((THREE_SHARDS.shardFor(copied) + 1) % 3, links.get(3).getId(), copied, 0);
+        List<Long> ids = links.stream().limit(10).map(ShortUrl::getId).toList();
+
+        assertThat(repository.findByIds(List.of(ids.get(3), ids.get(7), -1L)))
+                .extracting(ShortUrlDto::shortKey).containsExactlyInAnyOrder("k3", "k7");
+        assertThat(repository.findByIds(ids)).extracting(ShortUrlDto::id).containsExactlyInAnyOrderElementsOf(ids);
+        assertThat(repository.findByIds(List.of())).isEmpty();
+    }
+
+    @Test
+    void mergeVisitorSketchesWritesTheShardHoldingEachLink() {
+        ShardedShortUrlRepository repository = repository(3, 0);
+        List<ShortUrl> links = links(30);
+        repository.insertAll(links, 50);
+        List<Long> ids = new ArrayList<>(links.stream().map(ShortUrl::getId).toList());
+        ids.add(999_999L); // deleted meanwhile
+        Map<Long, byte[]> seen = new ConcurrentHashMap<>();
+
+        repository.mergeVisitorSketches(ids, persisted -> {
+            persisted.forEach((id, sketch) -> seen.put(id, sketch == null ? new byte[0] : sketch));
+            // the id as the estimate, to tell the rows apart
+            return persisted.keySet().stream().map(id -> new Object[]{sketch(id), id, id}).toList();
+        });
+
+        assertThat(seen.keySet()).containsExactlyInAnyOrderElementsOf(links.stream().map(ShortUrl::getId).toList());
+        for (ShortUrl link : links) {
+            int owner = THREE_SHARDS.shardFor(link.getShortKey());
+            assertThat(shards.get(owner).sql("SELECT unique_visitors FROM short_urls WHERE id = :id")
+                    .param("id", link.getId()).query(Long.class).single()).isEqualTo(link.getId());
+        }
+        assertThat(repository.findByShortKey("k3")).get().extracting(ShortUrlDto::uniqueVisitors)
+                .isEqualTo(links.get(3).getId());
+    }
+
+    @Test
+    void moveBatchCarriesOverASketchMergedAfterTheCopy() {
+        String key = IntStream.range(0, 300).mapToObj(i -> "k" + i)
+                .filter(k -> THREE_SHARDS.shardFor(k) == 2)
+                .findFirst()
+                .orElseThrow();
+        // copied before an earlier move was interrupted; a flush then reached only the old row
+        HyperLogLog copied = visitors(1, 100);
+        HyperLogLog late = visitors(1, 200);
+        insertRow(TWO_SHARDS.shardFor(key), 1001, key, 0);
+        insertRow(2, 1001, key, 0);
+        setSketch(TWO_SHARDS.shardFor(key), 1001, late);
+        setSketch(2, 1001, copied);
+        ShardedShortUrlRepository grown = repository(3, 2);
+
+        moveAll(grown);
+
+        byte[] moved = shards.get(2).sql("SELECT visitor_sketch FROM short_urls WHERE id = 1001").query(byte[].class).single();
+        assertThat(HyperLogLog.fromBytes(moved).estimate()).isEqualTo(late.estimate());
+        assertThat(grown.countPerShard()).containsExactly(0L, 0L, 1L);
+    }
+
+    @Test
+    void importRowsSkipsTakenKeysAndResolvesOwners() {
+        main.sql("INSERT INTO users (email, name) VALUES ('siva@gmail.com', 'Siva')").update();
+        ShardedShortUrlRepository repository = repository(3, 0);
+        repository.insertAll(List.of(link("taken", Instant.now())), 50);
+
+        List<String> inserted = repository.importRows(List.of(
+                new ImportRow("taken", "https://example.com/taken", null, null),
+                new ImportRow("mine", "https://example.com/mine", null, "siva@gmail.com"),
+                new ImportRow("mine", "https://example.com/again", null, null),
+                new ImportRow("anon", "https://example.com/anon", Instant.parse("2030-01-01T00:00:00Z"), "nobody@example.com")));
+
+        assertThat(inserted).containsExactlyInAnyOrder("mine", "anon");
+        ShortUrlDto mine = repository.findByShortKey("mine").orElseThrow();
+        assertThat(mine.originalUrl()).isEqualTo("https://example.com/mine");
+        assertThat(mine.createdBy().name()).isEqualTo("Siva");
+        assertThat(repository.findByShortKey("anon").orElseThrow().createdBy()).isNull();
+        assertEveryKeyOnItsShard(THREE_SHARDS);
+    }
+
+    @Test
+    void importRowsSkipsKeysStillOnTheirPreviousShard() {
+        String moving = IntStream.range(0, 300).mapToObj(i -> "k" + i)
+                .filter(key -> THREE_SHARDS.shardFor(key) == 2)
+                .findFirst()
+                .orElseThrow();
+        repository(2, 0).insertAll(List.of(link(moving, Instant.now())), 50);
+
+        assertThat(repository(3, 2).importRows(List.of(new ImportRow(moving, "https://example.com/other", null, null))))
+                .isEmpty();
+    }
+
+    @Test
+    void forEachShortUrlWalksAllShardsNewestFirst() {
+        ShardedShortUrlRepository repository = repository(3, 0);
+        List<ShortUrl> links = links(2_500);
+        repository.insertAll(links, 500);
+
+        List<Long> exported = new ArrayList<>();
+        repository.forEachShortUrl(null, shortUrl -> exported.add(shortUrl.id()));
+
+        assertThat(exported).containsExactlyElementsOf(links.stream()
+                .sorted(Comparator.comparing(ShortUrl::getCreatedAt).thenComparing(ShortUrl::getId).reversed())
+                .map(ShortUrl::getId)
+                .toList());
+    }
+
+    @Test
+    void forEachRedirectTargetStreamsEveryShardWithoutDisabledLinks() {
+        ShardedShortUrlRepository repository = repository(3, 0);
+        repository.insertAll(links(300), 100);
+        int owner = THREE_SHARDS.shardFor("k1");
+        shards.get(owner).sql("UPDATE short_urls SET validation_status = 'INVALID' WHERE short_key = 'k1'").update();
+
+        List<String> keys = new ArrayList<>();
+        repository.forEachRedirectTarget(shortUrl -> keys.add(shortUrl.shortKey()));
+
+        assertThat(keys).hasSize(299).doesNotContain("k1");
+    }
+
+    private ShardedShortUrlRepository repository(int shardCount, int previousShardCount) {
+        var repository = new ShardedShortUrlRepository(shardDataSources.subList(0, shardCount), main,
+                new ShardRing(shardCount, VIRTUAL_NODES),
+                previousShardCount > 0 ? new ShardRing(previousShardCount, VIRTUAL_NODES) : null);
+        repositories.add(repository);
+        return repository;
+    }
+
+    // what the rebalancer does, without the pauses
+    private static int moveAll(ShardedShortUrlRepository repository) {
+        int moved = 0;
+        for (int shard = 0; shard < repository.shardCount(); shard++) {
+            long afterId = 0;
+            MoveResult result;
+            do {
+                result = repository.moveBatch(shard, afterId, 40);
+                afterId = result.lastId();
+                moved += result.moved();
+            } while (result.scanned() > 0);
+        }
+        return moved;
+    }
+
+    private static void assertEveryKeyOnItsShard(ShardRing ring) {
+        for (int shard = 0; shard < ring.shardCount(); shard++) {
+            int owner = shard;
+            assertThat(shards.get(shard).sql("SELECT short_key FROM short_urls").query(String.class).list())
+                    .as("keys on shard %d", shard)
+                    .allSatisfy(key -> assertThat(ring.shardFor(key)).isEqualTo(owner));
+        }
+    }
+
+    private static long countOwnedBy(int shard) {
+        return IntStream.range(0, 300).filter(i -> THREE_SHARDS.shardFor("k" + i) == shard).count();
+    }
+
+    private static void insertRow(int shard, long id, String shortKey, long clickCount) {
+        shards.get(shard).sql("""
+                        INSERT INTO short_urls (id, short_key, original_url, click_count, created_at)
+                        VALUES (:id, :shortKey, 'https://example.com', :clickCount, now())
+                        """)
+                .param("id", id)
+                .param("shortKey", shortKey)
+                .param("clickCount", clickCount)
+                .update();
+    }
+
+    private static void setSketch(int shard, long id, HyperLogLog sketch) {
+        shards.get(shard).sql("UPDATE short_urls SET visitor_sketch = :sketch, unique_visitors = :estimate WHERE id = :id")
+                .param("sketch", sketch.toBytes())
+                .param("estimate", sketch.estimate())
+                .param("id", id)
+                .update();
+    }
+
+    private static HyperLogLog visitors(int from, int to) {
+        HyperLogLog sketch = new HyperLogLog(12);
+        IntStream.rangeClosed(from, to).forEach(i -> sketch.add(UniqueVisitorCounter.visitorHash("10.0.0." + i, "curl")));
+        return sketch;
+    }
+
+    private static byte[] sketch(long id) {
+        return visitors(1, (int) (id % 10) + 1).toBytes();
+    }
+
+    private static long clickCount(int shard, long id) {
+        return shards.get(shard).sql("SELECT click_count FROM short_urls WHERE id = :id")
+                .param("id", id)
+                .query(Long.class)
+                .single();
+    }
+
+    // one second apart, newest last
+    private static List<ShortUrl> links(int count) {
+        Instant start = Instant.now().truncatedTo(ChronoUnit.SECONDS).minusSeconds(count);
+        return IntStream.range(0, count).mapToObj(i -> link("k" + i, start.plusSeconds(i))).toList();
+    }
+
+    private static ShortUrl link(String shortKey, Instant createdAt) {
+        var shortUrl = new ShortUrl();
+        shortUrl.setShortKey(shortKey);
+        shortUrl.setOriginalUrl("https://example.com/" + shortKey);
+        shortUrl.setCreatedAt(createdAt);
+        return shortUrl;
+    }
+
+    private static DataSource dataSource(PostgreSQLContainer<?> container) {
+        return new DriverManagerDataSource(container.getJdbcUrl(), container.getUsername(), container.getPassword());
+    }
+}
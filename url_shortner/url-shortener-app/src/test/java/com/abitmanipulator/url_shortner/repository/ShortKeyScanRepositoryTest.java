@@ -0,0 +1,103 @@
+package com.abitmanipulator.url_shortner.repository;
+
+import com.abitmanipulator.url_shortner.RecordingDataSource;
+import com.abitmanipulator.url_shortner.TestProperties;
+import com.abitmanipulator.url_shortner.config.ReadReplicaRoutingDataSource;
+import com.abitmanipulator.url_shortner.services.ReadYourWrites;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The scans must see everything committed before they started, so they may not be routed to a (possibly lagging)
+ * replica. One database stands in for both, each behind its own recording datasource, wired up as ReadReplicaConfig does.
+ */
+@Testcontainers
+class ShortKeyScanRepositoryTest {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:17");
+
+    private static DataSource database;
+
+    private RecordingDataSource primary;
+    private RecordingDataSource replica;
+    private DataSource dataSource;
+    private ShortKeyScanRepository scanRepository;
+
+    @BeforeAll
+    static void createSchema() {
+        database = new DriverManagerDataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+        // the shard schema is the main short_urls table without its foreign keys
+        Flyway.configure().dataSource(database).locations("classpath:db/shards").load().migrate();
+        JdbcClient.create(database).sql("INSERT INTO short_urls (id, short_key, original_url) VALUES (1, 'abc', 'https://example.com')")
+                .update();
+    }
+
+    @BeforeEach
+    void routeThroughReplicas() {
+        primary = new RecordingDataSource(database);
+        replica = new RecordingDataSource(database);
+        var routing = new ReadReplicaRoutingDataSource(primary, Map.of("replica-1", replica),
+                new ReadYourWrites(TestProperties.of()), Duration.ofSeconds(10));
+        routing.afterPropertiesSet();
+        routing.checkReplicas();
+        dataSource = new LazyConnectionDataSourceProxy(routing);
+
+        ProxyFactory proxyFactory = new ProxyFactory(new ShortKeyScanRepository(dataSource));
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(new TransactionInterceptor(new DataSourceTransactionManager(dataSource),
+                new AnnotationTransactionAttributeSource()));
+        scanRepository = (ShortKeyScanRepository) proxyFactory.getProxy();
+        primary.clear();
+        replica.clear();
+    }
+
+    @Test
+    void otherReadOnlyTransactionsGoToTheReplica() {
+        TransactionTemplate readOnly = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        readOnly.setReadOnly(true);
+
+        readOnly.executeWithoutResult(status -> JdbcClient.create(dataSource).sql("SELECT count(*) FROM short_urls").query().singleValue());
+
+        assertThat(replica.statements()).isNotEmpty();
+        assertThat(primary.statements()).isEmpty();
+    }
+
+    @Test
+    void scansReadThePrimary() {
+        List<Object> scanned = new ArrayList<>();
+        Instant longAgo = Instant.parse("2000-01-01T00:00:00Z");
+
+        scanRepository.forEachShortKey(scanned::add);
+        scanRepository.forEachShortKeyCreatedSince(longAgo, scanned::add);
+        scanRepository.forEachRedirectTarget(scanned::add);
+        scanRepository.forEachRedirectTargetCreatedSince(longAgo, scanned::add);
+
+        assertThat(scanned).hasSize(4);
+        assertThat(primary.statements()).hasSize(4)
+                .allSatisfy(statement -> assertThat(statement.sql()).contains("FROM short_urls"));
+        assertThat(replica.statements()).isEmpty();
+    }
+}
@@ -0,0 +1,173 @@
+package com.abitmanipulator.url_shortner.repository;
+
+import com.abitmanipulator.url_shortner.PostgresContainerConfiguration;
+import com.abitmanipulator.url_shortner.RecordingDataSource;
+import com.abitmanipulator.url_shortner.RecordingDataSource.RecordedStatement;
+import com.abitmanipulator.url_shortner.domain.models.ValidationStatus;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.StringJoiner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs each short_urls access pattern against a few hundred thousand synthetic rows and checks, with EXPLAIN on the
+ * statement exactly as it was sent (same SQL, same bind values), that Postgres doesn't scan the whole table.
+ * <p>
+ * Data shape: 1% public links, 10% with an expiry (a few already past it), 0.1% awaiting validation,
+ * links spread evenly over 1000 users and created one minute apart.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({PostgresContainerConfiguration.class, RecordingDataSource.Configuration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ShortUrlQueryPlanTest {
+
+    private static final int LINKS = 400_000;
+    private static final int USERS = 1_000;
+
+    @Autowired
+    private ShortUrlRepository shortUrlRepository;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private RecordingDataSource recording;
+    private JdbcTemplate jdbcTemplate;
+    private ShortUrlListingRepository listingRepository;
+    private ShortKeyScanRepository scanRepository;
+    private ExpiredShortUrlRepository expiredRepository;
+    private long userId;
+    private Instant now;
+
+    @BeforeAll
+    void seed() {
+        recording = (RecordingDataSource) dataSource;
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        listingRepository = new ShortUrlListingRepository(JdbcClient.create(dataSource));
+        scanRepository = new ShortKeyScanRepository(dataSource);
+        expiredRepository = new ExpiredShortUrlRepository(JdbcClient.create(dataSource));
+
+        jdbcTemplate.update("""
+                INSERT INTO users (email, password, name)
+                SELECT 'user' || n || '@example.com', 'secret', 'User ' || n FROM generate_series(1, ?) n
+                """, USERS);
+        userId = jdbcTemplate.queryForObject("SELECT min(id) FROM users WHERE email LIKE 'user%@example.com'", Long.class);
+        jdbcTemplate.update("""
+                INSERT INTO short_urls (short_key, original_url, is_private, expires_at, created_by, created_at, validation_status)
+                SELECT 'q' || n,
+                       'https://example.com/' || n || '/' || repeat('x', 200),
+                       n % 100 <> 0,
+                       CASE WHEN n % 10 = 0 THEN now() + (n % 365 - 10) * interval '1 day' END,
+                       ? + n % ?,
+                       now() - n * interval '1 minute',
+                       CASE WHEN n % 1000 = 0 THEN 'PENDING' ELSE 'VALID' END
+                FROM generate_series(1, ?) n
+                """, userId, USERS, LINKS);
+        jdbcTemplate.execute("VACUUM ANALYZE short_urls");
+        jdbcTemplate.execute("VACUUM ANALYZE users");
+        now = Instant.now();
+    }
+
+    @Test
+    void publicListing() {
+        assertNoFullScan(() -> listingRepository.findPublicShortUrlsAfter(now, Long.MAX_VALUE, Limit.of(10)));
+        assertNoFullScan(() -> listingRepository.findPublicShortUrlsBefore(now.minus(Duration.ofDays(30)), 0L, Limit.of(10)));
+        assertNoFullScan(() -> shortUrlRepository.countActivePublicShortUrls(now));
+        assertNoFullScan(() -> shortUrlRepository.findPublicShortUrls());
+        assertNoFullScan(() -> shortUrlRepository.findByIsPrivateIsFalseOrderByCreatedAtDesc());
+    }
+
+    @Test
+    void userListing() {
+        assertNoFullScan(() -> listingRepository.findByCreatedByIdAfter(userId, now, Long.MAX_VALUE, Limit.of(10)));
+        assertNoFullScan(() -> listingRepository.findByCreatedByIdBefore(userId, now.minus(Duration.ofDays(30)), 0L, Limit.of(10)));
+        assertNoFullScan(() -> shortUrlRepository.countByCreatedById(userId));
+    }
+
+    @Test
+    void adminListing() {
+        assertNoFullScan(() -> listingRepository.findAllShortUrlsAfter(now, Long.MAX_VALUE, Limit.of(10)));
+        assertNoFullScan(() -> listingRepository.findAllShortUrlsBefore(now.minus(Duration.ofDays(30)), 0L, Limit.of(10)));
+    }
+
+    @Test
+    void lookupsByKeyAndId() {
+        assertNoFullScan(() -> shortUrlRepository.findByShortKey("q12345"));
+        assertNoFullScan(() -> shortUrlRepository.existsByShortKey("q12345"));
+        assertNoFullScan(() -> shortUrlRepository.findExistingShortKeys(List.of("q1", "q2", "missing")));
+        assertNoFullScan(() -> shortUrlRepository.findShortKeysByIdInAndCreatedById(List.of(1L, 2L), userId));
+        assertNoFullScan(() -> new TransactionTemplate(transactionManager).executeWithoutResult(
+                status -> shortUrlRepository.deleteByIdInAndCreatedById(List.of(-1L, -2L), userId)));
+    }
+
+    @Test
+    void validationSweep() {
+        assertNoFullScan(() -> shortUrlRepository.findByValidationStatus(ValidationStatus.PENDING, now, Limit.of(100)));
+    }
+
+    @Test
+    void recentlyCreated() {
+        Instant since = now.minus(Duration.ofHours(1));
+        assertNoFullScan(() -> scanRepository.forEachShortKeyCreatedSince(since, shortKey -> { }));
+        assertNoFullScan(() -> scanRepository.forEachRedirectTargetCreatedSince(since, shortUrl -> { }));
+    }
+
+    @Test
+    void expiry() {
+        assertNoFullScan(() -> expiredRepository.findOldestExpiredBefore(now));
+        assertNoFullScan(() -> expiredRepository.deleteBatch(now, Instant.EPOCH, 0, 100));
+    }
+
+    private void assertNoFullScan(Runnable query) {
+        recording.clear();
+        query.run();
+        List<RecordedStatement> statements = recording.statements().stream()
+                .filter(statement -> statement.sql().contains("short_urls"))
+                .toList();
+        assertThat(statements).isNotEmpty();
+        for (RecordedStatement statement : statements) {
+            String plan = explain(statement);
+            assertThat(plan).as("plan of %s", statement.sql()).doesNotContain("Seq Scan on short_urls");
+        }
+    }
+
+    private String explain(RecordedStatement statement) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement explain = connection.prepareStatement("EXPLAIN " + statement.sql())) {
+            statement.bind(explain);
+            StringJoiner plan = new StringJoiner("\n");
+            try (ResultSet rs = explain.executeQuery()) {
+                while (rs.next()) {
+                    plan.add(rs.getString(1));
+                }
+            }
+            return plan.toString();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
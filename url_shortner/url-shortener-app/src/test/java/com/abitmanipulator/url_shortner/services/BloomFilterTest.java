@@ -0,0 +1,55 @@
+package com.abitmanipulator.url_shortner.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+class BloomFilterTest {
+
+    private static final int CAPACITY = 10_000;
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+    @Test
+    void neverReportsAnAddedKeyAsAbsent() {
+        BloomFilter filter = new BloomFilter(CAPACITY, FALSE_POSITIVE_PROBABILITY);
+        IntStream.range(0, CAPACITY).forEach(i -> filter.put("key-" + i));
+
+        assertThat(IntStream.range(0, CAPACITY)).allMatch(i -> filter.mightContain("key-" + i));
+        assertThat(filter.approximateSize()).isEqualTo(CAPACITY);
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTheTargetAtCapacity() {
+        BloomFilter filter = new BloomFilter(CAPACITY, FALSE_POSITIVE_PROBABILITY);
+        IntStream.range(0, CAPACITY).forEach(i -> filter.put("key-" + i));
+
+        double observed = falsePositiveRate(filter);
+        assertThat(observed).isLessThan(FALSE_POSITIVE_PROBABILITY * 1.5);
+        assertThat(filter.expectedFalsePositiveProbability()).isCloseTo(FALSE_POSITIVE_PROBABILITY, offset(0.005));
+    }
+
+    @Test
+    void growsPastItsCapacityWithBoundedError() {
+        BloomFilter filter = new BloomFilter(CAPACITY, FALSE_POSITIVE_PROBABILITY);
+        IntStream.range(0, CAPACITY).forEach(i -> filter.put("key-" + i));
+        long initialBits = filter.bitSize();
+
+        int total = CAPACITY * 15;
+        IntStream.range(CAPACITY, total).forEach(i -> filter.put("key-" + i));
+
+        assertThat(filter.bitSize()).isGreaterThan(initialBits * 4);
+        assertThat(IntStream.range(0, total)).allMatch(i -> filter.mightContain("key-" + i));
+        // segments tighten geometrically, so the overall error stays below p / (1 - 0.5)
+        assertThat(filter.expectedFalsePositiveProbability()).isLessThan(2 * FALSE_POSITIVE_PROBABILITY);
+        assertThat(falsePositiveRate(filter)).isLessThan(2 * FALSE_POSITIVE_PROBABILITY);
+    }
+
+    private static double falsePositiveRate(BloomFilter filter) {
+        int probes = 100_000;
+        long falsePositives = IntStream.range(0, probes).filter(i -> filter.mightContain("absent-" + i)).count();
+        return (double) falsePositives / probes;
+    }
+}
@@ -0,0 +1,114 @@
+package com.abitmanipulator.url_shortner.services;
+
+import com.abitmanipulator.url_shortner.TestProperties;
+import com.abitmanipulator.url_shortner.domain.models.ClickEvent;
+import com.abitmanipulator.url_shortner.domain.models.ClickMetadata;
+import com.abitmanipulator.url_shortner.domain.models.ShortUrlDto;
+import com.abitmanipulator.url_shortner.repository.ClickEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class ClickEventRecorderTest {
+
+    private final ClickEventRepository clickEventRepository = mock(ClickEventRepository.class);
+    private final ClickRollupService clickRollupService = mock(ClickRollupService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ClickEventRecorder recorder = new ClickEventRecorder(clickEventRepository, clickRollupService,
+            mock(PlatformTransactionManager.class), TestProperties.of("click-events.batch-size", "2"), meterRegistry);
+
+    @Test
+    void retriesAFailedBatchBeforeDrainingNewEvents() {
+        doThrow(new DataAccessResourceFailureException("down"))
+                .doThrow(new DataAccessResourceFailureException("down"))
+                .doNothing()
+                .when(clickEventRepository).insertAll(anyList());
+        click(1);
+        click(2);
+        click(3);
+
+        recorder.drain();
+        recorder.drain();
+        assertThat(counter("shorturl.click.events.persisted")).isZero();
+
+        recorder.drain();
+
+        ArgumentCaptor<List<ClickEvent>> batches = batchCaptor();
+        verify(clickEventRepository, times(4)).insertAll(batches.capture());
+        assertThat(batches.getAllValues()).extracting(ids -> ids.stream().map(ClickEvent::shortUrlId).toList())
+                .containsExactly(List.of(1L, 2L), List.of(1L, 2L), List.of(1L, 2L), List.of(3L));
+        assertThat(counter("shorturl.click.events.persisted")).isEqualTo(3);
+        assertThat(counter("shorturl.click.events.failed")).isZero();
+    }
+
+    @Test
+    void givesUpAfterRepeatedFailures() {
+        doThrow(new DataAccessResourceFailureException("down")).when(clickEventRepository).insertAll(anyList());
+        click(1);
+        click(2);
+        click(3);
+
+        for (int i = 0; i < 5; i++) {
+            recorder.drain();
+        }
+        assertThat(counter("shorturl.click.events.failed")).isEqualTo(2);
+
+        doNothing().when(clickEventRepository).insertAll(anyList());
+        recorder.drain();
+
+        assertThat(counter("shorturl.click.events.persisted")).isEqualTo(1);
+        assertThat(counter("shorturl.click.events.failed")).isEqualTo(2);
+    }
+
+    @Test
+    void countsABatchStillFailingAtShutdown() {
+        doThrow(new DataAccessResourceFailureException("down")).when(clickEventRepository).insertAll(anyList());
+        click(1);
+
+        recorder.drainOnShutdown();
+
+        assertThat(counter("shorturl.click.events.failed")).isEqualTo(1);
+    }
+
+    @Test
+    void countsTheEventsStillBufferedBehindAFailingBatchAtShutdown() {
+        doThrow(new DataAccessResourceFailureException("down")).when(clickEventRepository).insertAll(anyList());
+        click(1);
+        click(2);
+        recorder.drain();
+        click(3);
+        click(4);
+        click(5);
+
+        recorder.drainOnShutdown();
+
+        assertThat(counter("shorturl.click.events.failed")).isEqualTo(5);
+    }
+
+    private void click(long shortUrlId) {
+        recorder.record(new ShortUrlDto(shortUrlId, "key" + shortUrlId, "https://example.com", false, null, null,
+                0L, Instant.now(), null, 0L), new ClickMetadata(null, null, null, 0));
+    }
+
+    private double counter(String name) {
+        return meterRegistry.get(name).counter().count();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<List<ClickEvent>> batchCaptor() {
+        return ArgumentCaptor.forClass(List.class);
+    }
+}
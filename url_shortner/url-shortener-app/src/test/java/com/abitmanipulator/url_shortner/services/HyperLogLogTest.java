@@ -0,0 +1,62 @@
+package com.abitmanipulator.url_shortner.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HyperLogLogTest {
+
+    @Test
+    void estimatesDistinctValuesWithinTheStandardError() {
+        HyperLogLog sketch = new HyperLogLog(12);
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < 100_000; i++) {
+            long hash = random.nextLong();
+            sketch.add(hash);
+            sketch.add(hash);
+        }
+
+        // 1.6% standard error at precision 12, allow three of them
+        assertThat(sketch.estimate()).isBetween(95_000L, 105_000L);
+        assertThat(HyperLogLog.fromBytes(sketch.toBytes()).estimate()).isEqualTo(sketch.estimate());
+    }
+
+    @Test
+    void foldingDownIsTheSameAsAddingAtTheLowerPrecision() {
+        HyperLogLog fine = new HyperLogLog(14);
+        HyperLogLog coarse = new HyperLogLog(10);
+        SplittableRandom random = new SplittableRandom(2);
+        for (int i = 0; i < 50_000; i++) {
+            long hash = random.nextLong();
+            fine.add(hash);
+            coarse.add(hash);
+        }
+        // ranks capped by the sentinel bit: all bits below the index are zero
+        fine.add(0x7L << 50);
+        coarse.add(0x7L << 50);
+
+        assertThat(fine.fold(10).toBytes()).isEqualTo(coarse.toBytes());
+        assertThat(fine.fold(14).toBytes()).isEqualTo(fine.toBytes());
+    }
+
+    @Test
+    void mergesSketchesOfDifferentPrecisionsOnceFolded() {
+        HyperLogLog persisted = new HyperLogLog(12);
+        HyperLogLog pending = new HyperLogLog(14);
+        SplittableRandom random = new SplittableRandom(3);
+        for (int i = 0; i < 20_000; i++) {
+            persisted.add(random.nextLong());
+            pending.add(random.nextLong());
+        }
+
+        HyperLogLog merged = pending.fold(12);
+        merged.merge(persisted);
+
+        assertThat(merged.estimate()).isBetween(38_000L, 42_000L);
+        assertThatThrownBy(() -> persisted.merge(pending)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> persisted.fold(14)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
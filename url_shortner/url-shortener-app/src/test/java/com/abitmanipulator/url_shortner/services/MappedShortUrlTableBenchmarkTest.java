@@ -0,0 +1,122 @@
+package com.abitmanipulator.url_shortner.services;
+
+import com.abitmanipulator.url_shortner.domain.models.ShortUrlDto;
+import com.abitmanipulator.url_shortner.domain.models.UserDto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Lookup latency and retained heap of the memory-mapped snapshot against the same links in an on-heap HashMap.
+ * A mapped lookup decodes a new ShortUrlDto every time, a map lookup returns a stored one; in exchange the mapped
+ * links live in the page cache, not on the heap, and survive a restart.
+ * Run with {@code mvn test -Dtest=MappedShortUrlTableBenchmarkTest -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class MappedShortUrlTableBenchmarkTest {
+
+    private static final int LINKS = 1_000_000;
+    private static final int LOOKUPS = 2_000_000;
+    private static final int SAMPLES = 200_000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void mappedLookupsKeepTheLinksOffTheHeap() throws IOException {
+        ShortKeyEncoder encoder = new ShortKeyEncoder("benchmark");
+        String[] keys = new String[LINKS];
+        for (int i = 0; i < LINKS; i++) {
+            keys[i] = encoder.encode(i);
+        }
+        String[] probes = new String[LOOKUPS];
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < LOOKUPS; i++) {
+            // a fresh String per lookup, as a request would bring
+            probes[i] = new String(keys[random.nextInt(LINKS)]);
+        }
+
+        long baseline = usedHeap();
+        Map<String, ShortUrlDto> map = new HashMap<>();
+        for (int i = 0; i < LINKS; i++) {
+            map.put(keys[i], link(i, keys[i]));
+        }
+        long mapHeap = usedHeap() - baseline;
+        Result onHeap = measure(probes, key -> Optional.ofNullable(map.get(key)));
+        map.clear();
+
+        baseline = usedHeap();
+        try (MappedShortUrlTable table = MappedShortUrlTable.create(directory.resolve("benchmark.snapshot"), LINKS)) {
+            for (int i = 0; i < LINKS; i++) {
+                table.put(link(i, keys[i]));
+            }
+            long mappedHeap = usedHeap() - baseline;
+            Result mapped = measure(probes, table::find);
+
+            System.out.printf("%,d links, %,d lookups%n", LINKS, LOOKUPS);
+            System.out.printf("HashMap: %,d MB heap, %.0f ns/lookup, p50 %,d ns, p99 %,d ns%n",
+                    mapHeap >> 20, onHeap.averageNanos, onHeap.p50Nanos, onHeap.p99Nanos);
+            System.out.printf("mapped:  %,d MB heap (%,d MB file), %.0f ns/lookup, p50 %,d ns, p99 %,d ns%n",
+                    Math.max(0, mappedHeap) >> 20, table.byteSize() >> 20, mapped.averageNanos, mapped.p50Nanos, mapped.p99Nanos);
+
+            assertThat(mapped.found).isEqualTo(LOOKUPS);
+            assertThat(mappedHeap).isLessThan(mapHeap / 10);
+            // a probe plus the decode of one record: still far below a database round trip
+            assertThat(mapped.p99Nanos).isLessThan(50_000);
+        }
+    }
+
+    private static Result measure(String[] probes, Function<String, Optional<ShortUrlDto>> lookup) {
+        run(probes, lookup); // warm-up
+        long start = System.nanoTime();
+        long found = run(probes, lookup);
+        double averageNanos = (double) (System.nanoTime() - start) / probes.length;
+
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long sampleStart = System.nanoTime();
+            lookup.apply(probes[i]);
+            samples[i] = System.nanoTime() - sampleStart;
+        }
+        Arrays.sort(samples);
+        return new Result(found, averageNanos, samples[SAMPLES / 2], samples[SAMPLES * 99 / 100]);
+    }
+
+    private static long run(String[] probes, Function<String, Optional<ShortUrlDto>> lookup) {
+        long found = 0;
+        for (String probe : probes) {
+            if (lookup.apply(probe).isPresent()) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static ShortUrlDto link(long id, String shortKey) {
+        return new ShortUrlDto(id, shortKey, "https://example.com/articles/" + id + "?utm_source=newsletter", false, null,
+                new UserDto(id % 1_000, null), 0L, Instant.ofEpochSecond(1_700_000_000L + id), null, 0L);
+    }
+
+    private record Result(long found, double averageNanos, long p50Nanos, long p99Nanos) {
+    }
+}
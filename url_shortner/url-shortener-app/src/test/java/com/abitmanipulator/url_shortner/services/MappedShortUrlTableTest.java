@@ -0,0 +1,178 @@
+package com.abitmanipulator.url_shortner.services;
+
+import com.abitmanipulator.url_shortner.domain.models.RedirectType;
+import com.abitmanipulator.url_shortner.domain.models.ShortUrlDto;
+import com.abitmanipulator.url_shortner.domain.models.UserDto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MappedShortUrlTableTest {
+
+    private static final Instant CREATED_AT = Instant.parse("2026-01-01T10:00:00Z");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void findsWhatWasPutUntilItIsRemoved() throws IOException {
+        try (MappedShortUrlTable table = MappedShortUrlTable.create(file(), 100)) {
+            ShortUrlDto link = new ShortUrlDto(42L, "abc", "https://example.com/a", true,
+                    Instant.parse("2030-01-01T00:00:00Z"), new UserDto(7L, "Siva"), 5L, CREATED_AT,
+                    RedirectType.TEMPORARY_REDIRECT, 3L);
+
+            assertThat(table.put(link)).isTrue();
+
+            // what the redirect path needs, without the owner name and the counters
+            assertThat(table.find("abc")).contains(new ShortUrlDto(42L, "abc", "https://example.com/a", true,
+                    Instant.parse("2030-01-01T00:00:00Z"), new UserDto(7L, null), null, CREATED_AT,
+                    RedirectType.TEMPORARY_REDIRECT, null));
+            assertThat(table.find("abd")).isEmpty();
+            assertThat(table.entries()).isEqualTo(1);
+
+            assertThat(table.remove("abc")).isTrue();
+            assertThat(table.find("abc")).isEmpty();
+            assertThat(table.remove("abc")).isFalse();
+            assertThat(table.entries()).isZero();
+        }
+    }
+
+    @Test
+    void replacesTheEntryOfAKeyTakenByAnotherLink() throws IOException {
+        try (MappedShortUrlTable table = MappedShortUrlTable.create(file(), 100)) {
+            table.put(link(1, "abc"));
+            table.put(link(2, "abc"));
+
+            assertThat(table.find("abc")).get().extracting(ShortUrlDto::id).isEqualTo(2L);
+            assertThat(table.entries()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void keepsEntriesAndWatermarkAcrossCloseAndOpen() throws IOException {
+        Path file = file();
+        Instant watermark = Instant.parse("2026-02-01T00:00:00Z");
+        try (MappedShortUrlTable table = MappedShortUrlTable.create(file, 1_000)) {
+            IntStream.range(0, 500).forEach(i -> table.put(link(i, "k" + i)));
+            table.remove("k7");
+            table.setWatermark(watermark);
+        }
+
+        try (MappedShortUrlTable reopened = MappedShortUrlTable.open(file)) {
+            assertThat(reopened.entries()).isEqualTo(499);
+            assertThat(reopened.watermark()).isEqualTo(watermark);
+            assertThat(reopened.find("k7")).isEmpty();
+            assertThat(IntStream.range(0, 500).filter(i -> i != 7))
+                    .allSatisfy(i -> assertThat(reopened.find("k" + i)).get().extracting(ShortUrlDto::id).isEqualTo((long) i));
+        }
+    }
+
+    @Test
+    void rejectsAFileThatWasNotClosed() throws IOException {
+        Path file = file();
+        try (MappedShortUrlTable table = MappedShortUrlTable.create(file, 100)) {
+            table.put(link(1, "abc"));
+            table.force();
+
+            // as if the process had died here
+            assertThatThrownBy(() -> MappedShortUrlTable.open(file))
+                    .isInstanceOf(IOException.class)
+                    .hasMessageContaining("not closed cleanly");
+        }
+    }
+
+    @Test
+    void marksAnOpenedFileDirtyUntilItIsClosedAgain() throws IOException {
+        Path file = file();
+        MappedShortUrlTable.create(file, 100).close();
+
+        MappedShortUrlTable opened = MappedShortUrlTable.open(file);
+        try {
+            assertThatThrownBy(() -> MappedShortUrlTable.open(file)).hasMessageContaining("not closed cleanly");
+        } finally {
+            opened.close();
+        }
+        MappedShortUrlTable.open(file).close();
+    }
+
+    @Test
+    void rejectsAFileOfAnotherVersion() throws IOException {
+        Path file = file();
+        MappedShortUrlTable.create(file, 100).close();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(0, MappedShortUrlTable.VERSION + 1), 8);
+        }
+
+        assertThatThrownBy(() -> MappedShortUrlTable.open(file))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("format version " + (MappedShortUrlTable.VERSION + 1));
+    }
+
+    @Test
+    void rejectsAFileThatIsNotATable() throws IOException {
+        Path file = file();
+        Files.write(file, new byte[4096]);
+
+        assertThatThrownBy(() -> MappedShortUrlTable.open(file)).hasMessageContaining("not a short url snapshot");
+    }
+
+    @Test
+    void growsTheMappingForRecordsPastTheInitialSize() throws IOException {
+        Path file = file();
+        String longPath = "/" + "x".repeat(500);
+        long initialSize;
+        try (MappedShortUrlTable table = MappedShortUrlTable.create(file, 100)) {
+            initialSize = Files.size(file);
+            // ~560 bytes a record, the initial mapping assumes 96
+            IntStream.range(0, 600).forEach(i ->
+                    assertThat(table.put(link(i, "k" + i, "https://example.com" + longPath + i))).isTrue());
+
+            assertThat(Files.size(file)).isGreaterThan(initialSize * 2);
+            assertThat(table.byteSize()).isLessThanOrEqualTo(Files.size(file));
+            assertThat(table.find("k599")).get().extracting(ShortUrlDto::originalUrl)
+                    .isEqualTo("https://example.com" + longPath + 599);
+        }
+        try (MappedShortUrlTable reopened = MappedShortUrlTable.open(file)) {
+            assertThat(reopened.entries()).isEqualTo(600);
+            assertThat(reopened.find("k0")).get().extracting(ShortUrlDto::originalUrl)
+                    .isEqualTo("https://example.com" + longPath + 0);
+        }
+    }
+
+    @Test
+    void refusesNewKeysOnceTheSlotTableIsFull() throws IOException {
+        // 100 expected links get the minimum of 1024 slots, 768 of which may be used
+        try (MappedShortUrlTable table = MappedShortUrlTable.create(file(), 100)) {
+            IntStream.range(0, 768).forEach(i -> assertThat(table.put(link(i, "k" + i))).isTrue());
+
+            assertThat(table.put(link(768, "k768"))).isFalse();
+            // replacing an existing key needs no new slot
+            assertThat(table.put(link(1_000, "k0"))).isTrue();
+            assertThat(table.find("k768")).isEmpty();
+        }
+    }
+
+    private Path file() {
+        return directory.resolve("short-urls.snapshot");
+    }
+
+    private static ShortUrlDto link(long id, String shortKey) {
+        return link(id, shortKey, "https://example.com/" + shortKey);
+    }
+
+    private static ShortUrlDto link(long id, String shortKey, String originalUrl) {
+        return new ShortUrlDto(id, shortKey, originalUrl, false, null, null, 0L, CREATED_AT, null, 0L);
+    }
+}
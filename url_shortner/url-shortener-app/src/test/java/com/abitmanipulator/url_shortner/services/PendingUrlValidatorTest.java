@@ -0,0 +1,83 @@
+package com.abitmanipulator.url_shortner.services;
+
+import com.abitmanipulator.url_shortner.TestProperties;
+import com.abitmanipulator.url_shortner.domain.models.ValidationStatus;
+import com.abitmanipulator.url_shortner.repository.ShortUrlRepository;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class PendingUrlValidatorTest {
+
+    private HttpServer server;
+    private String baseUrl;
+
+    private final ShortUrlRepository shortUrlRepository = mock(ShortUrlRepository.class);
+    private final ShortUrlCache shortUrlCache = mock(ShortUrlCache.class);
+    private final PendingUrlValidator pendingUrlValidator = validator("true");
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/ok", exchange -> {
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.createContext("/missing", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.start();
+        baseUrl = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void marksReachableLinksValid() {
+        pendingUrlValidator.submit(1L, "abc1234", baseUrl + "/ok");
+
+        verify(shortUrlRepository, timeout(2_000)).updateValidationStatus(1L, ValidationStatus.VALID);
+        verify(shortUrlCache, never()).evict(anyString());
+    }
+
+    @Test
+    void disablesUnreachableLinksAndEvictsThem() {
+        pendingUrlValidator.submit(2L, "abc5678", baseUrl + "/missing");
+
+        verify(shortUrlRepository, timeout(2_000)).updateValidationStatus(2L, ValidationStatus.INVALID);
+        verify(shortUrlCache, timeout(2_000)).evict("abc5678");
+    }
+
+    @Test
+    void sweepsPendingLinksOnlyWhenValidationIsDeferred() {
+        validator("false").sweep();
+        verifyNoInteractions(shortUrlRepository);
+
+        validator("true").sweep();
+        verify(shortUrlRepository).findByValidationStatus(eq(ValidationStatus.PENDING), any(), any());
+    }
+
+    private PendingUrlValidator validator(String deferred) {
+        return new PendingUrlValidator(new UrlExistenceValidator(TestProperties.of(), new MockEnvironment()),
+                shortUrlRepository, shortUrlCache, TestProperties.of("url-validation.deferred", deferred));
+    }
+}
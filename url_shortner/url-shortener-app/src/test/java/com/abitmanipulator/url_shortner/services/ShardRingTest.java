@@ -0,0 +1,64 @@
+package com.abitmanipulator.url_shortner.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ShardRingTest {
+
+    private static final int KEYS = 100_000;
+    private static final int VIRTUAL_NODES = 128;
+
+    @Test
+    void mapsAKeyToTheSameShardEveryTime() {
+        ShardRing ring = new ShardRing(4, VIRTUAL_NODES);
+        ShardRing rebuilt = new ShardRing(4, VIRTUAL_NODES);
+
+        assertThat(IntStream.range(0, KEYS)).allMatch(i -> ring.shardFor("key-" + i) == rebuilt.shardFor("key-" + i));
+        assertThat(IntStream.range(0, KEYS)).allMatch(i -> ring.shardFor("key-" + i) >= 0 && ring.shardFor("key-" + i) < 4);
+    }
+
+    @Test
+    void spreadsKeysEvenlyOverTheShards() {
+        ShardRing ring = new ShardRing(4, VIRTUAL_NODES);
+        int[] counts = new int[4];
+        IntStream.range(0, KEYS).forEach(i -> counts[ring.shardFor("key-" + i)]++);
+
+        // 128 points per shard keep every share within about 20% of the mean
+        assertThat(counts).allSatisfy(count -> assertThat(count).isBetween(KEYS / 4 * 8 / 10, KEYS / 4 * 12 / 10));
+    }
+
+    @Test
+    void addingAShardMovesOnlyItsShareOfTheKeysAndOnlyOntoIt() {
+        ShardRing before = new ShardRing(3, VIRTUAL_NODES);
+        ShardRing after = new ShardRing(4, VIRTUAL_NODES);
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            int from = before.shardFor("key-" + i);
+            int to = after.shardFor("key-" + i);
+            if (from != to) {
+                assertThat(to).as("new shard of key-%d", i).isEqualTo(3);
+                moved++;
+            }
+        }
+
+        assertThat(moved).isBetween(KEYS / 4 * 8 / 10, KEYS / 4 * 12 / 10);
+    }
+
+    @Test
+    void aSingleShardOwnsEveryKey() {
+        ShardRing ring = new ShardRing(1, VIRTUAL_NODES);
+
+        assertThat(IntStream.range(0, 1_000)).allMatch(i -> ring.shardFor("key-" + i) == 0);
+        assertThat(ring.shardCount()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsNonPositiveSizes() {
+        assertThatThrownBy(() -> new ShardRing(0, VIRTUAL_NODES)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ShardRing(2, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,77 @@
+package com.abitmanipulator.url_shortner.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * BLOCK allocation skips the uniqueness query because encode is a bijection on [0, 62^7).
+ * The space is too large to enumerate, so this checks round trips in both directions on the edges and a random sample.
+ */
+class ShortKeyEncoderTest {
+
+    private static final long KEY_SPACE = ShortKeyEncoder.KEY_SPACE;
+
+    private final ShortKeyEncoder encoder = new ShortKeyEncoder("test-secret");
+
+    @Test
+    void keysAreSevenBase62Characters() {
+        sampleIds().forEach(id -> assertThat(encoder.encode(id)).matches("[a-zA-Z0-9]{7}"));
+    }
+
+    @Test
+    void decodeInvertsEncode() {
+        sampleIds().forEach(id -> assertThat(encoder.decode(encoder.encode(id))).isEqualTo(id));
+    }
+
+    @Test
+    void everyKeyIsTheEncodingOfSomeId() {
+        String characters = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < 100_000; i++) {
+            StringBuilder key = new StringBuilder();
+            for (int j = 0; j < ShortKeyEncoder.KEY_LENGTH; j++) {
+                key.append(characters.charAt(random.nextInt(characters.length())));
+            }
+            long id = encoder.decode(key.toString());
+            assertThat(id).isBetween(0L, KEY_SPACE - 1);
+            assertThat(encoder.encode(id)).isEqualTo(key.toString());
+        }
+    }
+
+    @Test
+    void idsOfOneBlockGiveDistinctKeys() {
+        long blockStart = 12_345L << BlockShortKeyGenerator.BLOCK_BITS;
+        Set<String> keys = new HashSet<>();
+        for (long id = blockStart; id < blockStart + BlockShortKeyGenerator.MAX_BLOCK_SIZE; id++) {
+            keys.add(encoder.encode(id));
+        }
+        assertThat(keys).hasSize(BlockShortKeyGenerator.MAX_BLOCK_SIZE);
+    }
+
+    @Test
+    void keysDependOnTheSecret() {
+        ShortKeyEncoder other = new ShortKeyEncoder("other-secret");
+        long differing = LongStream.range(0, 1_000).filter(id -> !encoder.encode(id).equals(other.encode(id))).count();
+        assertThat(differing).isGreaterThan(990);
+    }
+
+    @Test
+    void rejectsIdsOutsideTheKeySpace() {
+        assertThatThrownBy(() -> encoder.encode(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> encoder.encode(KEY_SPACE)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // the first ids handed out, the top of the space and random ids in between
+    private static LongStream sampleIds() {
+        return LongStream.concat(
+                LongStream.concat(LongStream.range(0, 100_000), LongStream.range(KEY_SPACE - 10_000, KEY_SPACE)),
+                new SplittableRandom(42).longs(200_000, 0, KEY_SPACE));
+    }
+}
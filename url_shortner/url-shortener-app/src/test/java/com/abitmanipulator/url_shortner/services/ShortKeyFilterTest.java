@@ -0,0 +1,125 @@
+package com.abitmanipulator.url_shortner.services;
+
+import com.abitmanipulator.url_shortner.TestProperties;
+import com.abitmanipulator.url_shortner.repository.ShortKeyChannel;
+import com.abitmanipulator.url_shortner.repository.ShortKeyScanRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+class ShortKeyFilterTest {
+
+    private final ShortKeyScanRepository scanRepository = mock(ShortKeyScanRepository.class);
+    private final ShortKeyChannel channel = mock(ShortKeyChannel.class);
+    private final AtomicReference<Consumer<String>> announced = new AtomicReference<>();
+    private ShortKeyFilter filter;
+
+    @AfterEach
+    void stop() {
+        filter.stopListening();
+    }
+
+    @Test
+    void rejectsUnknownKeysOnceListeningAndScanned() throws Exception {
+        listenNormally();
+        scanReturns("known");
+        filter = newFilter();
+        await().atMost(Duration.ofSeconds(5)).until(() -> announced.get() != null);
+
+        filter.rebuild();
+
+        assertThat(filter.mightContain("known")).isTrue();
+        assertThat(filter.mightContain("unknown")).isFalse();
+    }
+
+    @Test
+    void acceptsKeysAnnouncedByOtherNodes() throws Exception {
+        listenNormally();
+        scanReturns("known");
+        filter = newFilter();
+        await().atMost(Duration.ofSeconds(5)).until(() -> announced.get() != null);
+        filter.rebuild();
+
+        announced.get().accept("remote");
+
+        assertThat(filter.mightContain("remote")).isTrue();
+    }
+
+    @Test
+    void fallsThroughWhileNotListening() throws Exception {
+        doThrow(new SQLException("connection refused")).when(channel).listen(any(), any());
+        scanReturns("known");
+        filter = newFilter();
+
+        filter.rebuild();
+
+        assertThat(filter.mightContain("unknown")).isTrue();
+    }
+
+    @Test
+    void fallsThroughUntilAScanStartedAfterListening() throws Exception {
+        scanReturns("known");
+        CountDownLatch connect = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            connect.await();
+            invocation.<Runnable>getArgument(0).run();
+            announced.set(invocation.getArgument(1));
+            awaitInterrupt();
+            return null;
+        }).when(channel).listen(any(), any());
+        filter = newFilter();
+        filter.rebuild();
+
+        connect.countDown();
+        await().atMost(Duration.ofSeconds(5)).until(() -> announced.get() != null);
+        // keys committed before listening started may be missing from the scan
+        assertThat(filter.mightContain("unknown")).isTrue();
+
+        filter.refresh();
+        assertThat(filter.mightContain("unknown")).isFalse();
+    }
+
+    private ShortKeyFilter newFilter() {
+        return new ShortKeyFilter(scanRepository, channel, TestProperties.of(), new SimpleMeterRegistry());
+    }
+
+    private void listenNormally() throws SQLException {
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            announced.set(invocation.getArgument(1));
+            awaitInterrupt();
+            return null;
+        }).when(channel).listen(any(), any());
+    }
+
+    private void scanReturns(String... shortKeys) {
+        doAnswer(invocation -> {
+            Consumer<String> consumer = invocation.getArgument(0);
+            for (String shortKey : shortKeys) {
+                consumer.accept(shortKey);
+            }
+            return null;
+        }).when(scanRepository).forEachShortKey(any());
+    }
+
+    private static void awaitInterrupt() {
+        try {
+            new CountDownLatch(1).await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.abitmanipulator.url_shortner.services;
+
+import com.abitmanipulator.url_shortner.repository.ShortKeyBlockRepository;
+import com.abitmanipulator.url_shortner.repository.ShortUrlRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Key allocation throughput of RANDOM (one existence query per key) against BLOCK (one sequence call per block),
+ * with every database call replaced by a fixed simulated round trip.
+ * Run with {@code mvn test -Dtest=ShortKeyGeneratorBenchmarkTest -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ShortKeyGeneratorBenchmarkTest {
+
+    private static final long ROUND_TRIP_NANOS = Duration.ofMillis(1).toNanos();
+    private static final int THREADS = 16;
+    private static final int KEYS_PER_THREAD = 500;
+
+    @Test
+    void blockAllocationNeedsNoRoundTripPerKey() throws Exception {
+        ShortUrlRepository shortUrlRepository = mock(ShortUrlRepository.class, withSettings().stubOnly());
+        when(shortUrlRepository.existsByShortKey(anyString())).thenAnswer(invocation -> {
+            LockSupport.parkNanos(ROUND_TRIP_NANOS);
+            return false;
+        });
+        AtomicLong blocks = new AtomicLong();
+        ShortKeyBlockRepository blockRepository = new ShortKeyBlockRepository(null) {
+            @Override
+            public long nextBlockNumber() {
+                LockSupport.parkNanos(ROUND_TRIP_NANOS);
+                return blocks.getAndIncrement();
+            }
+        };
+
+        double random = keysPerSecond(new RandomShortKeyGenerator(shortUrlRepository));
+        double block = keysPerSecond(new BlockShortKeyGenerator(blockRepository, new ShortKeyEncoder("benchmark"), 1000));
+        System.out.printf("RANDOM: %,.0f keys/s, BLOCK: %,.0f keys/s (%d threads, %d us per round trip)%n",
+                random, block, THREADS, ROUND_TRIP_NANOS / 1000);
+
+        assertThat(block).isGreaterThan(random * 10);
+    }
+
+    private static double keysPerSecond(ShortKeyGenerator generator) throws Exception {
+        run(generator); // warm-up
+        long start = System.nanoTime();
+        run(generator);
+        return (double) THREADS * KEYS_PER_THREAD / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private static void run(ShortKeyGenerator generator) throws Exception {
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < KEYS_PER_THREAD; j++) {
+                        generator.nextKey();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.abitmanipulator.url_shortner.services;
+
+import com.abitmanipulator.url_shortner.TestProperties;
+import com.abitmanipulator.url_shortner.domain.models.ImportReport;
+import com.abitmanipulator.url_shortner.repository.ShardedShortUrlRepository;
+import com.abitmanipulator.url_shortner.repository.ShardedShortUrlRepository.ImportRow;
+import com.abitmanipulator.url_shortner.repository.ShortUrlImportRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ShortUrlImporterTest {
+
+    private final ShortUrlImportRepository importRepository = mock(ShortUrlImportRepository.class);
+    private final ShortUrlCache shortUrlCache = mock(ShortUrlCache.class);
+    private final ShortUrlImporter importer = importer(null);
+
+    @Test
+    void importsValidRows() throws IOException {
+        when(importRepository.importBatch(any())).thenAnswer(invocation -> keys(invocation.getArgument(0)));
+
+        ImportReport report = importer.importCsv(csv("""
+                short_key,original_url,expires_at,owner
+                abc,https://example.com/a,,
+                my-link_1,http://example.com/b,2030-01-01T00:00:00Z,siva@gmail.com
+                """));
+
+        assertThat(report.imported()).isEqualTo(2);
+        assertThat(report.rejected()).isZero();
+        // new keys: nothing to record as removed from the snapshot
+        verify(shortUrlCache).invalidateAll(List.of("abc", "my-link_1"));
+        verify(shortUrlCache, never()).evictAll(any());
+    }
+
+    @Test
+    void rejectsKeysFromTheGeneratedKeySpace() throws IOException {
+        when(importRepository.importBatch(any())).thenAnswer(invocation -> keys(invocation.getArgument(0)));
+
+        ImportReport report = importer.importCsv(csv("""
+                aB3dE5g,https://example.com/a
+                aB3dE5,https://example.com/b
+                aB3dE5gh,https://example.com/c
+                aB3-E5g,https://example.com/d
+                """));
+
+        assertThat(report.imported()).isEqualTo(3);
+        assertThat(report.rejected()).isEqualTo(1);
+        assertThat(report.sampleRejections()).singleElement().asString().contains("line 1", "aB3dE5g");
+    }
+
+    @Test
+    void rejectsUrlsThatAreNotHttp() throws IOException {
+        when(importRepository.importBatch(any())).thenAnswer(invocation -> keys(invocation.getArgument(0)));
+
+        ImportReport report = importer.importCsv(csv("""
+                a1,javascript:alert(1)
+                a2,ftp://example.com/file
+                a3,/relative/path
+                a4,https://example.com/ok
+                """));
+
+        assertThat(report.imported()).isEqualTo(1);
+        assertThat(report.rejected()).isEqualTo(3);
+    }
+
+    @Test
+    void retriesABatchThatHitAConcurrentInsert() throws IOException {
+        AtomicInteger calls = new AtomicInteger();
+        when(importRepository.importBatch(any())).thenAnswer(invocation -> {
+            List<String> keys = keys(invocation.getArgument(0));
+            if (calls.incrementAndGet() == 1) {
+                throw new DuplicateKeyException("duplicate key value violates unique constraint \"short_url_keys_pkey\"");
+            }
+            // the key inserted meanwhile is now skipped
+            return keys.stream().filter(key -> !key.equals("b")).toList();
+        });
+
+        ImportReport report = importer.importCsv(csv("""
+                a,https://example.com/a
+                b,https://example.com/b
+                """));
+
+        verify(importRepository, times(2)).importBatch(any());
+        assertThat(report.imported()).isEqualTo(1);
+        assertThat(report.conflicts()).isEqualTo(1);
+        assertThat(report.sampleConflicts()).containsExactly("b");
+    }
+
+    @Test
+    void givesUpOnABatchThatKeepsFailing() {
+        when(importRepository.importBatch(any())).thenThrow(new DuplicateKeyException("duplicate key"));
+
+        assertThatThrownBy(() -> importer.importCsv(csv("a,https://example.com/a\n")))
+                .isInstanceOf(DuplicateKeyException.class);
+        verify(importRepository, times(3)).importBatch(any());
+    }
+
+    @Test
+    void importsIntoTheShardsWhenSharded() throws IOException {
+        ShardedShortUrlRepository shardedRepository = mock(ShardedShortUrlRepository.class);
+        when(shardedRepository.importRows(any())).thenAnswer(invocation -> {
+            List<ImportRow> rows = invocation.getArgument(0);
+            assertThat(rows).containsExactly(
+                    new ImportRow("a", "https://example.com/a", null, null),
+                    new ImportRow("b", "https://example.com/b", Instant.parse("2030-01-01T00:00:00Z"), "siva@gmail.com"));
+            return List.of("a"); // b is taken
+        });
+
+        ImportReport report = importer(shardedRepository).importCsv(csv("""
+                a,https://example.com/a
+                b,https://example.com/b,2030-01-01T00:00:00Z,siva@gmail.com
+                """));
+
+        verify(importRepository, never()).importBatch(any());
+        assertThat(report.imported()).isEqualTo(1);
+        assertThat(report.sampleConflicts()).containsExactly("b");
+    }
+
+    @SuppressWarnings("unchecked")
+    private ShortUrlImporter importer(ShardedShortUrlRepository shardedRepository) {
+        ObjectProvider<ShardedShortUrlRepository> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(shardedRepository);
+        return new ShortUrlImporter(importRepository, provider, mock(ShortKeyFilter.class),
+                shortUrlCache, TestProperties.of(), new SimpleMeterRegistry());
+    }
+
+    private static ByteArrayInputStream csv(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // the keys of the normalized batch handed to COPY
+    private static List<String> keys(Reader batch) {
+        return new BufferedReader(batch).lines().map(line -> line.substring(0, line.indexOf(','))).toList();
+    }
+}
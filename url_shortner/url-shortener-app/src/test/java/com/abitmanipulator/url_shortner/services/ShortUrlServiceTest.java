@@ -0,0 +1,78 @@
+package com.abitmanipulator.url_shortner.services;
+
+import com.abitmanipulator.url_shortner.TestProperties;
+import com.abitmanipulator.url_shortner.domain.entities.ShortUrl;
+import com.abitmanipulator.url_shortner.domain.entities.User;
+import com.abitmanipulator.url_shortner.domain.models.CreateShortUrlCmd;
+import com.abitmanipulator.url_shortner.domain.models.ShortUrlDto;
+import com.abitmanipulator.url_shortner.repository.ShardedShortUrlRepository;
+import com.abitmanipulator.url_shortner.repository.ShortUrlBulkRepository;
+import com.abitmanipulator.url_shortner.repository.ShortUrlListingRepository;
+import com.abitmanipulator.url_shortner.repository.ShortUrlRepository;
+import com.abitmanipulator.url_shortner.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ShortUrlServiceTest {
+
+    private final ShortUrlRepository shortUrlRepository = mock(ShortUrlRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final ShortKeyGenerator shortKeyGenerator = mock(ShortKeyGenerator.class);
+    private ShortUrlService shortUrlService;
+
+    @BeforeEach
+    void setUp() {
+        @SuppressWarnings("unchecked")
+        ObjectProvider<ShardedShortUrlRepository> notSharded = mock(ObjectProvider.class);
+        shortUrlService = new ShortUrlService(shortUrlRepository, mock(ShortUrlListingRepository.class),
+                mock(ShortUrlBulkRepository.class), new EntityMapper(),
+                TestProperties.of("validate-original-url", "false", "default-expiry-days", "30"),
+                userRepository, mock(ShortUrlCache.class), mock(ShortUrlSnapshot.class), mock(ClickCounter.class),
+                shortKeyGenerator, mock(UrlExistenceValidator.class), mock(PendingUrlValidator.class),
+                mock(PlatformTransactionManager.class), mock(ShortKeyFilter.class), mock(ClickEventRecorder.class),
+                mock(HotKeyTracker.class), mock(UniqueVisitorCounter.class), mock(ReadYourWrites.class), notSharded);
+
+        User user = new User();
+        user.setId(7L);
+        user.setName("Owner");
+        when(userRepository.findById(7L)).thenReturn(Optional.of(user));
+        when(shortKeyGenerator.nextKey()).thenReturn("abc1234");
+        when(shortUrlRepository.save(any(ShortUrl.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void signedInUserGetsTheRequestedExpiry() {
+        ShortUrlDto shortUrl = shortUrlService.createShortUrl(
+                new CreateShortUrlCmd("https://example.com", 7, false, 7L, null));
+
+        assertThat(shortUrl.expiresAt()).isEqualTo(shortUrl.createdAt().plus(Duration.ofDays(7)));
+    }
+
+    @Test
+    void signedInUserWithoutExpiryGetsALinkThatNeverExpires() {
+        ShortUrlDto shortUrl = shortUrlService.createShortUrl(
+                new CreateShortUrlCmd("https://example.com", null, true, 7L, null));
+
+        assertThat(shortUrl.expiresAt()).isNull();
+        assertThat(shortUrl.isPrivate()).isTrue();
+    }
+
+    @Test
+    void anonymousLinksAlwaysGetTheDefaultExpiry() {
+        ShortUrlDto shortUrl = shortUrlService.createShortUrl(
+                new CreateShortUrlCmd("https://example.com", 7, true, null, null));
+
+        assertThat(shortUrl.expiresAt()).isEqualTo(shortUrl.createdAt().plus(Duration.ofDays(30)));
+        assertThat(shortUrl.isPrivate()).isFalse();
+    }
+}
@@ -0,0 +1,181 @@
+package com.abitmanipulator.url_shortner.services;
+
+import com.abitmanipulator.url_shortner.TestProperties;
+import com.abitmanipulator.url_shortner.domain.models.ShortUrlDto;
+import com.abitmanipulator.url_shortner.repository.ShardedShortUrlRepository;
+import com.abitmanipulator.url_shortner.repository.ShortKeyScanRepository;
+import com.abitmanipulator.url_shortner.repository.ShortUrlRemovalRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Two nodes, each with its own snapshot file, sharing the database (a stubbed scan) and the removal log (in memory).
+ */
+class ShortUrlSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    private final ShortKeyScanRepository scanRepository = mock(ShortKeyScanRepository.class);
+    private final InMemoryRemovalLog removalLog = new InMemoryRemovalLog();
+    private final List<ShortUrlDto> rows = new CopyOnWriteArrayList<>();
+    private final List<ShortUrlSnapshot> snapshots = new ArrayList<>();
+
+    @BeforeEach
+    void stubDatabase() {
+        doAnswer(invocation -> {
+            rows.forEach(invocation.<Consumer<ShortUrlDto>>getArgument(0));
+            return null;
+        }).when(scanRepository).forEachRedirectTarget(any());
+        doAnswer(invocation -> {
+            Instant createdSince = invocation.getArgument(0);
+            rows.stream().filter(row -> !row.createdAt().isBefore(createdSince))
+                    .forEach(invocation.<Consumer<ShortUrlDto>>getArgument(1));
+            return null;
+        }).when(scanRepository).forEachRedirectTargetCreatedSince(any(), any());
+        rows.add(link(1, "abc"));
+        rows.add(link(2, "def"));
+    }
+
+    @AfterEach
+    void closeSnapshots() {
+        snapshots.forEach(ShortUrlSnapshot::close);
+    }
+
+    @Test
+    void aRemovalOnOneNodeReachesTheOtherOnItsNextRefresh() {
+        ShortUrlSnapshot a = snapshot("a");
+        ShortUrlSnapshot b = snapshot("b");
+        a.refresh();
+        b.refresh();
+
+        rows.removeIf(row -> row.shortKey().equals("abc"));
+        a.removeAll(List.of("abc"));
+
+        assertThat(a.find("abc")).isEmpty();
+        assertThat(b.find("abc")).isPresent();
+        b.refresh();
+        assertThat(b.find("abc")).isEmpty();
+        assertThat(b.find("def")).isPresent();
+    }
+
+    @Test
+    void aKeyRemovedAndCreatedAgainIsKept() {
+        ShortUrlSnapshot a = snapshot("a");
+        ShortUrlSnapshot b = snapshot("b");
+        a.refresh();
+        b.refresh();
+
+        rows.removeIf(row -> row.shortKey().equals("abc"));
+        a.removeAll(List.of("abc"));
+        ShortUrlDto reimported = link(3, "abc");
+        rows.add(reimported);
+        a.add(reimported);
+        b.refresh();
+
+        assertThat(b.find("abc")).get().extracting(ShortUrlDto::id).isEqualTo(3L);
+    }
+
+    @Test
+    void aMappedFileIsServedOnlyOnceItCaughtUpWithTheRemovalsMadeWhileDown() {
+        ShortUrlSnapshot a = snapshot("a");
+        a.refresh();
+        a.close();
+        snapshots.remove(a);
+        // removed on another node while this one was down
+        rows.removeIf(row -> row.shortKey().equals("abc"));
+        removalLog.record(List.of("abc"));
+
+        ShortUrlSnapshot restarted = snapshot("a");
+        assertThat(restarted.find("def")).isEmpty();
+        restarted.refresh();
+
+        assertThat(restarted.find("abc")).isEmpty();
+        assertThat(restarted.find("def")).isPresent();
+        // mapped, not rebuilt
+        verify(scanRepository, times(1)).forEachRedirectTarget(any());
+    }
+
+    @Test
+    void aFileOlderThanTheRemovalRetentionIsRebuilt() throws IOException {
+        ShortUrlSnapshot a = snapshot("a");
+        a.refresh();
+        a.close();
+        snapshots.remove(a);
+        try (MappedShortUrlTable table = MappedShortUrlTable.open(directory.resolve("a"))) {
+            table.setWatermark(Instant.now().minus(Duration.ofDays(2)));
+        }
+
+        ShortUrlSnapshot restarted = snapshot("a");
+        restarted.refresh();
+
+        verify(scanRepository, times(2)).forEachRedirectTarget(any());
+        assertThat(restarted.find("abc")).isPresent();
+    }
+
+    private ShortUrlSnapshot snapshot(String file) {
+        @SuppressWarnings("unchecked")
+        ObjectProvider<ShardedShortUrlRepository> notSharded = mock(ObjectProvider.class);
+        when(notSharded.getIfAvailable()).thenReturn(null);
+        var snapshot = new ShortUrlSnapshot(scanRepository, notSharded, removalLog,
+                TestProperties.of("snapshot.enabled", "true", "snapshot.path", directory.resolve(file).toString(),
+                        "snapshot.expected-links", "100", "snapshot.removal-retention", "P1D"),
+                new SimpleMeterRegistry());
+        snapshots.add(snapshot);
+        return snapshot;
+    }
+
+    private static ShortUrlDto link(long id, String shortKey) {
+        return new ShortUrlDto(id, shortKey, "https://example.com/" + shortKey, false, null, null, 0L,
+                Instant.now(), null, 0L);
+    }
+
+    private static final class InMemoryRemovalLog extends ShortUrlRemovalRepository {
+        private final List<Map.Entry<Instant, String>> removals = new CopyOnWriteArrayList<>();
+
+        InMemoryRemovalLog() {
+            super(null);
+        }
+
+        @Override
+        public void record(Collection<String> shortKeys) {
+            Instant now = Instant.now();
+            shortKeys.forEach(shortKey -> removals.add(Map.entry(now, shortKey)));
+        }
+
+        @Override
+        public void forEachRemovedSince(Instant removedSince, Consumer<String> consumer) {
+            removals.stream().filter(removal -> !removal.getKey().isBefore(removedSince)).map(Map.Entry::getValue).forEach(consumer);
+        }
+
+        @Override
+        public int deleteRemovedBefore(Instant cutoff) {
+            int before = removals.size();
+            removals.removeIf(removal -> removal.getKey().isBefore(cutoff));
+            return before - removals.size();
+        }
+    }
+}
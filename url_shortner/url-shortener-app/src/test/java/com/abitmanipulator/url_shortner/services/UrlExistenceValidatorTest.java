@@ -0,0 +1,144 @@
+package com.abitmanipulator.url_shortner.services;
+
+import com.abitmanipulator.url_shortner.TestProperties;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UrlExistenceValidatorTest {
+
+    private HttpServer server;
+    private String baseUrl;
+    private final AtomicInteger flakyHits = new AtomicInteger();
+    private final AtomicInteger okHits = new AtomicInteger();
+    private final AtomicInteger gateInFlight = new AtomicInteger();
+    private final AtomicInteger gateMaxInFlight = new AtomicInteger();
+    private final CountDownLatch gate = new CountDownLatch(1);
+
+    private final UrlExistenceValidator validator = new UrlExistenceValidator(TestProperties.of(
+            "url-validation.request-timeout", "300ms",
+            "url-validation.max-concurrent-per-host", "2",
+            "url-validation.negative-ttl", "500ms"), new MockEnvironment());
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/ok", exchange -> {
+            okHits.incrementAndGet();
+            respond(exchange, 200);
+        });
+        server.createContext("/moved", exchange -> {
+            exchange.getResponseHeaders().add("Location", "/ok");
+            respond(exchange, 301);
+        });
+        server.createContext("/missing", exchange -> respond(exchange, 404));
+        server.createContext("/slow", exchange -> {
+            sleep(2_000);
+            respond(exchange, 200);
+        });
+        // 404 on the first request, 200 afterwards
+        server.createContext("/flaky", exchange -> respond(exchange, flakyHits.incrementAndGet() == 1 ? 404 : 200));
+        server.createContext("/gate", exchange -> {
+            gateMaxInFlight.accumulateAndGet(gateInFlight.incrementAndGet(), Math::max);
+            try {
+                gate.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            gateInFlight.decrementAndGet();
+            respond(exchange, 204);
+        });
+        server.start();
+        baseUrl = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void stopServer() {
+        gate.countDown();
+        server.stop(0);
+    }
+
+    @Test
+    void acceptsSuccessAndRedirectResponses() {
+        assertThat(validator.isUrlExists(baseUrl + "/ok")).isTrue();
+        assertThat(validator.isUrlExists(baseUrl + "/moved")).isTrue();
+    }
+
+    @Test
+    void rejectsClientErrors() {
+        assertThat(validator.isUrlExists(baseUrl + "/missing")).isFalse();
+    }
+
+    @Test
+    void rejectsUrlsThatTimeOut() {
+        assertThat(validator.isUrlExists(baseUrl + "/slow")).isFalse();
+    }
+
+    @Test
+    void rejectsNonHttpUrls() {
+        assertThat(validator.isUrlExists("ftp://localhost/file")).isFalse();
+        assertThat(validator.isUrlExists("not a url")).isFalse();
+    }
+
+    @Test
+    void cachesPositiveResults() {
+        assertThat(validator.isUrlExists(baseUrl + "/ok")).isTrue();
+        assertThat(validator.isUrlExists(baseUrl + "/ok")).isTrue();
+        assertThat(okHits).hasValue(1);
+    }
+
+    @Test
+    void negativeResultsExpireAfterTheirTtl() {
+        assertThat(validator.isUrlExists(baseUrl + "/flaky")).isFalse();
+        assertThat(validator.isUrlExists(baseUrl + "/flaky")).isFalse();
+        assertThat(flakyHits).hasValue(1);
+
+        sleep(800);
+        assertThat(validator.isUrlExists(baseUrl + "/flaky")).isTrue();
+        assertThat(flakyHits).hasValue(2);
+    }
+
+    @Test
+    void limitsConcurrentRequestsPerHost() {
+        List<CompletableFuture<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            results.add(validator.validate(baseUrl + "/gate?n=" + i));
+        }
+        sleep(200);
+        assertThat(gateInFlight).hasValue(2);
+
+        gate.countDown();
+        results.forEach(result -> assertThat(result.join()).isTrue());
+        assertThat(gateMaxInFlight).hasValue(2);
+    }
+
+    private static void respond(HttpExchange exchange, int status) throws IOException {
+        exchange.sendResponseHeaders(status, -1);
+        exchange.close();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
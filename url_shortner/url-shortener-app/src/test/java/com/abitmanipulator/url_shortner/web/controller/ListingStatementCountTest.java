@@ -0,0 +1,133 @@
+package com.abitmanipulator.url_shortner.web.controller;
+
+import com.abitmanipulator.url_shortner.PostgresContainerConfiguration;
+import com.abitmanipulator.url_shortner.RecordingDataSource;
+import com.abitmanipulator.url_shortner.domain.models.PageCursor;
+import com.abitmanipulator.url_shortner.domain.models.PagedResult;
+import com.abitmanipulator.url_shortner.domain.models.ShortUrlDto;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Renders listing pages that differ in row count and in how many distinct creators they show, and checks that
+ * each costs the same number of SQL statements: no per-row (N+1) creator lookups.
+ * Every request is rendered once beforehand, so the cached totals and dashboard figures are warm.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import({PostgresContainerConfiguration.class, RecordingDataSource.Configuration.class})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ListingStatementCountTest {
+
+    private static final int CREATORS = 35;
+    private static final int OWNER_LINKS = 25;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private DataSource dataSource;
+
+    @BeforeAll
+    void seed() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        // one public link per creator, the newest links of all, so a first page shows as many creators as rows
+        jdbcTemplate.update("""
+                INSERT INTO users (email, password, name)
+                SELECT 'creator' || n || '@example.com', 'secret', 'Creator ' || n FROM generate_series(1, ?) n
+                """, CREATORS);
+        jdbcTemplate.update("""
+                INSERT INTO short_urls (short_key, original_url, is_private, created_by, created_at)
+                SELECT 'c' || n, 'https://example.com/c/' || n, false, u.id, now() - n * interval '1 minute'
+                FROM generate_series(1, ?) n
+                JOIN users u ON u.email = 'creator' || n || '@example.com'
+                """, CREATORS);
+        jdbcTemplate.update("""
+                INSERT INTO users (email, password, name)
+                VALUES ('owner@example.com', 'secret', 'Owner'), ('single@example.com', 'secret', 'Single')
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO short_urls (short_key, original_url, is_private, created_by, created_at)
+                SELECT 'o' || n, 'https://example.com/o/' || n, true, u.id, now() - interval '1 hour' - n * interval '1 second'
+                FROM generate_series(1, ?) n
+                JOIN users u ON u.email = 'owner@example.com'
+                """, OWNER_LINKS);
+        jdbcTemplate.update("""
+                INSERT INTO short_urls (short_key, original_url, is_private, created_by)
+                SELECT 's1', 'https://example.com/s/1', true, id FROM users WHERE email = 'single@example.com'
+                """);
+    }
+
+    @Test
+    void publicListing() throws Exception {
+        Render first = render(get("/"));
+        Render second = render(get("/").param("cursor", first.page().nextCursor()));
+        Render last = render(get("/").param("cursor", PageCursor.LAST_PAGE_TOKEN));
+
+        assertThat(first.page().data()).hasSize(10);
+        assertThat(first.creators()).isEqualTo(10);
+        assertThat(last.creators()).isLessThan(first.creators());
+        assertThat(second.statements()).isEqualTo(first.statements());
+        assertThat(last.statements()).isEqualTo(first.statements());
+    }
+
+    @Test
+    void userListing() throws Exception {
+        Render first = render(get("/my-urls").with(user("owner@example.com").roles("USER")));
+        Render second = render(get("/my-urls").param("cursor", first.page().nextCursor())
+                .with(user("owner@example.com").roles("USER")));
+        Render third = render(get("/my-urls").param("cursor", second.page().nextCursor())
+                .with(user("owner@example.com").roles("USER")));
+        Render single = render(get("/my-urls").with(user("single@example.com").roles("USER")));
+
+        assertThat(first.page().data()).hasSize(10);
+        assertThat(third.page().data()).hasSize(OWNER_LINKS % 10);
+        assertThat(single.page().data()).hasSize(1);
+        assertThat(second.statements()).isEqualTo(first.statements());
+        assertThat(third.statements()).isEqualTo(first.statements());
+        assertThat(single.statements()).isEqualTo(first.statements());
+    }
+
+    @Test
+    void adminListing() throws Exception {
+        Render first = render(get("/admin/dashboard").with(user("admin@gmail.com").roles("ADMIN")));
+        Render last = render(get("/admin/dashboard").param("cursor", PageCursor.LAST_PAGE_TOKEN)
+                .with(user("admin@gmail.com").roles("ADMIN")));
+
+        assertThat(first.creators()).isEqualTo(10);
+        assertThat(last.creators()).isLessThan(first.creators());
+        assertThat(last.statements()).isEqualTo(first.statements());
+    }
+
+    private Render render(MockHttpServletRequestBuilder request) throws Exception {
+        RecordingDataSource recording = (RecordingDataSource) dataSource;
+        mockMvc.perform(request).andExpect(status().isOk());
+        recording.clear();
+        MvcResult result = mockMvc.perform(request).andExpect(status().isOk()).andReturn();
+        @SuppressWarnings("unchecked")
+        PagedResult<ShortUrlDto> page = (PagedResult<ShortUrlDto>) result.getModelAndView().getModel().get("shortUrls");
+        return new Render(page, recording.statementsOn(Thread.currentThread()).size());
+    }
+
+    private record Render(PagedResult<ShortUrlDto> page, int statements) {
+
+        long creators() {
+            return page.data().stream().map(shortUrl -> shortUrl.createdBy().id()).distinct().count();
+        }
+    }
+}
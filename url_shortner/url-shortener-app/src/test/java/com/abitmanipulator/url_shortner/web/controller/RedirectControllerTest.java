@@ -0,0 +1,138 @@
+package com.abitmanipulator.url_shortner.web.controller;
+
+import com.abitmanipulator.url_shortner.config.RedirectPolicyConfig;
+import com.abitmanipulator.url_shortner.config.WebSecurityConfig;
+import com.abitmanipulator.url_shortner.domain.models.ClickMetadata;
+import com.abitmanipulator.url_shortner.domain.models.RedirectType;
+import com.abitmanipulator.url_shortner.domain.models.ShortUrlDto;
+import com.abitmanipulator.url_shortner.domain.models.UserDto;
+import com.abitmanipulator.url_shortner.services.ShortUrlService;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(RedirectController.class)
+@Import({WebSecurityConfig.class, RedirectPolicyConfig.class})
+class RedirectControllerTest {
+
+    private static final String TARGET = "https://example.com/some/page";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @MockitoBean
+    private ShortUrlService shortUrlService;
+    @MockitoBean
+    private SecurityUtils securityUtils;
+
+    @Test
+    void publicLinkIsPermanentAndCacheable() throws Exception {
+        when(shortUrlService.accessOriginalUrl(eq("pub1234"), isNull(), any()))
+                .thenReturn(Optional.of(shortUrl("pub1234", false, null)));
+
+        MvcResult result = mockMvc.perform(get("/s/pub1234"))
+                .andExpect(status().isMovedPermanently())
+                .andExpect(header().string(HttpHeaders.LOCATION, TARGET))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=86400, public"))
+                .andReturn();
+
+        assertThat(result.getRequest().getSession(false)).isNull();
+        assertThat(result.getResponse().getCookies()).isEmpty();
+        assertThat(result.getResponse().getContentLength()).isZero();
+    }
+
+    @Test
+    void privateLinkIsTemporaryAndNotStored() throws Exception {
+        when(shortUrlService.accessOriginalUrl(eq("prv1234"), isNull(), any()))
+                .thenReturn(Optional.of(shortUrl("prv1234", true, null)));
+
+        MvcResult result = mockMvc.perform(get("/s/prv1234"))
+                .andExpect(status().isFound())
+                .andExpect(header().string(HttpHeaders.LOCATION, TARGET))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-store"))
+                .andReturn();
+
+        assertThat(result.getRequest().getSession(false)).isNull();
+    }
+
+    @Test
+    void linkRedirectTypeWins() throws Exception {
+        when(shortUrlService.accessOriginalUrl(eq("tmp1234"), isNull(), any()))
+                .thenReturn(Optional.of(shortUrl("tmp1234", false, RedirectType.TEMPORARY_REDIRECT)));
+
+        mockMvc.perform(get("/s/tmp1234"))
+                .andExpect(status().isTemporaryRedirect())
+                .andExpect(header().string(HttpHeaders.LOCATION, TARGET));
+    }
+
+    @Test
+    void headAnswersWithoutCountingAClick() throws Exception {
+        when(shortUrlService.findAccessibleShortUrl("pub1234", null))
+                .thenReturn(Optional.of(shortUrl("pub1234", false, null)));
+
+        MvcResult result = mockMvc.perform(head("/s/pub1234"))
+                .andExpect(status().isMovedPermanently())
+                .andExpect(header().string(HttpHeaders.LOCATION, TARGET))
+                .andReturn();
+
+        assertThat(result.getRequest().getSession(false)).isNull();
+        verify(shortUrlService, never()).accessOriginalUrl(anyString(), any(), any());
+    }
+
+    @Test
+    void passesClickMetadataFromTheRequest() throws Exception {
+        when(shortUrlService.accessOriginalUrl(eq("pub1234"), isNull(), any()))
+                .thenReturn(Optional.of(shortUrl("pub1234", false, null)));
+
+        mockMvc.perform(get("/s/pub1234")
+                        .header(HttpHeaders.REFERER, "https://news.example.org/")
+                        .header(HttpHeaders.USER_AGENT, "curl/8.0")
+                        .header("CF-IPCountry", "de"))
+                .andExpect(status().isMovedPermanently());
+
+        ArgumentCaptor<ClickMetadata> clickMetadata = ArgumentCaptor.forClass(ClickMetadata.class);
+        verify(shortUrlService).accessOriginalUrl(eq("pub1234"), isNull(), clickMetadata.capture());
+        assertThat(clickMetadata.getValue().referrer()).isEqualTo("https://news.example.org/");
+        assertThat(clickMetadata.getValue().userAgent()).isEqualTo("curl/8.0");
+        assertThat(clickMetadata.getValue().country()).isEqualTo("DE");
+        assertThat(clickMetadata.getValue().visitorHash()).isNotZero();
+    }
+
+    @Test
+    void unknownKeyIsNotFound() throws Exception {
+        when(shortUrlService.accessOriginalUrl(eq("missing"), isNull(), any())).thenReturn(Optional.empty());
+
+        MvcResult result = mockMvc.perform(get("/s/missing"))
+                .andExpect(status().isNotFound())
+                .andReturn();
+
+        assertThat(result.getResponse().getHeader(HttpHeaders.LOCATION)).isNull();
+        assertThat(result.getRequest().getSession(false)).isNull();
+    }
+
+    private static ShortUrlDto shortUrl(String shortKey, boolean isPrivate, RedirectType redirectType) {
+        return new ShortUrlDto(1L, shortKey, TARGET, isPrivate, null, new UserDto(1L, "Owner"), 0L,
+                Instant.now(), redirectType, 0L);
+    }
+}
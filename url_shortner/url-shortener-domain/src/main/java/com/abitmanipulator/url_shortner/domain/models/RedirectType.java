@@ -0,0 +1,24 @@
+package com.abitmanipulator.url_shortner.domain.models;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * HTTP redirect semantics of a short url.
+ * 301/308 are permanent and may be cached by clients, 302/307 are not; 307/308 preserve the request method.
+ */
+public enum RedirectType {
+    MOVED_PERMANENTLY(HttpStatus.MOVED_PERMANENTLY),
+    FOUND(HttpStatus.FOUND),
+    TEMPORARY_REDIRECT(HttpStatus.TEMPORARY_REDIRECT),
+    PERMANENT_REDIRECT(HttpStatus.PERMANENT_REDIRECT);
+
+    private final HttpStatus status;
+
+    RedirectType(HttpStatus status) {
+        this.status = status;
+    }
+
+    public HttpStatus status() {
+        return status;
+    }
+}
@@ -0,0 +1,32 @@
+package com.abitmanipulator.url_shortner.domain.models;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * DTO for the ShortUrl entity, also what the redirect nodes resolve short keys to.
+ */
+public record ShortUrlDto(
+        Long id,
+        String shortKey,
+        String originalUrl,
+        Boolean isPrivate,
+        Instant expiresAt,
+        UserDto createdBy,
+        Long clickCount,
+        Instant createdAt,
+        RedirectType redirectType,
+        Long uniqueVisitors) implements Serializable {
+
+    public boolean isExpired(Instant now) {
+        return expiresAt != null && expiresAt.isBefore(now);
+    }
+
+    /**
+     * Private links only resolve for their owner; {@code userId} is null for anonymous callers.
+     */
+    public boolean isAccessibleBy(Long userId) {
+        return isPrivate == null || !isPrivate || createdBy == null || Objects.equals(createdBy.id(), userId);
+    }
+}
\ No newline at end of file
@@ -3,7 +3,7 @@ package com.abitmanipulator.url_shortner.domain.models;
 import java.io.Serializable;
 
 /**
- * DTO for {@link com.abitmanipulator.url_shortner.domain.entities.User}
+ * DTO for the User entity
  */
 public record UserDto(Long id, String name) implements Serializable {
 }
\ No newline at end of file
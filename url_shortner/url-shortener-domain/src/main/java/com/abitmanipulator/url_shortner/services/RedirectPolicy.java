@@ -0,0 +1,63 @@
+package com.abitmanipulator.url_shortner.services;
+
+import com.abitmanipulator.url_shortner.domain.models.RedirectType;
+import com.abitmanipulator.url_shortner.domain.models.ShortUrlDto;
+import org.springframework.http.CacheControl;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Decides the status code and cache headers of a redirect from the short url itself, so that
+ * browsers and CDNs can absorb repeat clicks on public links:
+ * <ul>
+ *     <li>private: {@code no-store}, the answer depends on who is asking</li>
+ *     <li>public, never expiring: permanent redirect (unless the link asks otherwise), cacheable for {@code publicMaxAge}</li>
+ *     <li>public, expiring: cacheable, but never beyond the link's remaining lifetime</li>
+ * </ul>
+ * Clicks answered from a cache are not counted.
+ * Shared by the UI app and the redirect nodes, each building it from its own {@code app.redirect.*} properties.
+ */
+public class RedirectPolicy {
+
+    private final RedirectType defaultType;
+    private final boolean permanentForPublicLinks;
+    private final Duration publicMaxAge;
+
+    public RedirectPolicy(RedirectType defaultType, boolean permanentForPublicLinks, Duration publicMaxAge) {
+        this.defaultType = defaultType;
+        this.permanentForPublicLinks = permanentForPublicLinks;
+        this.publicMaxAge = publicMaxAge;
+    }
+
+    public RedirectType redirectType(ShortUrlDto shortUrl) {
+        if (shortUrl.redirectType() != null) {
+            return shortUrl.redirectType();
+        }
+        if (permanentForPublicLinks && !isPrivate(shortUrl) && shortUrl.expiresAt() == null) {
+            return RedirectType.MOVED_PERMANENTLY;
+        }
+        return defaultType;
+    }
+
+    public CacheControl cacheControl(ShortUrlDto shortUrl) {
+        if (isPrivate(shortUrl)) {
+            return CacheControl.noStore();
+        }
+        Duration maxAge = publicMaxAge;
+        if (shortUrl.expiresAt() != null) {
+            Duration remaining = Duration.between(Instant.now(), shortUrl.expiresAt());
+            if (remaining.compareTo(maxAge) < 0) {
+                maxAge = remaining.isNegative() ? Duration.ZERO : remaining;
+            }
+        }
+        if (maxAge.isZero()) {
+            return CacheControl.noCache();
+        }
+        return CacheControl.maxAge(maxAge).cachePublic();
+    }
+
+    private static boolean isPrivate(ShortUrlDto shortUrl) {
+        return Boolean.TRUE.equals(shortUrl.isPrivate());
+    }
+}
@@ -0,0 +1,24 @@
+package com.abitmanipulator.url_shortner.redirect;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Redirect node: serves only {@code /s/{shortKey}} on WebFlux and R2DBC, against the app's short_urls schema.
+ * Holds no sessions and no state besides a read cache and pending click counts, so any number can run behind a load balancer.
+ * <p>
+ * Not for use with the app's {@code sharded} profile: the node reads and counts clicks on the primary's short_urls only,
+ * which holds no links once they live on the shards, so every key would answer 404. Route {@code /s/} to the app instead.
+ */
+@SpringBootApplication
+@ConfigurationPropertiesScan
+@EnableScheduling
+public class RedirectNodeApp {
+
+	public static void main(String[] args) {
+		SpringApplication.run(RedirectNodeApp.class, args);
+	}
+
+}
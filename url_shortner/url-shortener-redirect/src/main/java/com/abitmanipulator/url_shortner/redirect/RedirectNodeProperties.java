@@ -0,0 +1,53 @@
+package com.abitmanipulator.url_shortner.redirect;
+
+import com.abitmanipulator.url_shortner.domain.models.RedirectType;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Same {@code app.*} keys as the app, so both can be fed from one config source.
+ * {@code privateLinksUrl} is the app's base url: private links are sent there, since only the app knows who is signed in.
+ * When unset, private links answer 404 as they do for anonymous users of the app.
+ * The click count flush runs every {@code app.click-counting.flush-interval}, bound by ClickCounter's {@code @Scheduled}.
+ */
+@ConfigurationProperties(prefix = "app")
+@Validated
+public record RedirectNodeProperties(
+        String privateLinksUrl,
+
+        @DefaultValue
+        @Valid
+        Redirect redirect,
+
+        @DefaultValue
+        @Valid
+        RedirectCache redirectCache
+) {
+
+    public record Redirect(
+            @DefaultValue("FOUND")
+            RedirectType defaultType,
+
+            @DefaultValue("true")
+            boolean permanentForPublicLinks,
+
+            @DefaultValue("1d")
+            Duration publicMaxAge
+    ) {
+    }
+
+    public record RedirectCache(
+            @DefaultValue("100000")
+            @Min(1)
+            long maximumSize,
+
+            @DefaultValue("10m")
+            Duration ttl
+    ) {
+    }
+}
@@ -0,0 +1,16 @@
+package com.abitmanipulator.url_shortner.redirect.config;
+
+import com.abitmanipulator.url_shortner.redirect.RedirectNodeProperties;
+import com.abitmanipulator.url_shortner.services.RedirectPolicy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class RedirectPolicyConfig {
+
+    @Bean
+    public RedirectPolicy redirectPolicy(RedirectNodeProperties properties) {
+        RedirectNodeProperties.Redirect config = properties.redirect();
+        return new RedirectPolicy(config.defaultType(), config.permanentForPublicLinks(), config.publicMaxAge());
+    }
+}
@@ -0,0 +1,81 @@
+package com.abitmanipulator.url_shortner.redirect.repository;
+
+import com.abitmanipulator.url_shortner.domain.models.RedirectType;
+import com.abitmanipulator.url_shortner.domain.models.ShortUrlDto;
+import com.abitmanipulator.url_shortner.domain.models.UserDto;
+import io.r2dbc.spi.Readable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Non-blocking reads and click count updates on short_urls, in the one database the node is pointed at (not shard-aware).
+ * Timestamps are stored without time zone and read in the JVM zone, as the app's JDBC mappers do.
+ */
+@Repository
+public class ShortUrlLookupRepository {
+
+    private static final String FIND_BY_SHORT_KEY = """
+            SELECT su.id, su.short_key, su.original_url, su.is_private, su.expires_at, su.click_count,
+                   su.created_at, su.redirect_type, su.unique_visitors, u.id AS user_id, u.name AS user_name
+            FROM short_urls su
+            LEFT JOIN users u ON u.id = su.created_by
+            WHERE su.short_key = :shortKey
+              AND su.validation_status <> 'INVALID'
+            """;
+
+    private static final String ADD_CLICK_COUNTS = """
+            UPDATE short_urls su
+            SET click_count = su.click_count + v.clicks
+            FROM unnest(:ids::bigint[], :clicks::bigint[]) AS v(id, clicks)
+            WHERE su.id = v.id
+            """;
+
+    private final DatabaseClient databaseClient;
+
+    public ShortUrlLookupRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<ShortUrlDto> findByShortKey(String shortKey) {
+        return databaseClient.sql(FIND_BY_SHORT_KEY)
+                .bind("shortKey", shortKey)
+                .map(ShortUrlLookupRepository::toShortUrlDto)
+                .one();
+    }
+
+    /**
+     * Relative increments in one statement, so flushes from many nodes never overwrite each other.
+     */
+    public Mono<Long> addClickCounts(Long[] ids, Long[] clicks) {
+        return databaseClient.sql(ADD_CLICK_COUNTS)
+                .bind("ids", ids)
+                .bind("clicks", clicks)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private static ShortUrlDto toShortUrlDto(Readable row) {
+        Long userId = row.get("user_id", Long.class);
+        String redirectType = row.get("redirect_type", String.class);
+        return new ShortUrlDto(
+                row.get("id", Long.class),
+                row.get("short_key", String.class),
+                row.get("original_url", String.class),
+                row.get("is_private", Boolean.class),
+                toInstant(row.get("expires_at", LocalDateTime.class)),
+                userId != null ? new UserDto(userId, row.get("user_name", String.class)) : null,
+                row.get("click_count", Long.class),
+                toInstant(row.get("created_at", LocalDateTime.class)),
+                redirectType != null ? RedirectType.valueOf(redirectType) : null,
+                row.get("unique_visitors", Long.class));
+    }
+
+    private static Instant toInstant(LocalDateTime timestamp) {
+        return timestamp != null ? timestamp.atZone(ZoneId.systemDefault()).toInstant() : null;
+    }
+}
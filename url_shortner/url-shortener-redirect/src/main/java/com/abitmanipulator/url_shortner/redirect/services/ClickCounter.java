@@ -0,0 +1,92 @@
+package com.abitmanipulator.url_shortner.redirect.services;
+
+import com.abitmanipulator.url_shortner.redirect.repository.ShortUrlLookupRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind click counter, as in the app: redirects bump a {@link LongAdder} per short url and the pending counts
+ * are flushed periodically as one relative UPDATE. Click events, trending and unique visitors stay with the app.
+ */
+@Component
+public class ClickCounter {
+    private static final Logger log = LoggerFactory.getLogger(ClickCounter.class);
+
+    private final ConcurrentHashMap<Long, LongAdder> pendingClicks = new ConcurrentHashMap<>();
+    // idle adders removed by the previous flush; a redirect may still have incremented one after it was removed
+    private Map<Long, LongAdder> retired = Map.of();
+    private final ShortUrlLookupRepository lookupRepository;
+
+    public ClickCounter(ShortUrlLookupRepository lookupRepository) {
+        this.lookupRepository = lookupRepository;
+    }
+
+    public void increment(Long shortUrlId) {
+        LongAdder clicks = pendingClicks.get(shortUrlId);
+        if (clicks == null) {
+            clicks = pendingClicks.computeIfAbsent(shortUrlId, id -> new LongAdder());
+        }
+        clicks.increment();
+    }
+
+    // runs on the scheduler thread, not an event loop, so waiting for the update is fine and keeps flushes from overlapping
+    @Scheduled(fixedDelayString = "${app.click-counting.flush-interval:PT5S}")
+    public synchronized void flush() {
+        List<Long> ids = new ArrayList<>();
+        List<Long> clicks = new ArrayList<>();
+        // a redirect holds an adder only between get and increment, far shorter than a flush interval
+        for (Map.Entry<Long, LongAdder> entry : retired.entrySet()) {
+            add(ids, clicks, entry.getKey(), entry.getValue().sumThenReset());
+        }
+        Map<Long, LongAdder> idle = new HashMap<>();
+        for (Map.Entry<Long, LongAdder> entry : pendingClicks.entrySet()) {
+            long count = entry.getValue().sumThenReset();
+            if (count == 0) {
+                // idle since the last flush, stop tracking it; late increments are picked up on the next flush
+                if (pendingClicks.remove(entry.getKey(), entry.getValue())) {
+                    idle.put(entry.getKey(), entry.getValue());
+                }
+                continue;
+            }
+            add(ids, clicks, entry.getKey(), count);
+        }
+        retired = idle;
+        if (ids.isEmpty()) {
+            return;
+        }
+        try {
+            lookupRepository.addClickCounts(ids.toArray(Long[]::new), clicks.toArray(Long[]::new)).block();
+        } catch (Exception e) {
+            log.error("Failed to flush {} click counts, will retry on next flush", ids.size(), e);
+            for (int i = 0; i < ids.size(); i++) {
+                pendingClicks.computeIfAbsent(ids.get(i), id -> new LongAdder()).add(clicks.get(i));
+            }
+        }
+    }
+
+    private static void add(List<Long> ids, List<Long> clicks, Long shortUrlId, long count) {
+        if (count == 0) {
+            return;
+        }
+        ids.add(shortUrlId);
+        clicks.add(count);
+    }
+
+    @PreDestroy
+    public void drain() {
+        log.info("Flushing pending click counts before shutdown");
+        flush();
+        // nothing redirects any more: collect what the last flush retired
+        flush();
+    }
+}
@@ -0,0 +1,46 @@
+package com.abitmanipulator.url_shortner.redirect.services;
+
+import com.abitmanipulator.url_shortner.domain.models.ShortUrlDto;
+import com.abitmanipulator.url_shortner.redirect.RedirectNodeProperties;
+import com.abitmanipulator.url_shortner.redirect.repository.ShortUrlLookupRepository;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+/**
+ * Resolves short keys through an async cache in front of R2DBC; concurrent misses on one key share a single query.
+ * Only the key -> url mapping is cached, expiry is checked on every hit, like the app's ShortUrlCache.
+ * Misses are not cached.
+ */
+@Component
+public class ShortUrlResolver {
+
+    public static final String CACHE_NAME = "shortUrls";
+
+    private final ShortUrlLookupRepository lookupRepository;
+    private final AsyncCache<String, ShortUrlDto> cache;
+
+    public ShortUrlResolver(ShortUrlLookupRepository lookupRepository, RedirectNodeProperties properties, MeterRegistry meterRegistry) {
+        this.lookupRepository = lookupRepository;
+        RedirectNodeProperties.RedirectCache config = properties.redirectCache();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(config.maximumSize())
+                .expireAfterWrite(config.ttl())
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * @return the link if it exists, is not invalid and has not expired; who may follow it is up to the caller
+     */
+    public Mono<ShortUrlDto> resolve(String shortKey) {
+        return Mono.fromFuture(() -> cache.get(shortKey, (key, executor) -> lookupRepository.findByShortKey(key).toFuture()))
+                .filter(shortUrl -> !shortUrl.isExpired(Instant.now()));
+    }
+}
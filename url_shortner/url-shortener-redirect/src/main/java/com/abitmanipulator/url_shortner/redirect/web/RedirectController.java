@@ -0,0 +1,77 @@
+package com.abitmanipulator.url_shortner.redirect.web;
+
+import com.abitmanipulator.url_shortner.domain.models.ShortUrlDto;
+import com.abitmanipulator.url_shortner.redirect.RedirectNodeProperties;
+import com.abitmanipulator.url_shortner.redirect.services.ClickCounter;
+import com.abitmanipulator.url_shortner.redirect.services.ShortUrlResolver;
+import com.abitmanipulator.url_shortner.services.RedirectPolicy;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of the app's RedirectController, with the same status and Cache-Control rules.
+ * Every caller is anonymous here: private links are handed to the app (which has the session) or answered with 404.
+ */
+@Controller
+public class RedirectController {
+
+    private final ShortUrlResolver shortUrlResolver;
+    private final ClickCounter clickCounter;
+    private final RedirectPolicy redirectPolicy;
+    private final String privateLinksUrl;
+
+    public RedirectController(ShortUrlResolver shortUrlResolver, ClickCounter clickCounter,
+                              RedirectPolicy redirectPolicy, RedirectNodeProperties properties) {
+        this.shortUrlResolver = shortUrlResolver;
+        this.clickCounter = clickCounter;
+        this.redirectPolicy = redirectPolicy;
+        this.privateLinksUrl = properties.privateLinksUrl();
+    }
+
+    @GetMapping("/s/{shortKey}")
+    Mono<ResponseEntity<Void>> redirectToOriginalUrl(@PathVariable("shortKey") String shortKey) {
+        return shortUrlResolver.resolve(shortKey)
+                .map(shortUrl -> {
+                    if (!shortUrl.isAccessibleBy(null)) {
+                        return privateLink(shortUrl);
+                    }
+                    clickCounter.increment(shortUrl.id());
+                    return redirect(shortUrl);
+                })
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    // link previews and crawlers probe with HEAD; answer the same way but don't count it as a click
+    @RequestMapping(value = "/s/{shortKey}", method = RequestMethod.HEAD)
+    Mono<ResponseEntity<Void>> headOriginalUrl(@PathVariable("shortKey") String shortKey) {
+        return shortUrlResolver.resolve(shortKey)
+                .map(shortUrl -> shortUrl.isAccessibleBy(null) ? redirect(shortUrl) : privateLink(shortUrl))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    private ResponseEntity<Void> redirect(ShortUrlDto shortUrl) {
+        return ResponseEntity.status(redirectPolicy.redirectType(shortUrl).status())
+                .cacheControl(redirectPolicy.cacheControl(shortUrl))
+                .header(HttpHeaders.LOCATION, shortUrl.originalUrl())
+                .build();
+    }
+
+    // the app counts the click once it has checked the owner
+    private ResponseEntity<Void> privateLink(ShortUrlDto shortUrl) {
+        if (privateLinksUrl == null || privateLinksUrl.isBlank()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.status(HttpStatus.TEMPORARY_REDIRECT)
+                .cacheControl(CacheControl.noStore())
+                .header(HttpHeaders.LOCATION, privateLinksUrl + "/s/" + shortUrl.shortKey())
+                .build();
+    }
+}
@@ -0,0 +1,68 @@
+package com.abitmanipulator.url_shortner.redirect.services;
+
+import com.abitmanipulator.url_shortner.redirect.repository.ShortUrlLookupRepository;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ClickCounterTest {
+
+    private final ShortUrlLookupRepository lookupRepository = mock(ShortUrlLookupRepository.class);
+    private final ClickCounter clickCounter = new ClickCounter(lookupRepository);
+
+    @Test
+    void flushesEachLinksClicksOnce() {
+        when(lookupRepository.addClickCounts(any(), any())).thenReturn(Mono.just(2L));
+        clickCounter.increment(1L);
+        clickCounter.increment(1L);
+        clickCounter.increment(2L);
+
+        clickCounter.flush();
+        clickCounter.flush();
+
+        verify(lookupRepository).addClickCounts(new Long[]{1L, 2L}, new Long[]{2L, 1L});
+        verify(lookupRepository, times(1)).addClickCounts(any(), any());
+    }
+
+    @Test
+    void countsClicksOnALinkThatWentIdle() {
+        when(lookupRepository.addClickCounts(any(), any())).thenReturn(Mono.just(1L));
+        clickCounter.increment(1L);
+        clickCounter.flush();
+        // idle: its adder is retired
+        clickCounter.flush();
+
+        clickCounter.increment(1L);
+        clickCounter.flush();
+
+        verify(lookupRepository, times(2)).addClickCounts(new Long[]{1L}, new Long[]{1L});
+    }
+
+    @Test
+    void keepsTheCountsOfAFailedFlushForTheNextOne() {
+        when(lookupRepository.addClickCounts(any(), any()))
+                .thenReturn(Mono.error(new IllegalStateException("down")))
+                .thenReturn(Mono.just(1L));
+        clickCounter.increment(1L);
+        clickCounter.flush();
+        clickCounter.increment(1L);
+
+        clickCounter.flush();
+
+        verify(lookupRepository).addClickCounts(new Long[]{1L}, new Long[]{2L});
+    }
+
+    @Test
+    void writesNothingWithoutClicks() {
+        clickCounter.flush();
+        clickCounter.drain();
+
+        verify(lookupRepository, never()).addClickCounts(any(), any());
+    }
+}
@@ -0,0 +1,141 @@
+package com.abitmanipulator.url_shortner.redirect.web;
+
+import com.abitmanipulator.url_shortner.domain.models.RedirectType;
+import com.abitmanipulator.url_shortner.domain.models.ShortUrlDto;
+import com.abitmanipulator.url_shortner.domain.models.UserDto;
+import com.abitmanipulator.url_shortner.redirect.RedirectNodeProperties;
+import com.abitmanipulator.url_shortner.redirect.config.RedirectPolicyConfig;
+import com.abitmanipulator.url_shortner.redirect.repository.ShortUrlLookupRepository;
+import com.abitmanipulator.url_shortner.redirect.services.ClickCounter;
+import com.abitmanipulator.url_shortner.redirect.services.ShortUrlResolver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RedirectControllerTest {
+
+    private static final String TARGET = "https://example.com/some/page";
+    private static final String APP_URL = "https://app.example.com";
+
+    private final ShortUrlLookupRepository lookupRepository = mock(ShortUrlLookupRepository.class);
+    private final ClickCounter clickCounter = mock(ClickCounter.class);
+
+    @Test
+    void publicLinkIsPermanentCacheableAndCounted() {
+        when(lookupRepository.findByShortKey("pub1234")).thenReturn(Mono.just(shortUrl("pub1234", false, null, null)));
+
+        client(null).get().uri("/s/pub1234").exchange()
+                .expectStatus().isEqualTo(301)
+                .expectHeader().valueEquals(HttpHeaders.LOCATION, TARGET)
+                .expectHeader().valueEquals(HttpHeaders.CACHE_CONTROL, "max-age=86400, public")
+                .expectHeader().doesNotExist(HttpHeaders.SET_COOKIE)
+                .expectBody().isEmpty();
+
+        verify(clickCounter).increment(1L);
+    }
+
+    @Test
+    void linkRedirectTypeWins() {
+        when(lookupRepository.findByShortKey("tmp1234"))
+                .thenReturn(Mono.just(shortUrl("tmp1234", false, null, RedirectType.TEMPORARY_REDIRECT)));
+
+        client(null).get().uri("/s/tmp1234").exchange()
+                .expectStatus().isTemporaryRedirect()
+                .expectHeader().valueEquals(HttpHeaders.LOCATION, TARGET);
+    }
+
+    @Test
+    void privateLinkIsHandedToTheAppWithoutCounting() {
+        when(lookupRepository.findByShortKey("prv1234")).thenReturn(Mono.just(shortUrl("prv1234", true, null, null)));
+
+        client(APP_URL).get().uri("/s/prv1234").exchange()
+                .expectStatus().isTemporaryRedirect()
+                .expectHeader().valueEquals(HttpHeaders.LOCATION, APP_URL + "/s/prv1234")
+                .expectHeader().valueEquals(HttpHeaders.CACHE_CONTROL, "no-store");
+
+        // the app counts it once it has checked the owner
+        verify(clickCounter, never()).increment(anyLong());
+    }
+
+    @Test
+    void privateLinkIsNotFoundWithoutAnAppToHandItTo() {
+        when(lookupRepository.findByShortKey("prv1234")).thenReturn(Mono.just(shortUrl("prv1234", true, null, null)));
+
+        client(null).get().uri("/s/prv1234").exchange()
+                .expectStatus().isNotFound()
+                .expectHeader().doesNotExist(HttpHeaders.LOCATION);
+
+        verify(clickCounter, never()).increment(anyLong());
+    }
+
+    @Test
+    void expiredLinkIsNotFoundEvenWhenCached() {
+        Instant expiresAt = Instant.now().plusSeconds(1);
+        when(lookupRepository.findByShortKey("exp1234")).thenReturn(Mono.just(shortUrl("exp1234", false, expiresAt, null)));
+        WebTestClient client = client(null);
+
+        client.get().uri("/s/exp1234").exchange().expectStatus().isFound();
+        await(expiresAt);
+        client.get().uri("/s/exp1234").exchange().expectStatus().isNotFound();
+
+        verify(lookupRepository, times(1)).findByShortKey("exp1234");
+        verify(clickCounter, times(1)).increment(1L);
+    }
+
+    @Test
+    void headAnswersWithoutCountingAClick() {
+        when(lookupRepository.findByShortKey("pub1234")).thenReturn(Mono.just(shortUrl("pub1234", false, null, null)));
+
+        client(null).head().uri("/s/pub1234").exchange()
+                .expectStatus().isEqualTo(301)
+                .expectHeader().valueEquals(HttpHeaders.LOCATION, TARGET);
+
+        verify(clickCounter, never()).increment(anyLong());
+    }
+
+    @Test
+    void unknownKeyIsNotFound() {
+        when(lookupRepository.findByShortKey("missing")).thenReturn(Mono.empty());
+
+        client(null).get().uri("/s/missing").exchange()
+                .expectStatus().isNotFound()
+                .expectHeader().doesNotExist(HttpHeaders.LOCATION);
+
+        verify(clickCounter, never()).increment(anyLong());
+    }
+
+    private WebTestClient client(String privateLinksUrl) {
+        RedirectNodeProperties properties = new RedirectNodeProperties(privateLinksUrl,
+                new RedirectNodeProperties.Redirect(RedirectType.FOUND, true, Duration.ofDays(1)),
+                new RedirectNodeProperties.RedirectCache(100, Duration.ofMinutes(10)));
+        ShortUrlResolver resolver = new ShortUrlResolver(lookupRepository, properties, new SimpleMeterRegistry());
+        RedirectController controller = new RedirectController(resolver, clickCounter,
+                new RedirectPolicyConfig().redirectPolicy(properties), properties);
+        return WebTestClient.bindToController(controller).build();
+    }
+
+    private static void await(Instant instant) {
+        try {
+            Thread.sleep(Math.max(0, Duration.between(Instant.now(), instant).toMillis() + 50));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ShortUrlDto shortUrl(String shortKey, boolean isPrivate, Instant expiresAt, RedirectType redirectType) {
+        return new ShortUrlDto(1L, shortKey, TARGET, isPrivate, expiresAt, new UserDto(1L, "Owner"), 0L,
+                Instant.now(), redirectType, 0L);
+    }
+}